@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.jmh;
+
+/**
+ * The class accessed by the benchmarks. Each private member has a public twin, used as the
+ * direct access baseline.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class BenchmarkTarget {
+
+  private static int shared = 1;
+
+  private int value = 42;
+
+  private BenchmarkTarget inner;
+
+  public BenchmarkTarget() {
+    // nothing to do
+  }
+
+  private BenchmarkTarget(int value) {
+    this.value = value;
+  }
+
+  public static BenchmarkTarget create(int value) {
+    return new BenchmarkTarget(value);
+  }
+
+  public static int getShared() {
+    return shared;
+  }
+
+  public static void setShared(int value) {
+    shared = value;
+  }
+
+  public int getValue() {
+    return value;
+  }
+
+  public void setValue(int value) {
+    this.value = value;
+  }
+
+  public BenchmarkTarget getInner() {
+    return inner;
+  }
+
+  public void setInner(BenchmarkTarget inner) {
+    this.inner = inner;
+  }
+
+  public int add(int delta) {
+    return plus(delta);
+  }
+
+  public void increment() {
+    bump();
+  }
+
+  private int plus(int delta) {
+    return value + delta;
+  }
+
+  private void bump() {
+    value++;
+  }
+
+  /**
+   * Implemented by the proxies over the private members.
+   */
+  public static interface Access {
+
+    int getValue();
+
+    void setValue(int value);
+
+    int plus(int delta);
+
+    void bump();
+  }
+}
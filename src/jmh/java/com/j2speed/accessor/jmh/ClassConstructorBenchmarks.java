@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.j2speed.accessor.ClassAccessor;
+import com.j2speed.accessor.ClassAccessor.ClassConstructor;
+
+/**
+ * {@link ClassConstructor#newInstance(Object...)} against direct construction.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassConstructorBenchmarks {
+
+  private final ClassAccessor accessor = ClassAccessor.create(BenchmarkTarget.class.getName());
+
+  private final ClassConstructor constructor = accessor.constructor(int.class);
+
+  private int next;
+
+  @Benchmark
+  public BenchmarkTarget direct() {
+    return BenchmarkTarget.create(next++ & 0x7F);
+  }
+
+  @Benchmark
+  public Object newInstance() {
+    return constructor.newInstance(Integer.valueOf(next++ & 0x7F));
+  }
+
+  @Benchmark
+  public Object newInstance1() {
+    return constructor.newInstance1(Integer.valueOf(next++ & 0x7F));
+  }
+
+  @Benchmark
+  public ClassConstructor create() {
+    return accessor.constructor(int.class);
+  }
+}
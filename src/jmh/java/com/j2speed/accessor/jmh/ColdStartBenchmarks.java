@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import com.j2speed.accessor.Accessors;
+import com.j2speed.accessor.ClassAccessor;
+import com.j2speed.accessor.FieldAccessor;
+import com.j2speed.accessor.MethodAccessor;
+import com.j2speed.accessor.ProxyAccessor;
+
+/**
+ * The cost of creating accessors and proxies at startup: each benchmark runs once in a fresh JVM,
+ * creating an accessor for each class of a synthetic corpus and calling it once.
+ * <p>
+ * The time reported is the time to first call per accessor. The corpus classes are loaded and
+ * instantiated before the measurement, so class loading is not part of it. After the measurement
+ * the metaspace and heap retained per accessor are printed, measured after a full collection with
+ * all the accessors still reachable.
+ * </p>
+ * <p>
+ * The corpus is compiled once, in <code>java.io.tmpdir</code>, and reused by the later runs.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class ColdStartBenchmarks {
+
+  /**
+   * The number of classes in the corpus.
+   */
+  static final int CORPUS = 2000;
+
+  private static final String PACKAGE = "corpus";
+
+  /**
+   * The corpus classes.
+   */
+  private Class<?>[] classes;
+
+  /**
+   * An instance of each corpus class.
+   */
+  private Object[] instances;
+
+  private ClassLoader loader;
+
+  /**
+   * The accessors created, kept reachable until their cost is measured.
+   */
+  private Object[] created;
+
+  private long metaspace;
+
+  private long heap;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() throws Exception {
+    loader = new URLClassLoader(new URL[] { corpus().toURI().toURL() }, ColdStartBenchmarks.class.getClassLoader());
+    classes = new Class<?>[CORPUS];
+    instances = new Object[CORPUS];
+    for (int i = 0; i < CORPUS; i++) {
+      classes[i] = Class.forName(PACKAGE + ".Synthetic" + i, true, loader);
+      instances[i] = classes[i].getConstructor().newInstance();
+    }
+    created = new Object[CORPUS];
+  }
+
+  @Setup(Level.Iteration)
+  public void before() {
+    collect();
+    metaspace = metaspaceUsed();
+    heap = heapUsed();
+  }
+
+  @TearDown(Level.Iteration)
+  public void after(BenchmarkParams params) {
+    collect();
+    long metaspacePerAccessor = (metaspaceUsed() - metaspace) / CORPUS;
+    long heapPerAccessor = (heapUsed() - heap) / CORPUS;
+    System.out.printf("%n%s: %d bytes of metaspace, %d bytes of heap per accessor%n", params.getBenchmark(), metaspacePerAccessor, heapPerAccessor);
+    created = new Object[CORPUS];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CORPUS)
+  public Object[] accessField() {
+    for (int i = 0; i < CORPUS; i++) {
+      FieldAccessor<Object, Integer> accessor = Accessors.accessField("value", classes[i]);
+      accessor.get(instances[i]);
+      created[i] = accessor;
+    }
+    return created;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CORPUS)
+  public Object[] accessMethod() {
+    for (int i = 0; i < CORPUS; i++) {
+      MethodAccessor<Integer> accessor = Accessors.accessMethod("plus", instances[i], int.class);
+      accessor.invoke(Integer.valueOf(1));
+      created[i] = accessor;
+    }
+    return created;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CORPUS)
+  public Object[] constructor() {
+    for (int i = 0; i < CORPUS; i++) {
+      ClassAccessor.ClassConstructor constructor = ClassAccessor.create(classes[i].getName(), loader).constructor(int.class);
+      constructor.newInstance(Integer.valueOf(1));
+      created[i] = constructor;
+    }
+    return created;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CORPUS)
+  public Object[] createAccessor() {
+    for (int i = 0; i < CORPUS; i++) {
+      Shape proxy = ProxyAccessor.createAccessor(Shape.class, instances[i]);
+      proxy.plus(1);
+      created[i] = proxy;
+    }
+    return created;
+  }
+
+  /**
+   * @return the directory of the compiled corpus, compiling it the first time.
+   */
+  private static File corpus() throws IOException {
+    File directory = new File(System.getProperty("java.io.tmpdir"), "accessive-corpus-" + CORPUS);
+    File last = new File(directory, PACKAGE + "/Synthetic" + (CORPUS - 1) + ".class");
+    if (last.exists()) {
+      return directory;
+    }
+    File sources = new File(directory, PACKAGE);
+    sources.mkdirs();
+    List<String> arguments = new ArrayList<String>();
+    arguments.add("-d");
+    arguments.add(directory.getPath());
+    for (int i = 0; i < CORPUS; i++) {
+      String name = "Synthetic" + i;
+      arguments.add(write(sources, name, "public class " + name + " {\n" //
+        + "  private int value = " + i + ";\n" //
+        + "  public " + name + "() {\n  }\n" //
+        + "  private " + name + "(int value) {\n    this.value = value;\n  }\n" //
+        + "  private int plus(int delta) {\n    return value + delta;\n  }\n" //
+        + "}\n"));
+    }
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null || compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])) != 0) {
+      throw new IllegalStateException("Cannot compile the corpus in " + directory);
+    }
+    return directory;
+  }
+
+  private static String write(File directory, String name, String body) throws IOException {
+    File source = new File(directory, name + ".java");
+    Files.write(source.toPath(), ("package " + PACKAGE + ";\n\n" + body).getBytes(StandardCharsets.UTF_8));
+    return source.getPath();
+  }
+
+  private static void collect() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+  }
+
+  private static long metaspaceUsed() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getName().equals("Metaspace")) {
+        used += pool.getUsage().getUsed();
+      }
+    }
+    return used;
+  }
+
+  private static long heapUsed() {
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Implemented by the proxies over the corpus classes.
+   */
+  public static interface Shape {
+
+    int plus(int delta);
+
+    int getValue();
+  }
+}
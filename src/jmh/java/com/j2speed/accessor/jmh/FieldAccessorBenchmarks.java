@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.j2speed.accessor.Accessors;
+import com.j2speed.accessor.FieldAccessor;
+import com.j2speed.accessor.ObjectSnapshot;
+import com.j2speed.accessor.PathAccessor;
+import com.j2speed.accessor.StaticFieldAccessor;
+
+/**
+ * {@link FieldAccessor}, {@link StaticFieldAccessor}, {@link PathAccessor} and {@link ObjectSnapshot}
+ * against direct access.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessorBenchmarks {
+
+  private final BenchmarkTarget target = new BenchmarkTarget();
+
+  private final FieldAccessor<BenchmarkTarget, Integer> value = FieldAccessor.make("value", BenchmarkTarget.class);
+
+  private final StaticFieldAccessor<BenchmarkTarget, Integer> shared = StaticFieldAccessor.make("shared", BenchmarkTarget.class);
+
+  private final FieldAccessor<BenchmarkTarget, BenchmarkTarget> inner = FieldAccessor.make("inner", BenchmarkTarget.class);
+
+  private final PathAccessor<BenchmarkTarget, Integer> path = PathAccessor.make(BenchmarkTarget.class, "inner.inner.value");
+
+  private final ObjectSnapshot<BenchmarkTarget> snapshot = ObjectSnapshot.make(BenchmarkTarget.class);
+
+  private final long[] primitives = new long[snapshot.getPrimitiveCount()];
+
+  private final Object[] references = new Object[snapshot.getReferenceCount()];
+
+  private int next;
+
+  {
+    BenchmarkTarget middle = new BenchmarkTarget();
+    middle.setInner(new BenchmarkTarget());
+    target.setInner(middle);
+  }
+
+  @Benchmark
+  public int directGet() {
+    return target.getValue();
+  }
+
+  @Benchmark
+  public Integer accessorGet() {
+    return value.get(target);
+  }
+
+  @Benchmark
+  public Object oneShotGet() {
+    return Accessors.accessField("value", target);
+  }
+
+  @Benchmark
+  public Integer directPathGet() {
+    BenchmarkTarget middle = target.getInner();
+    BenchmarkTarget last = middle == null ? null : middle.getInner();
+    return last == null ? null : Integer.valueOf(last.getValue());
+  }
+
+  @Benchmark
+  public Integer chainedGet() {
+    BenchmarkTarget middle = inner.get(target);
+    BenchmarkTarget last = middle == null ? null : inner.get(middle);
+    return last == null ? null : value.get(last);
+  }
+
+  @Benchmark
+  public Integer pathGet() {
+    return path.get(target);
+  }
+
+  @Benchmark
+  public long[] snapshotCapture() {
+    snapshot.capture(target, primitives, references);
+    return primitives;
+  }
+
+  @Benchmark
+  public void directSet() {
+    target.setValue(next++ & 0x7F);
+  }
+
+  @Benchmark
+  public void accessorSet() {
+    value.set(target, Integer.valueOf(next++ & 0x7F));
+  }
+
+  @Benchmark
+  public int directStaticGet() {
+    return BenchmarkTarget.getShared();
+  }
+
+  @Benchmark
+  public Integer accessorStaticGet() {
+    return shared.get();
+  }
+
+  @Benchmark
+  public void directStaticSet() {
+    BenchmarkTarget.setShared(next++ & 0x7F);
+  }
+
+  @Benchmark
+  public void accessorStaticSet() {
+    shared.set(Integer.valueOf(next++ & 0x7F));
+  }
+
+  @Benchmark
+  public FieldAccessor<BenchmarkTarget, Integer> create() {
+    return FieldAccessor.make("value", BenchmarkTarget.class);
+  }
+
+  @Benchmark
+  public StaticFieldAccessor<BenchmarkTarget, Integer> createStatic() {
+    return StaticFieldAccessor.make("shared", BenchmarkTarget.class);
+  }
+}
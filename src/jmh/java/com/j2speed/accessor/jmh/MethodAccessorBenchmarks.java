@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.j2speed.accessor.Accessors;
+import com.j2speed.accessor.MethodAccessor;
+import com.j2speed.accessor.VoidMethodAccessor;
+
+/**
+ * {@link MethodAccessor} and {@link VoidMethodAccessor} against direct calls, through both the
+ * varargs and the fixed arity invocations.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodAccessorBenchmarks {
+
+  private final BenchmarkTarget target = new BenchmarkTarget();
+
+  private final MethodAccessor<Integer> plus = MethodAccessor.make("plus", target, int.class);
+
+  private final VoidMethodAccessor bump = new VoidMethodAccessor("bump", target);
+
+  private int next;
+
+  @Benchmark
+  public int direct() {
+    return target.add(next++ & 0x7F);
+  }
+
+  @Benchmark
+  public Integer accessorInvoke() {
+    return plus.invoke(Integer.valueOf(next++ & 0x7F));
+  }
+
+  @Benchmark
+  public Integer accessorInvoke1() {
+    return plus.invoke1(Integer.valueOf(next++ & 0x7F));
+  }
+
+  @Benchmark
+  public Object oneShotInvoke() {
+    return Accessors.invoke("plus", target, Integer.valueOf(next++ & 0x7F));
+  }
+
+  @Benchmark
+  public void directVoid() {
+    target.increment();
+  }
+
+  @Benchmark
+  public void voidAccessorInvoke() {
+    bump.invoke();
+  }
+
+  @Benchmark
+  public void voidAccessorInvoke0() {
+    bump.invoke0();
+  }
+
+  @Benchmark
+  public MethodAccessor<Integer> create() {
+    return MethodAccessor.make("plus", target, int.class);
+  }
+
+  @Benchmark
+  public VoidMethodAccessor createVoid() {
+    return new VoidMethodAccessor("bump", target);
+  }
+}
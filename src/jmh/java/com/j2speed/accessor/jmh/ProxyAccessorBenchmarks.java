@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.j2speed.accessor.ProxyAccessor;
+
+/**
+ * {@link ProxyAccessor} proxies against direct calls.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyAccessorBenchmarks {
+
+  private final BenchmarkTarget target = new BenchmarkTarget();
+
+  private final BenchmarkTarget.Access proxy = ProxyAccessor.createAccessor(BenchmarkTarget.Access.class, target);
+
+  private int next;
+
+  @Benchmark
+  public int directGet() {
+    return target.getValue();
+  }
+
+  @Benchmark
+  public int proxyGet() {
+    return proxy.getValue();
+  }
+
+  @Benchmark
+  public void directSet() {
+    target.setValue(next++ & 0x7F);
+  }
+
+  @Benchmark
+  public void proxySet() {
+    proxy.setValue(next++ & 0x7F);
+  }
+
+  @Benchmark
+  public int directMethod() {
+    return target.add(next++ & 0x7F);
+  }
+
+  @Benchmark
+  public int proxyMethod() {
+    return proxy.plus(next++ & 0x7F);
+  }
+
+  @Benchmark
+  public void directVoidMethod() {
+    target.increment();
+  }
+
+  @Benchmark
+  public void proxyVoidMethod() {
+    proxy.bump();
+  }
+
+  @Benchmark
+  public BenchmarkTarget.Access create() {
+    return ProxyAccessor.createAccessor(BenchmarkTarget.Access.class, target);
+  }
+}
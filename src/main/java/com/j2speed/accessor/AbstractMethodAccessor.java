@@ -15,9 +15,16 @@
  */
 package com.j2speed.accessor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.lang.reflect.Modifier;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.MethodAccess;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
@@ -32,18 +39,60 @@ import edu.umd.cs.findbugs.annotations.NonNull;
  */
 abstract class AbstractMethodAccessor<T> {
 
+  private static final Object[] NO_ARGUMENTS = {};
+
+  /**
+   * Creates an {@link InvocationTargetException} from the exception thrown by the invoked member.
+   */
+  private static final MethodHandle WRAP_TARGET_EXCEPTION;
+
+  static {
+    try {
+      WRAP_TARGET_EXCEPTION = MethodHandles.lookup().findConstructor(InvocationTargetException.class, MethodType.methodType(void.class, Throwable.class));
+    } catch (NoSuchMethodException e) {
+      throw new RuntimeException(e);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * The method to invoke.
    */
   @NonNull
   private final Method method;
 
+  /**
+   * The backend invoking the method.
+   */
+  @NonNull
+  private final MethodAccess access;
+
   /**
    * The target on which to invoke the method.
    */
   @NonNull
   private final Object target;
 
+  /**
+   * The handle invoking the method on the target, with the exact type of the method, created on
+   * first use.
+   */
+  @CheckForNull
+  private MethodHandle exactHandle;
+
+  /**
+   * The handle used by the fixed arity invocations, created on first use.
+   */
+  @CheckForNull
+  private MethodHandle handle;
+
+  /**
+   * The handle spreading an arguments array, created on first use.
+   */
+  @CheckForNull
+  private MethodHandle spreader;
+
   /**
    * Constructor.
    * 
@@ -56,14 +105,50 @@ abstract class AbstractMethodAccessor<T> {
    */
   AbstractMethodAccessor(@NonNull String methodName, @NonNull Object target,
     @NonNull Class<?>... parametersType) {
+    this((AccessStrategy) null, methodName, target, parametersType);
+  }
+
+  /**
+   * Constructor invoking the method through the specified strategy.
+   * 
+   * @param strategy
+   *          the strategy creating the access to the method, <code>null</code> for the one
+   *          selected by {@link AccessStrategies}.
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   */
+  AbstractMethodAccessor(@CheckForNull AccessStrategy strategy, @NonNull String methodName,
+    @NonNull Object target, @NonNull Class<?>... parametersType) {
     try {
       method = getMethod(target.getClass(), methodName, parametersType);
+      access = AccessStrategies.methodAccess(method, strategy);
       this.target = target;
     } catch (RuntimeException e) {
       throw e;
     }
   }
 
+  /**
+   * Constructor for an already resolved method.
+   * 
+   * @param method
+   *          the method to invoke
+   * @param access
+   *          the backend invoking the method
+   * @param target
+   *          the target object
+   */
+  AbstractMethodAccessor(@NonNull Method method, @NonNull MethodAccess access,
+    @NonNull Object target) {
+    this.method = method;
+    this.access = access;
+    this.target = target;
+  }
+
   /**
    * Common method invocation.
    * 
@@ -73,8 +158,233 @@ abstract class AbstractMethodAccessor<T> {
    */
   @SuppressWarnings("unchecked")
   final T invokeBase(@NonNull Object... args) {
+    return (T) invoke(method, access, target, args);
+  }
+
+  /**
+   * Implements the specified functional interface with the method, bound to the target.
+   * <p>
+   * The implementation is spun as for a method reference written in the class declaring the
+   * method, so calls to it can be inlined and neither allocate an arguments array nor box
+   * primitives the method and the interface agree on. Exceptions thrown by the method propagate
+   * unchanged.
+   * </p>
+   * 
+   * @param <F>
+   *          the type of the functional interface.
+   * @param type
+   *          the functional interface, such as {@link java.util.function.Supplier} or
+   *          {@link java.util.function.IntUnaryOperator}.
+   * @return the implementation of the interface.
+   * @throws IllegalArgumentException
+   *           if the type is not a functional interface or its method is not compatible with the
+   *           method.
+   */
+  @NonNull
+  public final <F> F as(@NonNull Class<F> type) {
+    return Lambdas.bind(type, method, target);
+  }
+
+  /**
+   * Returns the handle invoking the method on the target, with all the parameters and the result
+   * erased to {@link Object}.
+   * 
+   * @param arity
+   *          the number of arguments of the invocation.
+   * @return the handle with type <code>(Object, ...)Object</code>.
+   */
+  @NonNull
+  private MethodHandle handle(int arity) {
+    MethodHandle handle = this.handle;
+    if (handle == null) {
+      handle = exactHandle().asType(MethodType.genericMethodType(method.getParameterCount()));
+      // racy but idempotent, the handle is immutable
+      this.handle = handle;
+    }
+    checkArguments(method.getParameterCount(), arity);
+    return handle;
+  }
+
+  /**
+   * Returns the handle invoking the method on the target.
+   * 
+   * @return the handle, with the parameters and the return type of the method.
+   */
+  @NonNull
+  final MethodHandle exactHandle() {
+    MethodHandle handle = exactHandle;
+    if (handle == null) {
+      handle = unreflect(method);
+      if (!Modifier.isStatic(method.getModifiers())) {
+        handle = handle.bindTo(target);
+      }
+      // racy but idempotent, the handle is immutable
+      exactHandle = handle;
+    }
+    return handle;
+  }
+
+  /**
+   * Returns the handle invoking the method on the target with the arguments spread from an array.
+   * 
+   * @return the handle with type <code>(Object[])R</code>, where <code>R</code> is the return type
+   *         of the method.
+   */
+  @NonNull
+  final MethodHandle spreader() {
+    MethodHandle handle = spreader;
+    if (handle == null) {
+      handle = exactHandle().asSpreader(Object[].class, method.getParameterCount());
+      // racy but idempotent, the handle is immutable
+      spreader = handle;
+    }
+    return handle;
+  }
+
+  /**
+   * Checks the arguments of an invocation through {@link #spreader()}.
+   * 
+   * @param args
+   *          the arguments, <code>null</code> is accepted for no arguments.
+   * @return the arguments.
+   */
+  @NonNull
+  final Object[] checkArguments(@CheckForNull Object[] args) {
+    return checkArguments(method.getParameterCount(), args);
+  }
+
+  /**
+   * Checks that the method returns the specified type.
+   * 
+   * @param type
+   *          the expected return type.
+   * @throws IllegalArgumentException
+   *           if the method returns a different type.
+   */
+  final void checkReturnType(@NonNull Class<?> type) {
+    if (method.getReturnType() != type) {
+      throw new IllegalArgumentException("Method " + method.getName() + " does not return " + type);
+    }
+  }
+
+  /**
+   * Invocation with no arguments that does not allocate an arguments array.
+   * 
+   * @return the result of the specified type.
+   */
+  @SuppressWarnings("unchecked")
+  final T invokeBase0() {
+    MethodHandle handle = handle(0);
+    try {
+      Object result = handle.invokeExact();
+      return (T) result;
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invocation with one argument that does not allocate an arguments array.
+   * 
+   * @return the result of the specified type.
+   */
+  @SuppressWarnings("unchecked")
+  final T invokeBase1(Object arg0) {
+    MethodHandle handle = handle(1);
     try {
-      return (T) method.invoke(target, args);
+      Object result = handle.invokeExact(arg0);
+      return (T) result;
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invocation with two arguments that does not allocate an arguments array.
+   * 
+   * @return the result of the specified type.
+   */
+  @SuppressWarnings("unchecked")
+  final T invokeBase2(Object arg0, Object arg1) {
+    MethodHandle handle = handle(2);
+    try {
+      Object result = handle.invokeExact(arg0, arg1);
+      return (T) result;
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invocation with three arguments that does not allocate an arguments array.
+   * 
+   * @return the result of the specified type.
+   */
+  @SuppressWarnings("unchecked")
+  final T invokeBase3(Object arg0, Object arg1, Object arg2) {
+    MethodHandle handle = handle(3);
+    try {
+      Object result = handle.invokeExact(arg0, arg1, arg2);
+      return (T) result;
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invocation with four arguments that does not allocate an arguments array.
+   * 
+   * @return the result of the specified type.
+   */
+  @SuppressWarnings("unchecked")
+  final T invokeBase4(Object arg0, Object arg1, Object arg2, Object arg3) {
+    MethodHandle handle = handle(4);
+    try {
+      Object result = handle.invokeExact(arg0, arg1, arg2, arg3);
+      return (T) result;
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invocation with five arguments that does not allocate an arguments array.
+   * 
+   * @return the result of the specified type.
+   */
+  @SuppressWarnings("unchecked")
+  final T invokeBase5(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4) {
+    MethodHandle handle = handle(5);
+    try {
+      Object result = handle.invokeExact(arg0, arg1, arg2, arg3, arg4);
+      return (T) result;
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invokes a method through its backend, translating the failures into the exceptions thrown by
+   * the accessors.
+   * 
+   * @param method
+   *          the method to invoke
+   * @param access
+   *          the backend invoking the method
+   * @param target
+   *          the target object, ignored for static methods.
+   * @param args
+   *          the arguments for the method.
+   * @return the result of the invocation.
+   */
+  static Object invoke(@NonNull Method method, @NonNull MethodAccess access,
+    @CheckForNull Object target, @CheckForNull Object[] args) {
+    try {
+      return access.invoke(target, checkArguments(method.getParameterCount(), args));
+    } catch (ClassCastException e) {
+      throw new IllegalArgumentException(e);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException(e);
     } catch (RuntimeException e) {
       throw e;
     } catch (InvocationTargetException e) {
@@ -84,18 +394,131 @@ abstract class AbstractMethodAccessor<T> {
     }
   }
 
+  /**
+   * Translates the failures of a handle created by {@link #unreflect(Method)} into the exceptions
+   * thrown by the accessors, as {@link #invoke(Method, MethodAccess, Object, Object[])} does.
+   * 
+   * @param e
+   *          the failure.
+   * @return the exception to throw.
+   */
+  @NonNull
+  static RuntimeException invocationFailure(@NonNull Throwable e) {
+    if (e instanceof ClassCastException || e instanceof NullPointerException || e instanceof WrongMethodTypeException) {
+      return new IllegalArgumentException(e);
+    }
+    if (e instanceof InvocationTargetException) {
+      return new RuntimeException(((InvocationTargetException) e).getTargetException());
+    }
+    if (e instanceof RuntimeException) {
+      return (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    return new RuntimeException(e);
+  }
+
+  /**
+   * Unreflects a handle for the specified method that wraps anything thrown by the method in an
+   * {@link InvocationTargetException}, so that failures in adapting the arguments can be told
+   * apart from the ones of the method itself.
+   * 
+   * @param method
+   *          the accessible method.
+   * @return the handle, with the exact type of the method.
+   */
+  @NonNull
+  static MethodHandle unreflect(@NonNull Method method) {
+    try {
+      return wrapTargetExceptions(MethodHandles.lookup().unreflect(method));
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Wraps anything thrown by the specified handle in an {@link InvocationTargetException}.
+   * 
+   * @param handle
+   *          the handle invoking a method or a constructor.
+   * @return a handle of the same type.
+   */
+  @NonNull
+  static MethodHandle wrapTargetExceptions(@NonNull MethodHandle handle) {
+    MethodType type = handle.type();
+    MethodHandle thrower = MethodHandles.throwException(type.returnType(), InvocationTargetException.class);
+    thrower = MethodHandles.filterArguments(thrower, 0, WRAP_TARGET_EXCEPTION);
+    thrower = MethodHandles.dropArguments(thrower, 1, type.parameterList());
+    return MethodHandles.catchException(handle, Throwable.class, thrower);
+  }
+
+  /**
+   * Checks that a strategy explicitly passed to an accessor is not <code>null</code>.
+   * 
+   * @param strategy
+   *          the strategy.
+   * @return the strategy.
+   */
+  @NonNull
+  static AccessStrategy checkStrategy(@NonNull AccessStrategy strategy) {
+    if (strategy == null) {
+      throw new NullPointerException();
+    }
+    return strategy;
+  }
+
+  /**
+   * Checks that the number of arguments matches the number of parameters, as reflection does.
+   * 
+   * @param parameterCount
+   *          the number of parameters.
+   * @param args
+   *          the arguments, <code>null</code> is accepted for no arguments.
+   * @return the arguments.
+   */
+  @NonNull
+  static Object[] checkArguments(int parameterCount, @CheckForNull Object[] args) {
+    if (args == null) {
+      args = NO_ARGUMENTS;
+    }
+    checkArguments(parameterCount, args.length);
+    return args;
+  }
+
+  /**
+   * Checks that the number of arguments matches the number of parameters, as reflection does.
+   * 
+   * @param parameterCount
+   *          the number of parameters.
+   * @param arity
+   *          the number of arguments.
+   */
+  static void checkArguments(int parameterCount, int arity) {
+    if (arity != parameterCount) {
+      throw new IllegalArgumentException("wrong number of arguments: " + arity + " expected: " + parameterCount);
+    }
+  }
+
+  /**
+   * Utility method to search for a method starting from the specified class and going up the
+   * hierarchy until the method is found or the {@link Object} class is reached.
+   * <p>
+   * Resolved methods are cached, see {@link Members}.
+   * </p>
+   * 
+   * @param cls
+   *          the class from which to start
+   * @param name
+   *          the method name
+   * @param parametersType
+   *          the parameters signature.
+   * @return the {@link Method} found
+   */
   @NonNull
   static final Method getMethod(@NonNull Class<?> cls, @NonNull String name,
     @NonNull Class<?>... parametersType) {
-    while (cls != Object.class) {
-      try {
-        Method method = cls.getDeclaredMethod(name, parametersType);
-        method.setAccessible(true);
-        return method;
-      } catch (NoSuchMethodException e) {
-        cls = cls.getSuperclass();
-      }
-    }
-    throw new RuntimeException("No such method: " + name + "(" + Arrays.toString(parametersType) + ")");
+    return Members.method(cls, name, parametersType);
   }
+
 }
@@ -0,0 +1,1099 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodHandles.Lookup.ClassOption;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import com.j2speed.accessor.spi.FieldAccess;
+import com.j2speed.accessor.spi.MethodAccess;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Generates, for a single field, method or constructor, a small hidden class whose body accesses
+ * the member directly with <code>getfield</code>, <code>putfield</code>, <code>invokevirtual</code>
+ * and so on.
+ * <p>
+ * The class is defined as a nestmate of the class declaring the member, so that private members
+ * are accessible without any reflective check and the JIT can treat the access as it treats hand
+ * written code.
+ * </p>
+ * <p>
+ * Members that cannot be accessed this way (final fields, members of classes that cannot be opened
+ * to this library, types not visible from the class loader of the declaring class, ...) are not
+ * generated and the callers fall back to the other backends.
+ * </p>
+ * <p>
+ * The class of a member is generated once: the access is stateless, so all the accessors of the
+ * member share it.
+ * </p>
+ * <p>
+ * The accessors use it through {@link AccessStrategies#GENERATED}.
+ * </p>
+ *
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class AccessGenerator {
+
+  private static final String OBJECT = "java/lang/Object";
+
+  private static final String OBJECT_ARRAY = "[Ljava/lang/Object;";
+
+  private static final String THROWABLE = "java/lang/Throwable";
+
+  private static final String INVOCATION_TARGET_EXCEPTION = "java/lang/reflect/InvocationTargetException";
+
+  private static final String METHOD_HANDLE = "java/lang/invoke/MethodHandle";
+
+  private static final String NAME_SUFFIX = "$$Accessive";
+
+  private static final String PROXY_NAME_SUFFIX = "$$AccessiveProxy";
+
+  private static final String TARGET = "target";
+
+  /**
+   * The accesses generated for the members of a class, or {@link #NOT_GENERATED} for the members
+   * that cannot be accessed by a generated class.
+   */
+  private static final ClassValue<ConcurrentMap<Member, Object>> GENERATED = new ClassValue<ConcurrentMap<Member, Object>>() {
+    @Override
+    protected ConcurrentMap<Member, Object> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<Member, Object>();
+    }
+  };
+
+  private static final Object NOT_GENERATED = new Object();
+
+  private AccessGenerator() {/* static utility */}
+
+  /**
+   * Generates a {@link FieldAccess} for the specified field.
+   *
+   * @param field
+   *          the field to access.
+   * @return the generated access, or <code>null</code> if the field cannot be accessed by a
+   *         generated class.
+   */
+  @CheckForNull
+  static FieldAccess generate(@NonNull Field field) {
+    Object access = GENERATED.get(field.getDeclaringClass()).get(field);
+    if (access == null) {
+      access = share(field, generateAccess(field));
+    }
+    return access == NOT_GENERATED ? null : (FieldAccess) access;
+  }
+
+  @CheckForNull
+  private static FieldAccess generateAccess(@NonNull Field field) {
+    Class<?> host = field.getDeclaringClass();
+    Class<?> type = field.getType();
+    if (Modifier.isFinal(field.getModifiers()) || !canHost(host, FieldAccess.class) || !isReachable(type, host)) {
+      return null;
+    }
+    boolean isStatic = Modifier.isStatic(field.getModifiers());
+    ClassFile cf = new ClassFile(host);
+    String owner = internalName(host);
+    int fieldRef = cf.fieldRef(owner, field.getName(), descriptor(type));
+
+    Code get = new Code(2 + 1, 2);
+    if (isStatic) {
+      get.op(Code.GETSTATIC, fieldRef);
+    } else {
+      get.op(Code.ALOAD_1);
+      get.op(Code.CHECKCAST, cf.classRef(owner));
+      get.op(Code.GETFIELD, fieldRef);
+    }
+    box(cf, get, type);
+    get.op(Code.ARETURN);
+    cf.method("get", "(Ljava/lang/Object;)Ljava/lang/Object;", get);
+
+    Code set = new Code(1 + 2 + 1, 3);
+    if (!isStatic) {
+      set.op(Code.ALOAD_1);
+      set.op(Code.CHECKCAST, cf.classRef(owner));
+    }
+    set.op(Code.ALOAD_2);
+    unbox(cf, set, type);
+    set.op(isStatic ? Code.PUTSTATIC : Code.PUTFIELD, fieldRef);
+    set.op(Code.RETURN);
+    cf.method("set", "(Ljava/lang/Object;Ljava/lang/Object;)V", set);
+
+    return define(host, cf.toBytes(FieldAccess.class), FieldAccess.class);
+  }
+
+  /**
+   * Generates a {@link MethodAccess} for the specified method.
+   *
+   * @param method
+   *          the method to invoke.
+   * @return the generated access, or <code>null</code> if the method cannot be invoked by a
+   *         generated class.
+   */
+  @CheckForNull
+  static MethodAccess generate(@NonNull Method method) {
+    Object access = GENERATED.get(method.getDeclaringClass()).get(method);
+    if (access == null) {
+      access = share(method, generateAccess(method));
+    }
+    return access == NOT_GENERATED ? null : (MethodAccess) access;
+  }
+
+  @CheckForNull
+  private static MethodAccess generateAccess(@NonNull Method method) {
+    Class<?> host = method.getDeclaringClass();
+    if (!canHost(host, MethodAccess.class) || !areReachable(method.getParameterTypes(), host)) {
+      return null;
+    }
+    boolean isStatic = Modifier.isStatic(method.getModifiers());
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    ClassFile cf = new ClassFile(host);
+    String owner = internalName(host);
+
+    Code invoke = new Code(1 + slots(parameterTypes) + 2, 4);
+    if (!isStatic) {
+      invoke.op(Code.ALOAD_1);
+      invoke.op(Code.CHECKCAST, cf.classRef(owner));
+    }
+    loadArguments(cf, invoke, Code.ALOAD_2, parameterTypes);
+    String descriptor = descriptor(parameterTypes, method.getReturnType());
+    int methodRef = cf.methodRef(owner, method.getName(), descriptor, host.isInterface());
+    int start = invoke.pc();
+    if (isStatic) {
+      invoke.op(Code.INVOKESTATIC, methodRef);
+    } else if (host.isInterface()) {
+      invoke.op(Code.INVOKEINTERFACE, methodRef);
+      invoke.u1(1 + slots(parameterTypes));
+      invoke.u1(0);
+    } else {
+      invoke.op(Code.INVOKEVIRTUAL, methodRef);
+    }
+    int end = invoke.pc();
+    if (method.getReturnType() == void.class) {
+      invoke.op(Code.ACONST_NULL);
+    } else {
+      box(cf, invoke, method.getReturnType());
+    }
+    invoke.op(Code.ARETURN);
+    wrapTargetException(cf, invoke, start, end, 3, OBJECT, OBJECT_ARRAY);
+    cf.method("invoke", "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;", invoke);
+
+    return define(host, cf.toBytes(MethodAccess.class), MethodAccess.class);
+  }
+
+  /**
+   * Generates a {@link ConstructorAccess} for the specified constructor.
+   *
+   * @param constructor
+   *          the constructor to invoke.
+   * @return the generated access, or <code>null</code> if the constructor cannot be invoked by a
+   *         generated class.
+   */
+  @CheckForNull
+  static ConstructorAccess generate(@NonNull Constructor<?> constructor) {
+    Object access = GENERATED.get(constructor.getDeclaringClass()).get(constructor);
+    if (access == null) {
+      access = share(constructor, generateAccess(constructor));
+    }
+    return access == NOT_GENERATED ? null : (ConstructorAccess) access;
+  }
+
+  @CheckForNull
+  private static ConstructorAccess generateAccess(@NonNull Constructor<?> constructor) {
+    Class<?> host = constructor.getDeclaringClass();
+    if (Modifier.isAbstract(host.getModifiers()) || host.isEnum() || !canHost(host, ConstructorAccess.class) || !areReachable(constructor.getParameterTypes(), host)) {
+      return null;
+    }
+    Class<?>[] parameterTypes = constructor.getParameterTypes();
+    ClassFile cf = new ClassFile(host);
+    String owner = internalName(host);
+
+    Code newInstance = new Code(2 + slots(parameterTypes) + 2, 3);
+    newInstance.op(Code.NEW, cf.classRef(owner));
+    newInstance.op(Code.DUP);
+    loadArguments(cf, newInstance, Code.ALOAD_1, parameterTypes);
+    int methodRef = cf.methodRef(owner, "<init>", descriptor(parameterTypes, void.class), false);
+    int start = newInstance.pc();
+    newInstance.op(Code.INVOKESPECIAL, methodRef);
+    int end = newInstance.pc();
+    newInstance.op(Code.ARETURN);
+    wrapTargetException(cf, newInstance, start, end, 2, OBJECT_ARRAY);
+    cf.method("newInstance", "([Ljava/lang/Object;)Ljava/lang/Object;", newInstance);
+
+    return define(host, cf.toBytes(ConstructorAccess.class), ConstructorAccess.class);
+  }
+
+  /**
+   * Publishes the access generated for a member, unless another thread did it first.
+   * <p>
+   * The member is not generated under a lock, since defining the class may initialize classes that
+   * create accessors in turn: a member generated concurrently by several threads is merely
+   * generated more than once, and the extra classes are unloaded with their instances.
+   * </p>
+   *
+   * @return the access shared by all the callers, or {@link #NOT_GENERATED}.
+   */
+  @NonNull
+  private static Object share(@NonNull Member member, @CheckForNull Object access) {
+    Object generated = access == null ? NOT_GENERATED : access;
+    Object previous = GENERATED.get(member.getDeclaringClass()).putIfAbsent(member, generated);
+    return previous == null ? generated : previous;
+  }
+
+  /**
+   * Returns the type of the handles implementing the specified interface method in a generated
+   * proxy: the target, as an {@link Object}, followed by the parameters of the method, with
+   * reference types erased to {@link Object}.
+   *
+   * @param method
+   *          the interface method.
+   * @return the type of the handle implementing the method.
+   */
+  @NonNull
+  static MethodType proxyMethodType(@NonNull Method method) {
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    Class<?>[] erased = new Class<?>[parameterTypes.length + 1];
+    erased[0] = Object.class;
+    for (int i = 0; i < parameterTypes.length; i++) {
+      erased[i + 1] = erase(parameterTypes[i]);
+    }
+    return MethodType.methodType(erase(method.getReturnType()), erased);
+  }
+
+  /**
+   * Generates a class implementing the interface, whose instances hold a target and implement each
+   * method invoking a handle on it.
+   * <p>
+   * Each handle is held in a static final field, so that the JIT sees it as a constant and inlines
+   * the member it invokes into the method: the call costs as a direct call, with no arguments array
+   * and no boxing of the primitives the interface and the member agree on.
+   * </p>
+   *
+   * @param type
+   *          the interface to implement.
+   * @param methods
+   *          the methods of the interface.
+   * @param handles
+   *          for each method, the handle implementing it, with type
+   *          {@link #proxyMethodType(Method)}.
+   * @return a handle with type <code>(Object)Object</code> creating an instance for a target, or
+   *         <code>null</code> if the interface cannot be implemented by a generated class.
+   */
+  @CheckForNull
+  static MethodHandle generateProxy(@NonNull Class<?> type, @NonNull Method[] methods,
+    @NonNull MethodHandle[] handles) {
+    Lookup hidden = defineProxy(type, methods, handles, false);
+    return hidden == null ? null : proxyConstructor(hidden);
+  }
+
+  /**
+   * Generates a class as {@link #generateProxy(Class, Method[], MethodHandle[])} does, whose
+   * instances can be moved from a target to another.
+   *
+   * @return a handle with type <code>(Object)Object</code> creating an instance for a target and a
+   *         handle with type <code>(Object,Object)void</code> setting the target of an instance, or
+   *         <code>null</code> if the interface cannot be implemented by a generated class.
+   */
+  @CheckForNull
+  static MethodHandle[] generateRetargetableProxy(@NonNull Class<?> type,
+    @NonNull Method[] methods, @NonNull MethodHandle[] handles) {
+    Lookup hidden = defineProxy(type, methods, handles, true);
+    if (hidden == null) {
+      return null;
+    }
+    try {
+      MethodHandle setter = hidden.findSetter(hidden.lookupClass(), TARGET, Object.class);
+      return new MethodHandle[] { proxyConstructor(hidden), setter.asType(MethodType.methodType(void.class, Object.class, Object.class)) };
+    } catch (NoSuchFieldException e) {
+      throw new RuntimeException(e);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @NonNull
+  private static MethodHandle proxyConstructor(@NonNull Lookup hidden) {
+    try {
+      return hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class, Object.class)).asType(MethodType.methodType(Object.class, Object.class));
+    } catch (NoSuchMethodException e) {
+      throw new RuntimeException(e);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Defines the class of a proxy, whose target field is final unless the proxy is retargetable.
+   *
+   * @return the lookup of the class, <code>null</code> if the interface cannot be implemented by a
+   *         generated class.
+   */
+  @CheckForNull
+  private static Lookup defineProxy(@NonNull Class<?> type, @NonNull Method[] methods,
+    @NonNull MethodHandle[] handles, boolean retargetable) {
+    Lookup lookup = proxyLookup(type);
+    if (lookup == null) {
+      return null;
+    }
+    ClassFile cf = new ClassFile(internalName(lookup.lookupClass()) + PROXY_NAME_SUFFIX);
+    String self = cf.name();
+    cf.field(ClassFile.ACC_PRIVATE | (retargetable ? 0 : ClassFile.ACC_FINAL), TARGET, descriptor(Object.class));
+
+    Code init = new Code(2, 2);
+    init.op(Code.ALOAD_0);
+    init.op(Code.INVOKESPECIAL, cf.methodRef(OBJECT, "<init>", "()V", false));
+    init.op(Code.ALOAD_0);
+    init.op(Code.ALOAD_1);
+    init.op(Code.PUTFIELD, cf.fieldRef(self, TARGET, descriptor(Object.class)));
+    init.op(Code.RETURN);
+    cf.method("<init>", "(Ljava/lang/Object;)V", init);
+
+    Code clinit = new Code(4, 0);
+    Set<String> implemented = new HashSet<String>();
+    for (int i = 0; i < methods.length; i++) {
+      Method method = methods[i];
+      Class<?>[] parameterTypes = method.getParameterTypes();
+      Class<?> returnType = method.getReturnType();
+      String descriptor = descriptor(parameterTypes, returnType);
+      if (!implemented.add(method.getName() + descriptor)) {
+        // the same method inherited from several interfaces
+        continue;
+      }
+      if (!isReachable(returnType, lookup.lookupClass())) {
+        return null;
+      }
+      int slots = slots(parameterTypes);
+      if (slots > 254) {
+        return null;
+      }
+      int handleRef = cf.fieldRef(self, "handle" + i, descriptor(MethodHandle.class));
+      cf.field(ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC | ClassFile.ACC_FINAL, "handle" + i, descriptor(MethodHandle.class));
+      clinit.op(Code.INVOKESTATIC, cf.methodRef("java/lang/invoke/MethodHandles", "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;", false));
+      clinit.op(Code.LDC_W, cf.string("_"));
+      clinit.op(Code.LDC_W, cf.classRef(METHOD_HANDLE));
+      clinit.push(i);
+      clinit.op(Code.INVOKESTATIC, cf.methodRef("java/lang/invoke/MethodHandles", "classDataAt", "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;I)Ljava/lang/Object;", false));
+      clinit.op(Code.CHECKCAST, cf.classRef(METHOD_HANDLE));
+      clinit.op(Code.PUTSTATIC, handleRef);
+
+      Code code = new Code(2 + slots + 1, 1 + slots);
+      code.op(Code.GETSTATIC, handleRef);
+      code.op(Code.ALOAD_0);
+      code.op(Code.GETFIELD, cf.fieldRef(self, TARGET, descriptor(Object.class)));
+      int slot = 1;
+      for (Class<?> parameterType : parameterTypes) {
+        code.load(parameterType, slot);
+        slot += slots(new Class<?>[] { parameterType });
+      }
+      MethodType handleType = proxyMethodType(method);
+      code.op(Code.INVOKEVIRTUAL, cf.methodRef(METHOD_HANDLE, "invokeExact", handleType.toMethodDescriptorString(), false));
+      if (!returnType.isPrimitive() && returnType != Object.class) {
+        code.op(Code.CHECKCAST, cf.classRef(internalName(returnType)));
+      }
+      code.returns(returnType);
+      cf.method(method.getName(), descriptor, code);
+    }
+    clinit.op(Code.RETURN);
+    cf.method(ClassFile.ACC_STATIC, "<clinit>", "()V", clinit);
+
+    try {
+      return lookup.defineHiddenClassWithClassData(cf.toBytes(type), Arrays.asList(handles), true, ClassOption.NESTMATE);
+    } catch (IllegalAccessException e) {
+      return null;
+    } catch (LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the lookup in which to define a proxy for the interface: one in the nest of the
+   * interface, or one in this package for public interfaces that cannot be opened, as the ones of
+   * the JDK.
+   */
+  @CheckForNull
+  private static Lookup proxyLookup(@NonNull Class<?> type) {
+    if (type.isHidden()) {
+      return null;
+    }
+    try {
+      return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+    } catch (IllegalAccessException e) {
+      if (Modifier.isPublic(type.getModifiers()) && isVisible(type, AccessGenerator.class.getClassLoader())) {
+        return MethodHandles.lookup();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Erases a reference type to {@link Object}.
+   */
+  @NonNull
+  private static Class<?> erase(@NonNull Class<?> type) {
+    return type.isPrimitive() ? type : Object.class;
+  }
+
+  /**
+   * Pushes the arguments, found in the array loaded by the specified opcode, on the stack, cast or
+   * unboxed to the parameter types.
+   */
+  private static void loadArguments(@NonNull ClassFile cf, @NonNull Code code, int loadArray,
+    @NonNull Class<?>[] parameterTypes) {
+    for (int i = 0; i < parameterTypes.length; i++) {
+      code.op(loadArray);
+      code.push(i);
+      code.op(Code.AALOAD);
+      unbox(cf, code, parameterTypes[i]);
+    }
+  }
+
+  /**
+   * Adds an handler over [start, end) that wraps anything thrown into an
+   * {@link InvocationTargetException}.
+   */
+  private static void wrapTargetException(@NonNull ClassFile cf, @NonNull Code code, int start,
+    int end, int local, @NonNull String... parameters) {
+    int handler = code.pc();
+    code.frame(cf, handler, parameters);
+    code.op(Code.ASTORE_0 + local);
+    code.op(Code.NEW, cf.classRef(INVOCATION_TARGET_EXCEPTION));
+    code.op(Code.DUP);
+    code.op(Code.ALOAD_0 + local);
+    code.op(Code.INVOKESPECIAL, cf.methodRef(INVOCATION_TARGET_EXCEPTION, "<init>", "(Ljava/lang/Throwable;)V", false));
+    code.op(Code.ATHROW);
+    code.handler(start, end, handler);
+  }
+
+  /**
+   * Boxes the primitive value on top of the stack, if any.
+   */
+  private static void box(@NonNull ClassFile cf, @NonNull Code code, @NonNull Class<?> type) {
+    if (type.isPrimitive()) {
+      String wrapper = internalName(wrapper(type));
+      code.op(Code.INVOKESTATIC, cf.methodRef(wrapper, "valueOf", "(" + descriptor(type) + ")L" + wrapper + ";", false));
+    }
+  }
+
+  /**
+   * Casts the reference on top of the stack to the specified type, unboxing it if primitive.
+   */
+  private static void unbox(@NonNull ClassFile cf, @NonNull Code code, @NonNull Class<?> type) {
+    if (type == Object.class) {
+      return;
+    }
+    if (type.isPrimitive()) {
+      String wrapper = internalName(wrapper(type));
+      code.op(Code.CHECKCAST, cf.classRef(wrapper));
+      code.op(Code.INVOKEVIRTUAL, cf.methodRef(wrapper, type.getName() + "Value", "()" + descriptor(type), false));
+    } else {
+      code.op(Code.CHECKCAST, cf.classRef(internalName(type)));
+    }
+  }
+
+  /**
+   * Defines the hidden class as a nestmate of the host and creates its only instance.
+   */
+  @CheckForNull
+  private static <A> A define(@NonNull Class<?> host, @NonNull byte[] bytes,
+    @NonNull Class<A> access) {
+    try {
+      Lookup lookup = MethodHandles.privateLookupIn(host, MethodHandles.lookup());
+      Lookup hidden = lookup.defineHiddenClass(bytes, true, ClassOption.NESTMATE);
+      return access.cast(hidden.lookupClass().getConstructor().newInstance());
+    } catch (IllegalAccessException e) {
+      return null;
+    } catch (LinkageError e) {
+      return null;
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Checks that a generated class can be defined next to the host.
+   */
+  private static boolean canHost(@NonNull Class<?> host, @NonNull Class<?> access) {
+    return !host.isHidden() && !host.isArray() && !host.isPrimitive() && isVisible(access, host.getClassLoader());
+  }
+
+  /**
+   * Checks that all the types can be used by a class defined next to the host.
+   */
+  private static boolean areReachable(@NonNull Class<?>[] types, @NonNull Class<?> host) {
+    for (Class<?> type : types) {
+      if (!isReachable(type, host)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks that the type can be named, by a <code>checkcast</code> for example, by a class defined
+   * next to the host.
+   */
+  private static boolean isReachable(@NonNull Class<?> type, @NonNull Class<?> host) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    if (!isVisible(type, host.getClassLoader())) {
+      return false;
+    }
+    if (Modifier.isPublic(type.getModifiers())) {
+      return true;
+    }
+    return type.getClassLoader() == host.getClassLoader() && type.getPackageName().equals(host.getPackageName());
+  }
+
+  /**
+   * Checks that the type resolves to itself from the specified class loader.
+   */
+  private static boolean isVisible(@NonNull Class<?> type, @CheckForNull ClassLoader loader) {
+    if (type.getClassLoader() == null || type.getClassLoader() == loader) {
+      return true;
+    }
+    try {
+      return Class.forName(type.getName(), false, loader) == type;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static int slots(@NonNull Class<?>[] types) {
+    int slots = 0;
+    for (Class<?> type : types) {
+      slots += type == long.class || type == double.class ? 2 : 1;
+    }
+    return slots;
+  }
+
+  @NonNull
+  private static Class<?> wrapper(@NonNull Class<?> primitive) {
+    if (primitive == int.class)
+      return Integer.class;
+    if (primitive == long.class)
+      return Long.class;
+    if (primitive == double.class)
+      return Double.class;
+    if (primitive == boolean.class)
+      return Boolean.class;
+    if (primitive == float.class)
+      return Float.class;
+    if (primitive == short.class)
+      return Short.class;
+    if (primitive == byte.class)
+      return Byte.class;
+    if (primitive == char.class)
+      return Character.class;
+    throw new IllegalArgumentException(primitive.getName());
+  }
+
+  @NonNull
+  private static String internalName(@NonNull Class<?> type) {
+    return type.getName().replace('.', '/');
+  }
+
+  @NonNull
+  private static String descriptor(@NonNull Class<?>[] parameterTypes, @NonNull Class<?> returnType) {
+    StringBuilder descriptor = new StringBuilder("(");
+    for (Class<?> type : parameterTypes) {
+      descriptor.append(descriptor(type));
+    }
+    return descriptor.append(')').append(descriptor(returnType)).toString();
+  }
+
+  @NonNull
+  private static String descriptor(@NonNull Class<?> type) {
+    if (type.isPrimitive()) {
+      if (type == int.class)
+        return "I";
+      if (type == long.class)
+        return "J";
+      if (type == double.class)
+        return "D";
+      if (type == boolean.class)
+        return "Z";
+      if (type == float.class)
+        return "F";
+      if (type == short.class)
+        return "S";
+      if (type == byte.class)
+        return "B";
+      if (type == char.class)
+        return "C";
+      return "V";
+    }
+    if (type.isArray()) {
+      return internalName(type);
+    }
+    return "L" + internalName(type) + ";";
+  }
+
+  /**
+   * Minimal class file writer: a public final class implementing a single interface.
+   */
+  private static final class ClassFile {
+
+    private static final int VERSION = 55;
+
+    static final int ACC_PUBLIC = 0x0001;
+
+    static final int ACC_PRIVATE = 0x0002;
+
+    static final int ACC_STATIC = 0x0008;
+
+    static final int ACC_FINAL = 0x0010;
+
+    private static final int ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+
+    private final Map<String, Integer> entries = new HashMap<String, Integer>();
+
+    private int poolCount = 1;
+
+    private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+
+    private final DataOutputStream methodsOut = new DataOutputStream(methods);
+
+    private int methodCount;
+
+    private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+
+    private final DataOutputStream fieldsOut = new DataOutputStream(fields);
+
+    private int fieldCount;
+
+    @NonNull
+    private final String name;
+
+    private final int thisClass;
+
+    /**
+     * Creates a class named after the host, with a public no arguments constructor.
+     */
+    ClassFile(@NonNull Class<?> host) {
+      this(internalName(host) + NAME_SUFFIX);
+      Code init = new Code(1, 1);
+      init.op(Code.ALOAD_0);
+      init.op(Code.INVOKESPECIAL, methodRef(OBJECT, "<init>", "()V", false));
+      init.op(Code.RETURN);
+      method("<init>", "()V", init);
+    }
+
+    /**
+     * Creates a class with the specified internal name and no members.
+     */
+    ClassFile(@NonNull String name) {
+      this.name = name;
+      thisClass = classRef(name);
+    }
+
+    @NonNull
+    String name() {
+      return name;
+    }
+
+    int utf8(@NonNull String value) {
+      Integer index = entries.get("U" + value);
+      if (index == null) {
+        try {
+          poolOut.writeByte(1);
+          poolOut.writeUTF(value);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+        index = add("U" + value, 1);
+      }
+      return index;
+    }
+
+    int string(@NonNull String value) {
+      Integer index = entries.get("S" + value);
+      if (index == null) {
+        int utf8 = utf8(value);
+        write(8, utf8);
+        index = add("S" + value, 1);
+      }
+      return index;
+    }
+
+    int classRef(@NonNull String internalName) {
+      Integer index = entries.get("C" + internalName);
+      if (index == null) {
+        int name = utf8(internalName);
+        write(7, name);
+        index = add("C" + internalName, 1);
+      }
+      return index;
+    }
+
+    int fieldRef(@NonNull String owner, @NonNull String name, @NonNull String descriptor) {
+      return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(@NonNull String owner, @NonNull String name, @NonNull String descriptor,
+      boolean isInterface) {
+      return memberRef(isInterface ? 11 : 10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, @NonNull String owner, @NonNull String name,
+      @NonNull String descriptor) {
+      String key = tag + owner + "." + name + descriptor;
+      Integer index = entries.get(key);
+      if (index == null) {
+        int nameAndType = nameAndType(name, descriptor);
+        int ownerIndex = classRef(owner);
+        write(tag, ownerIndex, nameAndType);
+        index = add(key, 1);
+      }
+      return index;
+    }
+
+    private int nameAndType(@NonNull String name, @NonNull String descriptor) {
+      String key = "N" + name + descriptor;
+      Integer index = entries.get(key);
+      if (index == null) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        write(12, nameIndex, descriptorIndex);
+        index = add(key, 1);
+      }
+      return index;
+    }
+
+    private void write(int tag, int... indexes) {
+      try {
+        poolOut.writeByte(tag);
+        for (int index : indexes) {
+          poolOut.writeShort(index);
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private int add(@NonNull String key, int size) {
+      int index = poolCount;
+      poolCount += size;
+      entries.put(key, index);
+      return index;
+    }
+
+    void field(int access, @NonNull String name, @NonNull String descriptor) {
+      try {
+        fieldsOut.writeShort(access);
+        fieldsOut.writeShort(utf8(name));
+        fieldsOut.writeShort(utf8(descriptor));
+        fieldsOut.writeShort(0);
+        fieldCount++;
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    void method(@NonNull String name, @NonNull String descriptor, @NonNull Code code) {
+      method(ACC_PUBLIC, name, descriptor, code);
+    }
+
+    void method(int access, @NonNull String name, @NonNull String descriptor,
+      @NonNull Code code) {
+      try {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int codeIndex = utf8("Code");
+        byte[] body = code.toBytes(this);
+        methodsOut.writeShort(access);
+        methodsOut.writeShort(nameIndex);
+        methodsOut.writeShort(descriptorIndex);
+        methodsOut.writeShort(1);
+        methodsOut.writeShort(codeIndex);
+        methodsOut.writeInt(body.length);
+        methodsOut.write(body);
+        methodCount++;
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @NonNull
+    byte[] toBytes(@NonNull Class<?> access) {
+      int superClass = classRef(OBJECT);
+      int itf = classRef(internalName(access));
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      try {
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(VERSION);
+        out.writeShort(poolCount);
+        pool.writeTo(out);
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);
+        out.writeShort(itf);
+        out.writeShort(fieldCount);
+        fields.writeTo(out);
+        out.writeShort(methodCount);
+        methods.writeTo(out);
+        out.writeShort(0); // attributes
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return bytes.toByteArray();
+    }
+  }
+
+  /**
+   * Minimal <code>Code</code> attribute writer, with at most one exception handler.
+   */
+  private static final class Code {
+
+    static final int ACONST_NULL = 0x01;
+
+    static final int ICONST_0 = 0x03;
+
+    static final int BIPUSH = 0x10;
+
+    static final int SIPUSH = 0x11;
+
+    static final int LDC_W = 0x13;
+
+    static final int ILOAD = 0x15;
+
+    static final int LLOAD = 0x16;
+
+    static final int FLOAD = 0x17;
+
+    static final int DLOAD = 0x18;
+
+    static final int ALOAD = 0x19;
+
+    static final int ALOAD_0 = 0x2a;
+
+    static final int ALOAD_1 = 0x2b;
+
+    static final int ALOAD_2 = 0x2c;
+
+    static final int AALOAD = 0x32;
+
+    static final int ASTORE_0 = 0x4b;
+
+    static final int DUP = 0x59;
+
+    static final int IRETURN = 0xac;
+
+    static final int LRETURN = 0xad;
+
+    static final int FRETURN = 0xae;
+
+    static final int DRETURN = 0xaf;
+
+    static final int ARETURN = 0xb0;
+
+    static final int RETURN = 0xb1;
+
+    static final int GETSTATIC = 0xb2;
+
+    static final int PUTSTATIC = 0xb3;
+
+    static final int GETFIELD = 0xb4;
+
+    static final int PUTFIELD = 0xb5;
+
+    static final int INVOKEVIRTUAL = 0xb6;
+
+    static final int INVOKESPECIAL = 0xb7;
+
+    static final int INVOKESTATIC = 0xb8;
+
+    static final int INVOKEINTERFACE = 0xb9;
+
+    static final int NEW = 0xbb;
+
+    static final int ATHROW = 0xbf;
+
+    static final int CHECKCAST = 0xc0;
+
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+    private final int maxStack;
+
+    private final int maxLocals;
+
+    private int[] handler;
+
+    private int[] frame;
+
+    Code(int maxStack, int maxLocals) {
+      // handlers need 3 stack slots to build the exception
+      this.maxStack = Math.max(maxStack, 3);
+      this.maxLocals = maxLocals;
+    }
+
+    int pc() {
+      return code.size();
+    }
+
+    void op(int opcode) {
+      code.write(opcode);
+    }
+
+    void op(int opcode, int index) {
+      code.write(opcode);
+      u2(index);
+    }
+
+    void u1(int value) {
+      code.write(value);
+    }
+
+    private void u2(int value) {
+      code.write(value >>> 8);
+      code.write(value);
+    }
+
+    void push(int value) {
+      if (value <= 5) {
+        op(ICONST_0 + value);
+      } else if (value <= Byte.MAX_VALUE) {
+        op(BIPUSH);
+        u1(value);
+      } else {
+        op(SIPUSH, value);
+      }
+    }
+
+    /**
+     * Pushes the local variable of the specified type.
+     */
+    void load(@NonNull Class<?> type, int slot) {
+      if (type == long.class) {
+        op(LLOAD);
+      } else if (type == double.class) {
+        op(DLOAD);
+      } else if (type == float.class) {
+        op(FLOAD);
+      } else if (type.isPrimitive()) {
+        op(ILOAD);
+      } else {
+        op(ALOAD);
+      }
+      u1(slot);
+    }
+
+    /**
+     * Returns the value of the specified type on top of the stack.
+     */
+    void returns(@NonNull Class<?> type) {
+      if (type == void.class) {
+        op(RETURN);
+      } else if (type == long.class) {
+        op(LRETURN);
+      } else if (type == double.class) {
+        op(DRETURN);
+      } else if (type == float.class) {
+        op(FRETURN);
+      } else if (type.isPrimitive()) {
+        op(IRETURN);
+      } else {
+        op(ARETURN);
+      }
+    }
+
+    void handler(int start, int end, int pc) {
+      handler = new int[] { start, end, pc };
+    }
+
+    /**
+     * Declares the frame at the handler: this and the method parameters as locals, the caught
+     * {@link Throwable} on the stack.
+     */
+    void frame(@NonNull ClassFile cf, int pc, @NonNull String... parameters) {
+      frame = new int[parameters.length + 3];
+      frame[0] = pc;
+      frame[1] = cf.thisClass;
+      for (int i = 0; i < parameters.length; i++) {
+        frame[i + 2] = cf.classRef(parameters[i]);
+      }
+      frame[frame.length - 1] = cf.classRef(THROWABLE);
+    }
+
+    @NonNull
+    byte[] toBytes(@NonNull ClassFile cf) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeShort(maxStack);
+      out.writeShort(maxLocals);
+      out.writeInt(code.size());
+      code.writeTo(out);
+      if (handler == null) {
+        out.writeShort(0);
+        out.writeShort(0);
+      } else {
+        out.writeShort(1);
+        out.writeShort(handler[0]);
+        out.writeShort(handler[1]);
+        out.writeShort(handler[2]);
+        out.writeShort(0); // any
+        out.writeShort(1);
+        // StackMapTable with a single full_frame
+        int locals = frame.length - 2;
+        out.writeShort(cf.utf8("StackMapTable"));
+        out.writeInt(2 + 1 + 2 + 2 + locals * 3 + 2 + 3);
+        out.writeShort(1);
+        out.writeByte(255);
+        out.writeShort(frame[0]);
+        out.writeShort(locals);
+        for (int i = 1; i <= locals; i++) {
+          out.writeByte(7);
+          out.writeShort(frame[i]);
+        }
+        out.writeShort(1);
+        out.writeByte(7);
+        out.writeShort(frame[frame.length - 1]);
+      }
+      return bytes.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,461 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import com.j2speed.accessor.spi.FieldAccess;
+import com.j2speed.accessor.spi.MethodAccess;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * The {@link AccessStrategy} implementations shipped with the library, and the selection of the
+ * strategy used by the accessors.
+ * <p>
+ * An accessor created with an explicit strategy uses it; otherwise it uses the strategy set for the
+ * class loader of the accessed class, if any, or else the default strategy. The default strategy is
+ * initially chosen by the system property <code>com.j2speed.accessor.strategy</code>, one of
+ * <code>tiered</code>, <code>standard</code>, <code>reflection</code>, <code>methodHandles</code>
+ * or <code>generated</code>; setting <code>com.j2speed.accessor.generate</code> to
+ * <code>true</code> selects <code>generated</code> as well. Without either, it is
+ * {@link #TIERED}.
+ * </p>
+ * <p>
+ * The strategy of an accessor is fixed when the accessor is created.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public final class AccessStrategies {
+
+  /**
+   * Accesses fields through method handles, methods and constructors through core reflection.
+   */
+  @NonNull
+  public static final AccessStrategy STANDARD = new Standard();
+
+  /**
+   * Accesses all the members through core reflection.
+   */
+  @NonNull
+  public static final AccessStrategy REFLECTION = new Reflection();
+
+  /**
+   * Accesses all the members through unreflected method handles.
+   */
+  @NonNull
+  public static final AccessStrategy METHOD_HANDLES = new MethodHandles();
+
+  /**
+   * Accesses the members through hidden classes generated as nestmates of the classes declaring
+   * them, see {@link AccessGenerator}, declining the members that cannot be accessed that way. With
+   * this strategy {@link ProxyAccessor} implements the interfaces with generated classes as well.
+   */
+  @NonNull
+  public static final AccessStrategy GENERATED = new Generated();
+
+  /**
+   * The invocations after which the backends of {@link #TIERED} are upgraded, set by the system
+   * property <code>com.j2speed.accessor.tierThreshold</code>.
+   */
+  public static final int TIER_THRESHOLD = Integer.getInteger("com.j2speed.accessor.tierThreshold", 1000).intValue();
+
+  /**
+   * Starts each member on core reflection, which costs nothing to set up, and after
+   * {@link #TIER_THRESHOLD} invocations of the same backend upgrades it to a generated class or,
+   * where that is not possible, to method handles. Accessors used a few times stay cheap, the hot
+   * ones become fast.
+   */
+  @NonNull
+  public static final AccessStrategy TIERED = new Tiered("tiered", TIER_THRESHOLD, firstOf(GENERATED, METHOD_HANDLES));
+
+  /**
+   * The strategies set for class loaders, not preventing them from being unloaded.
+   */
+  private static final Map<ClassLoader, AccessStrategy> BY_LOADER = new WeakHashMap<ClassLoader, AccessStrategy>();
+
+  /**
+   * Whether some class loader has a strategy, to skip the lookup in the common case.
+   */
+  private static volatile boolean byLoader;
+
+  @NonNull
+  private static volatile AccessStrategy defaultStrategy = initialStrategy();
+
+  private AccessStrategies() {
+    // static methods only
+  }
+
+  /**
+   * @return the strategy used when no other one is set.
+   */
+  @NonNull
+  public static AccessStrategy getDefault() {
+    return defaultStrategy;
+  }
+
+  /**
+   * Sets the strategy used when no other one is set, for the accessors created from now on.
+   * 
+   * @param strategy
+   *          the strategy.
+   */
+  public static void setDefault(@NonNull AccessStrategy strategy) {
+    if (strategy == null) {
+      throw new NullPointerException();
+    }
+    defaultStrategy = strategy;
+  }
+
+  /**
+   * Sets the strategy used for the classes defined by a class loader, for the accessors created
+   * from now on.
+   * 
+   * @param loader
+   *          the class loader, <code>null</code> for the bootstrap class loader.
+   * @param strategy
+   *          the strategy, <code>null</code> to use the default one again.
+   */
+  public static void set(@CheckForNull ClassLoader loader, @CheckForNull AccessStrategy strategy) {
+    synchronized (BY_LOADER) {
+      if (strategy == null) {
+        BY_LOADER.remove(loader);
+      } else {
+        BY_LOADER.put(loader, strategy);
+      }
+      byLoader = !BY_LOADER.isEmpty();
+    }
+  }
+
+  /**
+   * Returns the strategy used for the accessors of the specified class that are created without
+   * an explicit strategy.
+   * 
+   * @param type
+   *          the accessed class.
+   * @return the strategy of its class loader, if set, or the default one.
+   */
+  @NonNull
+  public static AccessStrategy get(@NonNull Class<?> type) {
+    if (byLoader) {
+      synchronized (BY_LOADER) {
+        AccessStrategy strategy = BY_LOADER.get(type.getClassLoader());
+        if (strategy != null) {
+          return strategy;
+        }
+      }
+    }
+    return defaultStrategy;
+  }
+
+  /**
+   * Creates a strategy starting each member on core reflection and upgrading it through another
+   * strategy after a number of invocations, as {@link #TIERED} does.
+   * 
+   * @param threshold
+   *          the invocations of a backend after which it is upgraded.
+   * @param upgrade
+   *          the strategy creating the upgraded backends; a member it declines stays on reflection.
+   * @return the tiered strategy.
+   */
+  @NonNull
+  public static AccessStrategy tiered(int threshold, @NonNull AccessStrategy upgrade) {
+    if (upgrade == null) {
+      throw new NullPointerException();
+    }
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Negative threshold: " + threshold);
+    }
+    return new Tiered("tiered(" + threshold + ", " + upgrade + ")", threshold, upgrade);
+  }
+
+  /**
+   * Creates a strategy asking the specified ones in turn, until one does not decline the member.
+   * 
+   * @param strategies
+   *          the strategies, by preference.
+   * @return the composed strategy.
+   */
+  @NonNull
+  public static AccessStrategy firstOf(@NonNull AccessStrategy... strategies) {
+    for (AccessStrategy strategy : strategies) {
+      if (strategy == null) {
+        throw new NullPointerException();
+      }
+    }
+    return new FirstOf(strategies.clone());
+  }
+
+  /**
+   * Creates the backend for a field, falling back to {@link #STANDARD} if the strategy declines it.
+   * 
+   * @param strategy
+   *          the strategy of the accessor, <code>null</code> to select it for the field.
+   */
+  @NonNull
+  static FieldAccess fieldAccess(@NonNull Field field, @CheckForNull AccessStrategy strategy) {
+    strategy = strategy == null ? get(field.getDeclaringClass()) : strategy;
+    FieldAccess access = strategy.fieldAccess(field);
+    return access != null ? access : STANDARD.fieldAccess(field);
+  }
+
+  /**
+   * Creates the backend for a method, falling back to {@link #STANDARD} if the strategy declines
+   * it.
+   * 
+   * @param strategy
+   *          the strategy of the accessor, <code>null</code> to select it for the method.
+   */
+  @NonNull
+  static MethodAccess methodAccess(@NonNull Method method, @CheckForNull AccessStrategy strategy) {
+    strategy = strategy == null ? get(method.getDeclaringClass()) : strategy;
+    MethodAccess access = strategy.methodAccess(method);
+    return access != null ? access : STANDARD.methodAccess(method);
+  }
+
+  /**
+   * Creates the backend for a constructor, falling back to {@link #STANDARD} if the strategy
+   * declines it.
+   * 
+   * @param strategy
+   *          the strategy of the accessor, <code>null</code> to select it for the constructor.
+   */
+  @NonNull
+  static ConstructorAccess constructorAccess(@NonNull Constructor<?> constructor,
+    @CheckForNull AccessStrategy strategy) {
+    strategy = strategy == null ? get(constructor.getDeclaringClass()) : strategy;
+    ConstructorAccess access = strategy.constructorAccess(constructor);
+    return access != null ? access : STANDARD.constructorAccess(constructor);
+  }
+
+  @NonNull
+  private static AccessStrategy initialStrategy() {
+    String name = System.getProperty("com.j2speed.accessor.strategy");
+    if (name == null) {
+      return Boolean.getBoolean("com.j2speed.accessor.generate") ? GENERATED : TIERED;
+    }
+    for (AccessStrategy strategy : new AccessStrategy[] { TIERED, STANDARD, REFLECTION, METHOD_HANDLES, GENERATED }) {
+      if (strategy.toString().equals(name)) {
+        return strategy;
+      }
+    }
+    throw new IllegalArgumentException("Unknown access strategy: " + name);
+  }
+
+  /**
+   * The strategy of {@link AccessStrategies#STANDARD}.
+   */
+  private static final class Standard implements AccessStrategy {
+
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      return MethodHandleFieldAccess.make(field);
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      return new ReflectionMethodAccess(method);
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      return new ReflectionConstructorAccess(constructor);
+    }
+
+    @Override
+    public String toString() {
+      return "standard";
+    }
+  }
+
+  /**
+   * The strategy of {@link AccessStrategies#REFLECTION}.
+   */
+  private static final class Reflection implements AccessStrategy {
+
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      return new ReflectionFieldAccess(field);
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      return new ReflectionMethodAccess(method);
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      return new ReflectionConstructorAccess(constructor);
+    }
+
+    @Override
+    public String toString() {
+      return "reflection";
+    }
+  }
+
+  /**
+   * The strategy of {@link AccessStrategies#METHOD_HANDLES}.
+   */
+  private static final class MethodHandles implements AccessStrategy {
+
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      return MethodHandleFieldAccess.make(field);
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      return new MethodHandleMethodAccess(method);
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      return new MethodHandleConstructorAccess(constructor);
+    }
+
+    @Override
+    public String toString() {
+      return "methodHandles";
+    }
+  }
+
+  /**
+   * The strategy of {@link AccessStrategies#GENERATED}.
+   */
+  private static final class Generated implements AccessStrategy {
+
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      return AccessGenerator.generate(field);
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      return AccessGenerator.generate(method);
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      return AccessGenerator.generate(constructor);
+    }
+
+    @Override
+    public String toString() {
+      return "generated";
+    }
+  }
+
+  /**
+   * The strategy of {@link AccessStrategies#TIERED} and {@link AccessStrategies#tiered}.
+   */
+  private static final class Tiered implements AccessStrategy {
+
+    @NonNull
+    private final String name;
+
+    private final int threshold;
+
+    @NonNull
+    private final AccessStrategy upgrade;
+
+    Tiered(@NonNull String name, int threshold, @NonNull AccessStrategy upgrade) {
+      this.name = name;
+      this.threshold = threshold;
+      this.upgrade = upgrade;
+    }
+
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      return new TieredAccess.ForField(field, upgrade, threshold);
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      return new TieredAccess.ForMethod(method, upgrade, threshold);
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      return new TieredAccess.ForConstructor(constructor, upgrade, threshold);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /**
+   * The strategy of {@link AccessStrategies#firstOf}.
+   */
+  private static final class FirstOf implements AccessStrategy {
+
+    @NonNull
+    private final AccessStrategy[] strategies;
+
+    FirstOf(@NonNull AccessStrategy[] strategies) {
+      this.strategies = strategies;
+    }
+
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      for (AccessStrategy strategy : strategies) {
+        FieldAccess access = strategy.fieldAccess(field);
+        if (access != null) {
+          return access;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      for (AccessStrategy strategy : strategies) {
+        MethodAccess access = strategy.methodAccess(method);
+        if (access != null) {
+          return access;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      for (AccessStrategy strategy : strategies) {
+        ConstructorAccess access = strategy.constructorAccess(constructor);
+        if (access != null) {
+          return access;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.toString(strategies);
+    }
+  }
+}
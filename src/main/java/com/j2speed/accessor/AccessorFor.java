@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an accessor interface to be implemented at build time for the specified target class.
+ * <p>
+ * With the accessive jar on the compiler classpath, the annotation processor matches each method
+ * of the interface to a member of the target class as {@link ProxyAccessor} does, reporting the
+ * methods that match no member as compilation errors, and generates a class implementing the
+ * interface through method handle constants. {@link ProxyAccessor} then creates instances of that
+ * class for the targets of the annotated class instead of proxies, with no names mapping.
+ * </p>
+ * 
+ * <pre>
+ * &#64;AccessorFor(TestObject.class)
+ * interface TestObjectAccess {
+ * 
+ *   int getAPrivate();
+ * 
+ *   void throwingMethod() throws TestException;
+ * }
+ * </pre>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface AccessorFor {
+
+  /**
+   * @return the class whose members the interface accesses.
+   */
+  Class<?> value();
+}
@@ -48,6 +48,10 @@ public abstract class Accessors {
   /**
    * Returns the value, if any, in a field with the specified name found in the type hierarchy of
    * the target object.
+   * <p>
+   * The accessors are cached by class and field name in a bounded cache, so repeated reads cost
+   * about as much as reads through an accessor kept by the caller.
+   * </p>
    * 
    * @param <V>
    *          the type of the field.
@@ -58,8 +62,67 @@ public abstract class Accessors {
    *          the target object to search.
    * @return the value found in the specified field, or <code>null</code>.
    */
+  @SuppressWarnings("unchecked")
   public static <V> V accessField(@NonNull String fieldName, @NonNull Object target) {
-    return new FieldAccessor<Object, V>(fieldName, (Class<?>) target.getClass()).get(target);
+    return (V) InlineCache.field(target.getClass(), fieldName).get(target);
+  }
+
+  /**
+   * Invokes the method with the specified name, found in the type hierarchy of the target object,
+   * {@link Object} and the default methods of its interfaces included, that accepts the arguments.
+   * <p>
+   * The candidates are the methods with as many parameters as the arguments, where each argument
+   * is an instance of the parameter type, or of its wrapper for primitives, or is
+   * <code>null</code> for a reference parameter. As for the Java compiler, the candidates that
+   * don't need to unbox an argument are preferred, and among them the most specific one is
+   * invoked.
+   * The method is cached by class, name and classes of the arguments in a bounded cache, so
+   * repeated invocations cost about as much as invocations through an accessor kept by the caller.
+   * </p>
+   * 
+   * @param <V>
+   *          the return type of the method.
+   * @param methodName
+   *          the method name.
+   * @param target
+   *          the target object.
+   * @param args
+   *          the arguments for the method, <code>null</code> is accepted for no arguments.
+   * @return the result of the invocation, <code>null</code> for void methods.
+   * @throws RuntimeException
+   *           if no method accepts the arguments.
+   * @throws IllegalArgumentException
+   *           if more than one method accepts the arguments and none is the most specific.
+   */
+  @SuppressWarnings("unchecked")
+  public static <V> V invoke(@NonNull String methodName, @NonNull Object target,
+    @NonNull Object... args) {
+    if (args == null) {
+      // as reflection does
+      args = new Object[0];
+    }
+    return (V) InlineCache.method(target.getClass(), methodName, args).invoke(target, args);
+  }
+
+  /**
+   * Creates an accessor reading the value at the end of a path of fields and methods without
+   * parameters, composed into a single operation.
+   * 
+   * @param <T>
+   *          the type of the class the path starts from.
+   * @param <V>
+   *          the type of the value at the end of the path.
+   * @param type
+   *          the class the path starts from.
+   * @param path
+   *          the path, such as <code>"customer.address.zip"</code>; a segment ending with
+   *          <code>()</code>, such as <code>"address()"</code>, is a method without parameters.
+   * @return an instance of {@link PathAccessor} with the specified generic parameters.
+   */
+  @NonNull
+  public static <T, V> PathAccessor<T, V> path(@NonNull Class<? extends T> type,
+    @NonNull String path) {
+    return new PathAccessor<T, V>(type, path);
   }
 
   /**
@@ -81,6 +144,142 @@ public abstract class Accessors {
     return new StaticFieldAccessor<T, V>(fieldName, type);
   }
 
+  /**
+   * Creates an accessor to a non static <code>int</code> field that does not box its value.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class from which to start searching the field
+   * @return an instance of {@link IntFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> IntFieldAccessor<T> accessIntField(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new IntFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Creates an accessor to a static <code>int</code> field that does not box its value.
+   * 
+   * @param <T>
+   *          the type of the class containing the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class declaring the field
+   * @return an instance of {@link StaticIntFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> StaticIntFieldAccessor<T> accessStaticIntField(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new StaticIntFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Creates an accessor to a non static <code>long</code> field that does not box its value.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class from which to start searching the field
+   * @return an instance of {@link LongFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> LongFieldAccessor<T> accessLongField(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new LongFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Creates an accessor to a static <code>long</code> field that does not box its value.
+   * 
+   * @param <T>
+   *          the type of the class containing the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class declaring the field
+   * @return an instance of {@link StaticLongFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> StaticLongFieldAccessor<T> accessStaticLongField(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new StaticLongFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Creates an accessor to a non static <code>double</code> field that does not box its value.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class from which to start searching the field
+   * @return an instance of {@link DoubleFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> DoubleFieldAccessor<T> accessDoubleField(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new DoubleFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Creates an accessor to a static <code>double</code> field that does not box its value.
+   * 
+   * @param <T>
+   *          the type of the class containing the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class declaring the field
+   * @return an instance of {@link StaticDoubleFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> StaticDoubleFieldAccessor<T> accessStaticDoubleField(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new StaticDoubleFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Creates an accessor to a non static <code>boolean</code> field that does not box its value.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class from which to start searching the field
+   * @return an instance of {@link BooleanFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> BooleanFieldAccessor<T> accessBooleanField(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new BooleanFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Creates an accessor to a static <code>boolean</code> field that does not box its value.
+   * 
+   * @param <T>
+   *          the type of the class containing the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class declaring the field
+   * @return an instance of {@link StaticBooleanFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> StaticBooleanFieldAccessor<T> accessStaticBooleanField(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new StaticBooleanFieldAccessor<T>(fieldName, type);
+  }
+
   /**
    * Creates an accessor to a method that returns a value.
    * 
@@ -101,6 +300,78 @@ public abstract class Accessors {
     return new MethodAccessor<T>(methodName, target, parametersType);
   }
 
+  /**
+   * Creates an accessor to a method that returns an <code>int</code> without boxing it.
+   * 
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   * @return an instance of {@link IntMethodAccessor}.
+   */
+  @NonNull
+  public static IntMethodAccessor accessIntMethod(@NonNull String methodName,
+    @NonNull Object target, @NonNull Class<?>... parametersType) {
+    return new IntMethodAccessor(methodName, target, parametersType);
+  }
+
+  /**
+   * Creates an accessor to a method that returns a <code>long</code> without boxing it.
+   * 
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   * @return an instance of {@link LongMethodAccessor}.
+   */
+  @NonNull
+  public static LongMethodAccessor accessLongMethod(@NonNull String methodName,
+    @NonNull Object target, @NonNull Class<?>... parametersType) {
+    return new LongMethodAccessor(methodName, target, parametersType);
+  }
+
+  /**
+   * Creates an accessor to a method that returns a <code>double</code> without boxing it.
+   * 
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   * @return an instance of {@link DoubleMethodAccessor}.
+   */
+  @NonNull
+  public static DoubleMethodAccessor accessDoubleMethod(@NonNull String methodName,
+    @NonNull Object target, @NonNull Class<?>... parametersType) {
+    return new DoubleMethodAccessor(methodName, target, parametersType);
+  }
+
+  /**
+   * Creates an accessor to a method that can be invoked on any instance of the specified type.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the method.
+   * @param <R>
+   *          the return type of the method
+   * @param methodName
+   *          the method name
+   * @param type
+   *          the class from which to start searching the method
+   * @param parametersType
+   *          the parameters signature.
+   * @return an instance of {@link UnboundMethodAccessor} with the specified generic parameters.
+   */
+  @NonNull
+  public static <T, R> UnboundMethodAccessor<T, R> accessUnboundMethod(@NonNull String methodName,
+    @NonNull Class<? extends T> type, @NonNull Class<?>... parametersType) {
+    return new UnboundMethodAccessor<T, R>(methodName, type, parametersType);
+  }
+
   /**
    * Creates an accessor to a method that does not return a value.
    * 
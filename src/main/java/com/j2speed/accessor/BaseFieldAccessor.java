@@ -15,11 +15,24 @@
  */
 package com.j2speed.accessor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.FieldAccess;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
  * Base implementation to allow access to a private field of a class.
+ * <p>
+ * The {@link Field} is resolved only once, at construction; subclasses then access it through a
+ * {@link FieldAccess} or typed {@link MethodHandle}s, so that each access skips the reflective
+ * access checks done by {@link Field#get(Object)} and {@link Field#set(Object, Object)}.
+ * </p>
  * 
  * @version trunk
  * @since 0.8
@@ -38,6 +51,12 @@ abstract class BaseFieldAccessor<T, V> {
   @NonNull
   protected final Field field;
 
+  /**
+   * The {@link VarHandle} for the field, created on first use.
+   */
+  @CheckForNull
+  private VarHandle varHandle;
+
   /**
    * Constructor.
    * 
@@ -56,9 +75,189 @@ abstract class BaseFieldAccessor<T, V> {
     }
   }
 
+  /**
+   * Creates the {@link FieldAccess} used to read and write boxed values, through the specified
+   * strategy or, if <code>null</code>, the one selected for the field by {@link AccessStrategies}.
+   * 
+   * @param strategy
+   *          the strategy of the accessor, or <code>null</code>.
+   * @return the {@link FieldAccess} for the field.
+   */
+  @NonNull
+  final FieldAccess fieldAccess(@CheckForNull AccessStrategy strategy) {
+    return AccessStrategies.fieldAccess(field, strategy);
+  }
+
+  /**
+   * Returns the {@link VarHandle} used for the atomic and memory ordered accesses to the field,
+   * creating it on first use since most accessors never need it.
+   * 
+   * @return the {@link VarHandle} for the field.
+   */
+  @NonNull
+  final VarHandle varHandle() {
+    VarHandle handle = varHandle;
+    if (handle == null) {
+      try {
+        handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup()).unreflectVarHandle(field);
+      } catch (IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+      // racy but idempotent, the handle is immutable
+      varHandle = handle;
+    }
+    return handle;
+  }
+
+  /**
+   * Unreflects a getter for the field, adapted to return the specified type.
+   * 
+   * @param valueType
+   *          the type returned by the getter.
+   * @return a getter with type <code>(Object)valueType</code> for instance fields or
+   *         <code>()valueType</code> for static fields.
+   */
+  @NonNull
+  final MethodHandle getter(@NonNull Class<?> valueType) {
+    MethodType methodType = isStatic() ? MethodType.methodType(valueType) : MethodType.methodType(valueType, Object.class);
+    try {
+      return MethodHandles.lookup().unreflectGetter(field).asType(methodType);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Unreflects a setter for the field, adapted to accept the specified type.
+   * 
+   * @param valueType
+   *          the type accepted by the setter.
+   * @return a setter with type <code>(Object,valueType)void</code> for instance fields or
+   *         <code>(valueType)void</code> for static fields, or <code>null</code> if the field
+   *         cannot be written.
+   */
+  @CheckForNull
+  final MethodHandle setter(@NonNull Class<?> valueType) {
+    MethodType methodType = isStatic() ? MethodType.methodType(void.class, valueType) : MethodType.methodType(void.class, Object.class, valueType);
+    try {
+      return MethodHandles.lookup().unreflectSetter(field).asType(methodType);
+    } catch (IllegalAccessException e) {
+      // static final fields cannot be written
+      return null;
+    }
+  }
+
+  /**
+   * Checks that the field is declared with the specified type.
+   * 
+   * @param expected
+   *          the expected type.
+   * @throws IllegalArgumentException
+   *           if the field is of a different type.
+   */
+  final void checkType(@NonNull Class<?> expected) {
+    if (field.getType() != expected) {
+      throw new IllegalArgumentException("Field " + field.getName() + " is not of type " + expected);
+    }
+  }
+
+  /**
+   * Checks that the field is not static.
+   * 
+   * @throws IllegalArgumentException
+   *           if the field is static.
+   */
+  final void checkNotStatic() {
+    if (isStatic()) {
+      throw new IllegalArgumentException("Field " + field.getName() + " is static");
+    }
+  }
+
+  /**
+   * Checks that the field is static and declared by the specified class.
+   * 
+   * @param type
+   *          the class that must declare the field.
+   * @throws IllegalArgumentException
+   *           if the field is not static or it is not declared by the specified class.
+   */
+  final void checkStatic(@NonNull Class<?> type) {
+    if (!isStatic()) {
+      throw new IllegalArgumentException("Field " + field.getName() + " is not static");
+    }
+    if (!field.getDeclaringClass().equals(type)) {
+      throw new IllegalArgumentException("Field " + field.getName() + " is not declared by the class " + type);
+    }
+  }
+
+  /**
+   * Checks that the field can be written.
+   * 
+   * @param setter
+   *          the setter for the field, if any.
+   * @return the setter for the field.
+   */
+  @NonNull
+  final MethodHandle checkWritable(@CheckForNull MethodHandle setter) {
+    if (setter == null) {
+      throw new RuntimeException(new IllegalAccessException("Field " + field.getName() + " is final"));
+    }
+    return setter;
+  }
+
+  /**
+   * @return <code>true</code> if the accessed field is static.
+   */
+  final boolean isStatic() {
+    return Modifier.isStatic(field.getModifiers());
+  }
+
+  /**
+   * Translates the failures of a {@link MethodHandle} invocation into the exceptions that
+   * {@link Field} would throw for the same access.
+   * 
+   * @param e
+   *          the failure
+   * @return the exception to throw.
+   */
+  @NonNull
+  static RuntimeException accessFailure(@NonNull Throwable e) {
+    if (e instanceof ClassCastException) {
+      return new IllegalArgumentException(e);
+    }
+    if (e instanceof RuntimeException) {
+      return (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    return new RuntimeException(e);
+  }
+
+  /**
+   * Translates the failures of a write through a {@link MethodHandle} into the exceptions that
+   * {@link Field} would throw for the same access.
+   * 
+   * @param e
+   *          the failure
+   * @param value
+   *          the value being set.
+   * @return the exception to throw.
+   */
+  @NonNull
+  final RuntimeException writeFailure(@NonNull Throwable e, @CheckForNull Object value) {
+    if (e instanceof NullPointerException && value == null && field.getType().isPrimitive()) {
+      return new IllegalArgumentException("Cannot set primitive field " + field.getName() + " to null", e);
+    }
+    return accessFailure(e);
+  }
+
   /**
    * Utility method to search for a field starting from the specified class and going up the
    * hierarchy until the field is found or the {@link Object} class is reached.
+   * <p>
+   * Resolved fields are cached, see {@link Members}.
+   * </p>
    * 
    * @param cls
    *          the class from which to start
@@ -70,15 +269,7 @@ abstract class BaseFieldAccessor<T, V> {
    */
   @NonNull
   static Field getField(@NonNull Class<?> cls, @NonNull String name) {
-    while (cls != Object.class) {
-      try {
-        Field field = cls.getDeclaredField(name);
-        field.setAccessible(true);
-        return field;
-      } catch (NoSuchFieldException e) {
-        cls = cls.getSuperclass();
-      }
-    }
-    throw new RuntimeException("No such field: " + name);
+    return Members.field(cls, name);
   }
+
 }
@@ -15,10 +15,15 @@
  */
 package com.j2speed.accessor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.Map;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.ConstructorAccess;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
@@ -166,12 +171,38 @@ public class ClassAccessor {
    */
   @NonNull
   public ClassConstructor constructor(@NonNull Class<?>... parameterTypes) {
+    return newConstructor(null, parameterTypes);
+  }
+
+  /**
+   * Creates a {@link ClassConstructor} that can be used to create instances of the accessed
+   * {@link Class}, invoking the constructor through the specified strategy instead of the one
+   * selected by {@link AccessStrategies}.
+   * 
+   * @param strategy
+   *          the strategy creating the access to the constructor.
+   * @param parameterTypes
+   *          the parameters types for the constructor to build.
+   * @return an instance of the specified {@link ClassConstructor}.
+   */
+  @NonNull
+  public ClassConstructor constructor(@NonNull AccessStrategy strategy,
+    @NonNull Class<?>... parameterTypes) {
+    if (strategy == null) {
+      throw new NullPointerException();
+    }
+    return newConstructor(strategy, parameterTypes);
+  }
+
+  @NonNull
+  private ClassConstructor newConstructor(@CheckForNull AccessStrategy strategy,
+    @NonNull Class<?>[] parameterTypes) {
     if (enclosingClass != null && !Modifier.isStatic(accessedClass.getModifiers())) {
       throw new IllegalStateException("The class " + accessedClass + " is a non-static inner class");
     }
     try {
-      Constructor<?> constructor = accessedClass.getDeclaredConstructor(parameterTypes);
-      return new ClassConstructor(constructor);
+      Constructor<?> constructor = Members.constructor(accessedClass, parameterTypes);
+      return new ClassConstructor(constructor, strategy);
     } catch (RuntimeException e) {
       throw e;
     } catch (NoSuchMethodException e) {
@@ -193,6 +224,35 @@ public class ClassAccessor {
   @NonNull
   public ClassConstructor constructor(@NonNull Object enclosing,
     @NonNull Class<?>... parameterTypes) {
+    return newConstructor(null, enclosing, parameterTypes);
+  }
+
+  /**
+   * Creates a {@link ClassConstructor} that can be used to create instances of the accessed
+   * {@link Class}, invoking the constructor through the specified strategy instead of the one
+   * selected by {@link AccessStrategies}.
+   * 
+   * @param strategy
+   *          the strategy creating the access to the constructor.
+   * @param enclosing
+   *          the instance of the enclosing the class the the {@link ClassConstructor} will use to
+   *          build an instance of the inner class.
+   * @param parameterTypes
+   *          the parameters types for the constructor to build.
+   * @return an instance of the specified {@link ClassConstructor}.
+   */
+  @NonNull
+  public ClassConstructor constructor(@NonNull AccessStrategy strategy, @NonNull Object enclosing,
+    @NonNull Class<?>... parameterTypes) {
+    if (strategy == null) {
+      throw new NullPointerException();
+    }
+    return newConstructor(strategy, enclosing, parameterTypes);
+  }
+
+  @NonNull
+  private ClassConstructor newConstructor(@CheckForNull AccessStrategy strategy,
+    @NonNull Object enclosing, @NonNull Class<?>[] parameterTypes) {
     if (enclosingClass == null) {
       throw new IllegalStateException("The class " + accessedClass + " is not an inner class");
     }
@@ -203,8 +263,8 @@ public class ClassAccessor {
       Class<?>[] newParameterTypes = new Class<?>[parameterTypes.length + 1];
       System.arraycopy(parameterTypes, 0, newParameterTypes, 1, parameterTypes.length);
       newParameterTypes[0] = enclosingClass;
-      Constructor<?> constructor = accessedClass.getDeclaredConstructor(newParameterTypes);
-      return new InnerClassConstructor(enclosing, constructor);
+      Constructor<?> constructor = Members.constructor(accessedClass, newParameterTypes);
+      return new InnerClassConstructor(enclosing, constructor, strategy);
     } catch (RuntimeException e) {
       throw e;
     } catch (NoSuchMethodException e) {
@@ -221,9 +281,19 @@ public class ClassAccessor {
     @NonNull
     private final Constructor<?> constructor;
 
-    private ClassConstructor(@NonNull Constructor<?> constructor) {
-      constructor.setAccessible(true);
+    @NonNull
+    private final ConstructorAccess access;
+
+    /**
+     * The handle used by the fixed arity constructions, created on first use.
+     */
+    @CheckForNull
+    private MethodHandle handle;
+
+    private ClassConstructor(@NonNull Constructor<?> constructor,
+      @CheckForNull AccessStrategy strategy) {
       this.constructor = constructor;
+      this.access = AccessStrategies.constructorAccess(constructor, strategy);
     }
 
     /**
@@ -236,21 +306,257 @@ public class ClassAccessor {
     @NonNull
     public Object newInstance(@NonNull Object... initargs) {
       try {
-        return constructor.newInstance(initargs);
-      } catch (RuntimeException e) {
-        throw e;
-      } catch (InvocationTargetException e) {
-        Throwable targetException = e.getTargetException();
+        return access.newInstance(AbstractMethodAccessor.checkArguments(constructor.getParameterCount(), initargs));
+      } catch (Exception e) {
+        throw constructionFailure(e);
+      }
+    }
+
+    /**
+     * Creates a new instance of the accessed class with no arguments, without allocating an arguments
+     * array.
+     * <p>
+     * Fails with an {@link IllegalArgumentException} if the constructor takes any argument.
+     * </p>
+     * 
+     * @return the instance.
+     */
+    @NonNull
+    public final Object newInstance0() {
+      MethodHandle handle = handle(0);
+      try {
+        return (Object) handle.invokeExact();
+      } catch (Throwable e) {
+        throw constructionFailure(e);
+      }
+    }
+
+    /**
+     * Creates a new instance of the accessed class with one argument, without allocating an arguments
+     * array.
+     * <p>
+     * Fails with an {@link IllegalArgumentException} unless the constructor takes one argument.
+     * </p>
+     * 
+     * @param arg0
+     *          the first parameter to use to build the instance.
+     * @return the instance.
+     */
+    @NonNull
+    public final Object newInstance1(Object arg0) {
+      MethodHandle handle = handle(1);
+      try {
+        return (Object) handle.invokeExact(arg0);
+      } catch (Throwable e) {
+        throw constructionFailure(e);
+      }
+    }
+
+    /**
+     * Creates a new instance of the accessed class with two arguments, without allocating an arguments
+     * array.
+     * <p>
+     * Fails with an {@link IllegalArgumentException} unless the constructor takes two arguments.
+     * </p>
+     * 
+     * @param arg0
+     *          the first parameter to use to build the instance.
+     * @param arg1
+     *          the second parameter to use to build the instance.
+     * @return the instance.
+     */
+    @NonNull
+    public final Object newInstance2(Object arg0, Object arg1) {
+      MethodHandle handle = handle(2);
+      try {
+        return (Object) handle.invokeExact(arg0, arg1);
+      } catch (Throwable e) {
+        throw constructionFailure(e);
+      }
+    }
+
+    /**
+     * Creates a new instance of the accessed class with three arguments, without allocating an arguments
+     * array.
+     * <p>
+     * Fails with an {@link IllegalArgumentException} unless the constructor takes three arguments.
+     * </p>
+     * 
+     * @param arg0
+     *          the first parameter to use to build the instance.
+     * @param arg1
+     *          the second parameter to use to build the instance.
+     * @param arg2
+     *          the third parameter to use to build the instance.
+     * @return the instance.
+     */
+    @NonNull
+    public final Object newInstance3(Object arg0, Object arg1, Object arg2) {
+      MethodHandle handle = handle(3);
+      try {
+        return (Object) handle.invokeExact(arg0, arg1, arg2);
+      } catch (Throwable e) {
+        throw constructionFailure(e);
+      }
+    }
+
+    /**
+     * Creates a new instance of the accessed class with four arguments, without allocating an arguments
+     * array.
+     * <p>
+     * Fails with an {@link IllegalArgumentException} unless the constructor takes four arguments.
+     * </p>
+     * 
+     * @param arg0
+     *          the first parameter to use to build the instance.
+     * @param arg1
+     *          the second parameter to use to build the instance.
+     * @param arg2
+     *          the third parameter to use to build the instance.
+     * @param arg3
+     *          the fourth parameter to use to build the instance.
+     * @return the instance.
+     */
+    @NonNull
+    public final Object newInstance4(Object arg0, Object arg1, Object arg2, Object arg3) {
+      MethodHandle handle = handle(4);
+      try {
+        return (Object) handle.invokeExact(arg0, arg1, arg2, arg3);
+      } catch (Throwable e) {
+        throw constructionFailure(e);
+      }
+    }
+
+    /**
+     * Creates a new instance of the accessed class with five arguments, without allocating an arguments
+     * array.
+     * <p>
+     * Fails with an {@link IllegalArgumentException} unless the constructor takes five arguments.
+     * </p>
+     * 
+     * @param arg0
+     *          the first parameter to use to build the instance.
+     * @param arg1
+     *          the second parameter to use to build the instance.
+     * @param arg2
+     *          the third parameter to use to build the instance.
+     * @param arg3
+     *          the fourth parameter to use to build the instance.
+     * @param arg4
+     *          the fifth parameter to use to build the instance.
+     * @return the instance.
+     */
+    @NonNull
+    public final Object newInstance5(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4) {
+      MethodHandle handle = handle(5);
+      try {
+        return (Object) handle.invokeExact(arg0, arg1, arg2, arg3, arg4);
+      } catch (Throwable e) {
+        throw constructionFailure(e);
+      }
+    }
+
+    /**
+     * Implements the specified functional interface with the constructor.
+     * <p>
+     * The implementation is spun as for a constructor reference written in the accessed class, so
+     * calls to it can be inlined. Exceptions thrown by the constructor propagate unchanged.
+     * </p>
+     * 
+     * @param <F>
+     *          the type of the functional interface.
+     * @param type
+     *          the functional interface, such as {@link java.util.function.Supplier} or
+     *          {@link java.util.function.Function}.
+     * @return the implementation of the interface.
+     * @throws IllegalArgumentException
+     *           if the type is not a functional interface or its method is not compatible with
+     *           the constructor.
+     */
+    @NonNull
+    public final <F> F as(@NonNull Class<F> type) {
+      return Lambdas.bind(type, constructor, enclosing());
+    }
+
+    /**
+     * Returns the enclosing instance passed to the constructor.
+     * 
+     * @return the enclosing instance, <code>null</code> if the class is not inner.
+     */
+    @CheckForNull
+    Object enclosing() {
+      return null;
+    }
+
+    /**
+     * Returns the handle creating the instances, with all the parameters and the result erased to
+     * {@link Object}.
+     * 
+     * @param arity
+     *          the number of arguments of the construction.
+     * @return the handle with type <code>(Object, ...)Object</code>.
+     */
+    @NonNull
+    private MethodHandle handle(int arity) {
+      MethodHandle handle = this.handle;
+      if (handle == null) {
+        handle = unreflect(constructor);
+        handle = handle.asType(MethodType.genericMethodType(handle.type().parameterCount()));
+        // racy but idempotent, the handle is immutable
+        this.handle = handle;
+      }
+      AbstractMethodAccessor.checkArguments(handle.type().parameterCount(), arity);
+      return handle;
+    }
+
+    /**
+     * Unreflects the handle creating the instances, wrapping anything thrown by the constructor in
+     * an {@link InvocationTargetException}.
+     * 
+     * @param constructor
+     *          the accessible constructor.
+     * @return the handle, with the exact type of the constructor.
+     */
+    @NonNull
+    MethodHandle unreflect(@NonNull Constructor<?> constructor) {
+      try {
+        return AbstractMethodAccessor.wrapTargetExceptions(MethodHandles.lookup().unreflectConstructor(constructor));
+      } catch (IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    /**
+     * Translates the failures of a construction into the exceptions thrown by the constructors:
+     * the runtime exceptions and errors thrown by the constructor itself are propagated as they
+     * are.
+     * 
+     * @param e
+     *          the failure.
+     * @return the exception to throw.
+     */
+    @NonNull
+    private static RuntimeException constructionFailure(@NonNull Throwable e) {
+      if (e instanceof ClassCastException || e instanceof NullPointerException) {
+        return new IllegalArgumentException(e);
+      }
+      if (e instanceof InvocationTargetException) {
+        Throwable targetException = ((InvocationTargetException) e).getTargetException();
         if (targetException instanceof RuntimeException) {
-          throw (RuntimeException) targetException;
+          return (RuntimeException) targetException;
         }
         if (targetException instanceof Error) {
           throw (Error) targetException;
         }
-        throw new RuntimeException(targetException);
-      } catch (Exception e) {
-        throw new RuntimeException(e);
+        return new RuntimeException(targetException);
+      }
+      if (e instanceof RuntimeException) {
+        return (RuntimeException) e;
       }
+      if (e instanceof Error) {
+        throw (Error) e;
+      }
+      return new RuntimeException(e);
     }
 
     /**
@@ -302,8 +608,9 @@ public class ClassAccessor {
     @NonNull
     private final Object enclosing;
 
-    private InnerClassConstructor(@NonNull Object enclosing, @NonNull Constructor<?> constructor) {
-      super(constructor);
+    private InnerClassConstructor(@NonNull Object enclosing, @NonNull Constructor<?> constructor,
+      @CheckForNull AccessStrategy strategy) {
+      super(constructor, strategy);
       this.enclosing = enclosing;
     }
 
@@ -318,5 +625,21 @@ public class ClassAccessor {
 
       return super.newInstance(newInitargs);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object enclosing() {
+      return enclosing;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MethodHandle unreflect(Constructor<?> constructor) {
+      return MethodHandles.insertArguments(super.unreflect(constructor), 0, enclosing);
+    }
   }
 }
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Support for the accessors generated at build time for the interfaces annotated with
+ * {@link AccessorFor}.
+ * <p>
+ * The generated classes resolve through these methods the handles of the members they access, once
+ * when initialized; this class is public only for them to call it, client code should not.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public final class CompiledAccessors {
+
+  /**
+   * Appended to the binary name of an interface to name the class implementing it.
+   */
+  public static final String SUFFIX = "$$Accessor";
+
+  private CompiledAccessors() {
+    // static methods only
+  }
+
+  /**
+   * Loads a class by binary name, as seen from the accessor.
+   * 
+   * @param accessor
+   *          the generated class.
+   * @param name
+   *          the binary name of the class to load.
+   * @return the class.
+   */
+  @NonNull
+  public static Class<?> type(@NonNull Class<?> accessor, @NonNull String name) {
+    try {
+      return Class.forName(name, false, accessor.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Resolves a handle on a method.
+   * 
+   * @param accessor
+   *          the generated class.
+   * @param declaring
+   *          the binary name of the class declaring the method.
+   * @param name
+   *          the name of the method.
+   * @param type
+   *          the type of the method.
+   * @param isStatic
+   *          whether the method is static.
+   * @param accessorType
+   *          the type of the returned handle, taking the target followed by the arguments.
+   * @return the handle.
+   */
+  @NonNull
+  public static MethodHandle method(@NonNull Class<?> accessor, @NonNull String declaring,
+    @NonNull String name, @NonNull MethodType type, boolean isStatic,
+    @NonNull MethodType accessorType) {
+    Class<?> declaringClass = type(accessor, declaring);
+    try {
+      Lookup lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+      MethodHandle handle;
+      if (isStatic) {
+        handle = MethodHandles.dropArguments(lookup.findStatic(declaringClass, name, type), 0, Object.class);
+      } else {
+        handle = lookup.findVirtual(declaringClass, name, type);
+      }
+      return handle.asType(accessorType);
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Resolves a handle reading a field.
+   * 
+   * @param accessor
+   *          the generated class.
+   * @param declaring
+   *          the binary name of the class declaring the field.
+   * @param name
+   *          the name of the field.
+   * @param fieldType
+   *          the type of the field.
+   * @param isStatic
+   *          whether the field is static.
+   * @param accessorType
+   *          the type of the returned handle, taking the target.
+   * @return the handle.
+   */
+  @NonNull
+  public static MethodHandle getter(@NonNull Class<?> accessor, @NonNull String declaring,
+    @NonNull String name, @NonNull Class<?> fieldType, boolean isStatic,
+    @NonNull MethodType accessorType) {
+    Class<?> declaringClass = type(accessor, declaring);
+    try {
+      Lookup lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+      MethodHandle handle;
+      if (isStatic) {
+        handle = MethodHandles.dropArguments(lookup.findStaticGetter(declaringClass, name, fieldType), 0, Object.class);
+      } else {
+        handle = lookup.findGetter(declaringClass, name, fieldType);
+      }
+      return handle.asType(accessorType);
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Resolves a handle writing a field.
+   * 
+   * @param accessor
+   *          the generated class.
+   * @param declaring
+   *          the binary name of the class declaring the field.
+   * @param name
+   *          the name of the field.
+   * @param fieldType
+   *          the type of the field.
+   * @param isStatic
+   *          whether the field is static.
+   * @param accessorType
+   *          the type of the returned handle, taking the target and the value.
+   * @return the handle.
+   */
+  @NonNull
+  public static MethodHandle setter(@NonNull Class<?> accessor, @NonNull String declaring,
+    @NonNull String name, @NonNull Class<?> fieldType, boolean isStatic,
+    @NonNull MethodType accessorType) {
+    Class<?> declaringClass = type(accessor, declaring);
+    try {
+      Lookup lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+      MethodHandle handle;
+      if (isStatic) {
+        handle = MethodHandles.dropArguments(lookup.findStaticSetter(declaringClass, name, fieldType), 0, Object.class);
+      } else {
+        handle = lookup.findSetter(declaringClass, name, fieldType);
+      }
+      return handle.asType(accessorType);
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,585 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Copies graphs of objects field by field, including their private state, without relying on
+ * {@link Cloneable} or on any code of the copied classes.
+ * <p>
+ * The fields are resolved as {@link FieldAccessor} does, through the layout of
+ * {@link ObjectSnapshot}, and each class gets a copy plan compiled once and shared by all copiers:
+ * primitive fields are copied by method handles reading from the source and writing into the copy
+ * without boxing, primitive arrays are copied in bulk, reference fields and elements are copied
+ * deeply. The graph is walked iteratively, so its depth is not bounded by the stack, and every
+ * object is copied once: cycles and shared references are preserved in the copy.
+ * </p>
+ * <p>
+ * Strings, boxed primitives, {@link BigInteger}, {@link BigDecimal}, enums and classes are
+ * immutable and shared between the source and the copy, together with the types specified to
+ * {@link #DeepCopier(boolean, Class...)}. Records, hidden classes and the other classes of modules
+ * not open to this library cannot be copied field by field and must be shared or kept out of the
+ * graph.
+ * </p>
+ * <p>
+ * Collections and maps are copied through their public API instead: a new, empty instance of the
+ * same class, created with the comparator of the source if sorted, receives the copies of the
+ * elements, keys and values, once these are complete so that their hash codes are final. The
+ * collections whose class cannot be instantiated, such as the unmodifiable ones, are copied into an
+ * {@link ArrayList}, {@link LinkedHashSet}, {@link TreeSet}, {@link ArrayDeque},
+ * {@link LinkedHashMap} or {@link TreeMap}. Only their elements are copied, not any further field
+ * of their classes.
+ * </p>
+ * <p>
+ * The copies are created by the constructor without parameters of their classes or, when
+ * requested, without calling any constructor of the copied classes, as deserialization does.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public final class DeepCopier {
+
+  private static final ClassValue<Plan> PLANS = new ClassValue<Plan>() {
+    @Override
+    protected Plan computeValue(Class<?> type) {
+      return new Plan(type);
+    }
+  };
+
+  private static final MethodType COPY = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private static final MethodType GET = MethodType.methodType(Object.class, Object.class);
+
+  private static final MethodType NEW_INSTANCE = MethodType.methodType(Object.class);
+
+  private final boolean callConstructors;
+
+  @NonNull
+  private final Class<?>[] shared;
+
+  /**
+   * Constructor of a copier creating the copies through the constructors without parameters.
+   */
+  public DeepCopier() {
+    this(true);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param callConstructors
+   *          <code>true</code> to create the copies through the constructors without parameters
+   *          of their classes, <code>false</code> to create them without calling any constructor
+   *          of the copied classes.
+   * @param sharedTypes
+   *          further types whose instances are shared between the source and the copy instead of
+   *          being copied, subtypes included.
+   */
+  public DeepCopier(boolean callConstructors, @NonNull Class<?>... sharedTypes) {
+    this.callConstructors = callConstructors;
+    this.shared = sharedTypes.clone();
+  }
+
+  /**
+   * Copies the specified object and all the objects it reaches.
+   * 
+   * @param <T>
+   *          the type of the object.
+   * @param source
+   *          the root of the graph to copy.
+   * @return the copy, or the source itself if shared, <code>null</code> if the source is
+   *         <code>null</code>.
+   * @throws IllegalArgumentException
+   *           if the graph contains an object that cannot be copied.
+   */
+  @SuppressWarnings("unchecked")
+  @CheckForNull
+  public <T> T copy(@CheckForNull T source) {
+    if (source == null) {
+      return null;
+    }
+    Copy copy = new Copy();
+    T result = (T) copy.of(source);
+    try {
+      while (!copy.pending.isEmpty()) {
+        Object from = copy.pending.poll();
+        Object to = copy.pending.poll();
+        copy.fill(from, to, (Plan) copy.pending.poll());
+      }
+      copy.populate();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+    return result;
+  }
+
+  private boolean isShared(@NonNull Class<?> type) {
+    for (Class<?> sharedType : shared) {
+      if (sharedType.isAssignableFrom(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The state of a single copy.
+   */
+  private final class Copy {
+
+    /**
+     * The copies made so far, by source identity.
+     */
+    @NonNull
+    final Map<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+    /**
+     * Source, copy and plan of the objects still to be filled.
+     */
+    @NonNull
+    final ArrayDeque<Object> pending = new ArrayDeque<Object>();
+
+    /**
+     * Copied collections or maps and the copies of their elements, or of their keys and values
+     * interleaved, added once all the objects are filled.
+     */
+    @NonNull
+    private final List<Object> contents = new ArrayList<Object>();
+
+    /**
+     * Gets the copy of an object, creating it empty and scheduling it to be filled the first time.
+     */
+    @CheckForNull
+    Object of(@CheckForNull Object source) {
+      if (source == null) {
+        return null;
+      }
+      Object copy = copies.get(source);
+      if (copy == null) {
+        Class<?> type = source.getClass();
+        if (isShared(type)) {
+          return source;
+        }
+        Plan plan = PLANS.get(type);
+        if (plan.immutable) {
+          return source;
+        }
+        if (type.isArray()) {
+          int length = Array.getLength(source);
+          copy = Array.newInstance(type.getComponentType(), length);
+          if (plan.bulk) {
+            System.arraycopy(source, 0, copy, 0, length);
+            copies.put(source, copy);
+            return copy;
+          }
+        } else if (plan.collection || plan.map) {
+          copy = plan.newContainer(source);
+          if (source instanceof EnumSet) {
+            // enums only, already complete
+            copies.put(source, copy);
+            return copy;
+          }
+        } else {
+          copy = plan.newInstance(callConstructors);
+        }
+        copies.put(source, copy);
+        pending.add(source);
+        pending.add(copy);
+        pending.add(plan);
+      }
+      return copy;
+    }
+
+    void fill(@NonNull Object source, @NonNull Object copy, @NonNull Plan plan) throws Throwable {
+      if (source instanceof Object[]) {
+        Object[] from = (Object[]) source;
+        Object[] to = (Object[]) copy;
+        for (int i = 0; i < from.length; i++) {
+          to[i] = of(from[i]);
+        }
+        return;
+      }
+      if (plan.collection) {
+        Object[] elements = ((Collection<?>) source).toArray();
+        for (int i = 0; i < elements.length; i++) {
+          elements[i] = of(elements[i]);
+        }
+        contents.add(copy);
+        contents.add(elements);
+        return;
+      }
+      if (plan.map) {
+        Object[] entries = new Object[((Map<?, ?>) source).size() * 2];
+        int i = 0;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) source).entrySet()) {
+          entries[i++] = of(entry.getKey());
+          entries[i++] = of(entry.getValue());
+        }
+        contents.add(copy);
+        contents.add(entries);
+        return;
+      }
+      MethodHandle primitives = plan.primitives;
+      if (primitives != null) {
+        primitives.invokeExact(source, copy);
+      }
+      MethodHandle[] getters = plan.referenceGetters;
+      MethodHandle[] setters = plan.referenceSetters;
+      for (int i = 0; i < getters.length; i++) {
+        Object value = (Object) getters[i].invokeExact(source);
+        setters[i].invokeExact(copy, of(value));
+      }
+    }
+
+    /**
+     * Adds their contents to the copied collections and maps, the innermost first, since
+     * collections may be elements, or keys, of those found before them.
+     */
+    @SuppressWarnings("unchecked")
+    void populate() {
+      for (int i = contents.size() - 2; i >= 0; i -= 2) {
+        Object container = contents.get(i);
+        Object[] elements = (Object[]) contents.get(i + 1);
+        if (container instanceof Collection) {
+          Collection<Object> collection = (Collection<Object>) container;
+          for (Object element : elements) {
+            collection.add(element);
+          }
+        } else {
+          Map<Object, Object> map = (Map<Object, Object>) container;
+          for (int j = 0; j < elements.length; j += 2) {
+            map.put(elements[j], elements[j + 1]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Access to <code>sun.reflect.ReflectionFactory</code>, looked up at runtime since it belongs to
+   * the <code>jdk.unsupported</code> module, which a runtime image may leave out.
+   */
+  private static final class Serialization {
+
+    /**
+     * <code>newConstructorForSerialization</code>, with type <code>(Class,Constructor)Constructor</code>;
+     * <code>null</code> if the factory is not available.
+     */
+    @CheckForNull
+    static final MethodHandle NEW_CONSTRUCTOR = newConstructor();
+
+    @CheckForNull
+    private static MethodHandle newConstructor() {
+      try {
+        Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Object factory = lookup.findStatic(factoryClass, "getReflectionFactory", MethodType.methodType(factoryClass)).invoke();
+        MethodHandle newConstructor = lookup.findVirtual(factoryClass, "newConstructorForSerialization", MethodType.methodType(Constructor.class, Class.class, Constructor.class));
+        return newConstructor.bindTo(factory);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        // ClassNotFoundException or a changed factory
+        return null;
+      }
+    }
+  }
+
+  /**
+   * The copy plan of a class.
+   */
+  private static final class Plan {
+
+    @NonNull
+    private static final MethodHandle[] NONE = new MethodHandle[0];
+
+    @NonNull
+    private final Class<?> type;
+
+    /**
+     * Whether the instances are shared instead of copied.
+     */
+    final boolean immutable;
+
+    /**
+     * Whether the class is an array copied in bulk, its elements being primitives or immutable.
+     */
+    final boolean bulk;
+
+    /**
+     * Whether the class is a collection, copied through its public API.
+     */
+    final boolean collection;
+
+    /**
+     * Whether the class is a map, copied through its public API.
+     */
+    final boolean map;
+
+    /**
+     * The constructor without parameters of a collection or map class, <code>null</code> if not
+     * accessible.
+     */
+    @CheckForNull
+    private final Constructor<?> containerConstructor;
+
+    /**
+     * The constructor taking a {@link Comparator} of a collection or map class,
+     * <code>null</code> if not accessible.
+     */
+    @CheckForNull
+    private final Constructor<?> comparatorConstructor;
+
+    /**
+     * Copies all the primitive fields in a single call, with type
+     * <code>(Object,Object)void</code>; <code>null</code> if none.
+     */
+    @CheckForNull
+    final MethodHandle primitives;
+
+    /**
+     * Getters of the reference fields, with type <code>(Object)Object</code>.
+     */
+    @NonNull
+    final MethodHandle[] referenceGetters;
+
+    /**
+     * Setters of the reference fields, with type <code>(Object,Object)void</code>.
+     */
+    @NonNull
+    final MethodHandle[] referenceSetters;
+
+    /**
+     * Creates instances through the constructor without parameters, built on first use.
+     */
+    @CheckForNull
+    private volatile MethodHandle constructor;
+
+    /**
+     * Creates instances without calling the constructors of the class, built on first use.
+     */
+    @CheckForNull
+    private volatile MethodHandle allocator;
+
+    Plan(@NonNull Class<?> type) {
+      this.type = type;
+      immutable = isImmutable(type);
+      Class<?> component = type.getComponentType();
+      bulk = component != null && (component.isPrimitive() || isImmutable(component));
+      collection = Collection.class.isAssignableFrom(type);
+      map = Map.class.isAssignableFrom(type);
+      containerConstructor = collection || map ? accessibleConstructor(type) : null;
+      comparatorConstructor = collection || map ? accessibleConstructor(type, Comparator.class) : null;
+      if (immutable || component != null || collection || map) {
+        primitives = null;
+        referenceGetters = referenceSetters = NONE;
+        return;
+      }
+      if (type.isRecord() || type.isHidden()) {
+        throw new IllegalArgumentException("Cannot copy " + type.getName() + ": its fields cannot be written");
+      }
+      ObjectSnapshot<?> layout;
+      try {
+        layout = ObjectSnapshot.make(type);
+      } catch (RuntimeException e) {
+        // typically the private fields of modules not open to this library
+        throw new IllegalArgumentException("Cannot copy " + type.getName() + ": " + e.getMessage(), e);
+      }
+      Field[] primitiveFields = layout.getPrimitiveFields();
+      Field[] referenceFields = layout.getReferenceFields();
+      referenceGetters = new MethodHandle[referenceFields.length];
+      referenceSetters = new MethodHandle[referenceFields.length];
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle all = null;
+        for (Field field : primitiveFields) {
+          // (copy, source) -> copy.field = source.field
+          MethodHandle copy = MethodHandles.collectArguments(lookup.unreflectSetter(field), 1, lookup.unreflectGetter(field));
+          copy = MethodHandles.permuteArguments(copy.asType(COPY), COPY, 1, 0);
+          // fused, so that the copies compile into a single unit
+          all = all == null ? copy : MethodHandles.foldArguments(copy, all);
+        }
+        primitives = all;
+        for (int i = 0; i < referenceFields.length; i++) {
+          referenceGetters[i] = lookup.unreflectGetter(referenceFields[i]).asType(GET);
+          referenceSetters[i] = lookup.unreflectSetter(referenceFields[i]).asType(COPY);
+        }
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Cannot copy " + type.getName() + ": " + e.getMessage(), e);
+      }
+    }
+
+    @NonNull
+    Object newInstance(boolean callConstructors) throws IllegalArgumentException {
+      MethodHandle creator = callConstructors ? constructor : allocator;
+      if (creator == null) {
+        creator = callConstructors ? constructor() : allocator();
+        // racy but idempotent, the handle is immutable
+        if (callConstructors) {
+          constructor = creator;
+        } else {
+          allocator = creator;
+        }
+      }
+      try {
+        return (Object) creator.invokeExact();
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    /**
+     * Creates an empty collection or map of the class of the source, or of its closest general
+     * purpose implementation.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @NonNull
+    Object newContainer(@NonNull Object source) {
+      if (source instanceof EnumSet) {
+        return ((EnumSet) source).clone();
+      }
+      if (source instanceof EnumMap) {
+        EnumMap copy = new EnumMap((EnumMap) source);
+        copy.clear();
+        return copy;
+      }
+      Comparator<?> comparator = null;
+      if (source instanceof SortedSet) {
+        comparator = ((SortedSet<?>) source).comparator();
+      } else if (source instanceof SortedMap) {
+        comparator = ((SortedMap<?, ?>) source).comparator();
+      } else if (source instanceof PriorityQueue) {
+        comparator = ((PriorityQueue<?>) source).comparator();
+      }
+      try {
+        if (comparator != null && comparatorConstructor != null) {
+          return comparatorConstructor.newInstance(comparator);
+        }
+        if (comparator == null && containerConstructor != null) {
+          return containerConstructor.newInstance();
+        }
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+      if (map) {
+        return source instanceof SortedMap ? new TreeMap(comparator) : new LinkedHashMap();
+      }
+      if (source instanceof SortedSet) {
+        return new TreeSet(comparator);
+      }
+      if (source instanceof PriorityQueue) {
+        return new PriorityQueue(11, comparator);
+      }
+      if (source instanceof Set) {
+        return new LinkedHashSet();
+      }
+      return source instanceof List ? new ArrayList() : new ArrayDeque();
+    }
+
+    @CheckForNull
+    private static Constructor<?> accessibleConstructor(@NonNull Class<?> type,
+      @NonNull Class<?>... parameterTypes) {
+      try {
+        Constructor<?> constructor = type.getDeclaredConstructor(parameterTypes);
+        return constructor.canAccess(null) || constructor.trySetAccessible() ? constructor : null;
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+
+    @NonNull
+    private MethodHandle constructor() {
+      try {
+        return MethodHandles.lookup().unreflectConstructor(Members.constructor(type)).asType(NEW_INSTANCE);
+      } catch (NoSuchMethodException e) {
+        throw new IllegalArgumentException("Cannot copy " + type.getName() + " through constructors: no constructor without parameters", e);
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Cannot copy " + type.getName() + ": " + e.getMessage(), e);
+      }
+    }
+
+    /**
+     * Builds the constructor deserialization uses: it initializes the object as the constructor
+     * without parameters of {@link Object} does, skipping those of the class and its superclasses.
+     */
+    @NonNull
+    private MethodHandle allocator() {
+      MethodHandle serialization = Serialization.NEW_CONSTRUCTOR;
+      if (serialization == null) {
+        throw new IllegalArgumentException("Cannot copy " + type.getName() + " without constructors: the jdk.unsupported module is missing");
+      }
+      try {
+        Constructor<?> constructor = (Constructor<?>) serialization.invokeExact(type, Object.class.getDeclaredConstructor());
+        // through reflection: a method handle would resolve the constructors of the class instead
+        MethodHandle newInstance = MethodHandles.lookup().findVirtual(Constructor.class, "newInstance", MethodType.methodType(Object.class, Object[].class));
+        return MethodHandles.insertArguments(newInstance, 0, constructor, new Object[0]).asType(NEW_INSTANCE);
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Cannot copy " + type.getName() + ": " + e.getMessage(), e);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    private static boolean isImmutable(@NonNull Class<?> type) {
+      return type == String.class || type == Boolean.class || type == Character.class || type == Byte.class || type == Short.class || type == Integer.class || type == Long.class || type == Float.class || type == Double.class || type == BigInteger.class || type == BigDecimal.class || type == Class.class || Enum.class.isAssignableFrom(type);
+    }
+  }
+}
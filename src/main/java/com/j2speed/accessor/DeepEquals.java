@@ -0,0 +1,871 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Structural equality and hashing of graphs of objects, comparing their private state field by
+ * field, without relying on the <code>equals</code> and <code>hashCode</code> of the compared
+ * classes.
+ * <p>
+ * Each class gets a plan compiled once over the field layout of {@link ObjectSnapshot}, and so over
+ * the same field resolution as {@link FieldAccessor}: all the primitive fields of an object are
+ * compared, or hashed, by a single fused method handle without boxing, the reference fields are
+ * compared deeply. Floating point fields are compared as {@link Double#equals(Object)} does, and
+ * objects of different classes are never equal.
+ * </p>
+ * <p>
+ * Arrays and the elements of lists and other collections are compared in order, primitive arrays
+ * in bulk; maps match their keys through the <code>equals</code> of the keys and compare their
+ * values deeply. Sets, strings, boxed primitives, {@link BigInteger}, {@link BigDecimal}, enums,
+ * classes and the classes of modules not open to this library are compared through their own
+ * <code>equals</code>.
+ * </p>
+ * <p>
+ * The comparison is iterative and safe on cycles: a pair of objects already being compared is
+ * assumed equal. The hash code covers the graph unrolled from its root down to
+ * {@value #HASH_DEPTH} levels of objects, arrays, collections and maps, values excluded, below
+ * which only the classes count: graphs equal whatever their cycles and sharing unroll the same, so
+ * the hash code is always consistent with {@link #deepEquals(Object, Object)}, and bounded. Each
+ * object is hashed once for each level it is reached at, so the cost grows linearly with the graph
+ * even when many objects refer back to a shared one.
+ * </p>
+ * <p>
+ * Instances are immutable: {@link #ignoring(Class, String...)} and
+ * {@link #parallel(ForkJoinPool, int)} return configured copies, each compiling its own plans.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public final class DeepEquals {
+
+  /**
+   * The levels of the graph covered by {@link #deepHashCode(Object)}.
+   */
+  public static final int HASH_DEPTH = 6;
+
+  private static final MethodType GET = MethodType.methodType(Object.class, Object.class);
+
+  private static final MethodType GET_LONG = MethodType.methodType(long.class, Object.class);
+
+  private static final MethodType EQUAL = MethodType.methodType(boolean.class, Object.class, Object.class);
+
+  private static final MethodType HASH = MethodType.methodType(int.class, Object.class);
+
+  private static final MethodHandle SAME;
+
+  private static final MethodHandle MIX;
+
+  private static final MethodHandle DOUBLE_BITS;
+
+  private static final MethodHandle FLOAT_BITS;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      SAME = lookup.findStatic(DeepEquals.class, "same", MethodType.methodType(boolean.class, long.class, long.class));
+      MIX = lookup.findStatic(DeepEquals.class, "mix", MethodType.methodType(int.class, int.class, long.class));
+      DOUBLE_BITS = lookup.findStatic(Double.class, "doubleToLongBits", MethodType.methodType(long.class, double.class));
+      FLOAT_BITS = lookup.findStatic(Float.class, "floatToIntBits", MethodType.methodType(int.class, float.class));
+    } catch (Exception e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final ClassValue<Plan> plans = new ClassValue<Plan>() {
+    @Override
+    protected Plan computeValue(Class<?> type) {
+      return new Plan(type, ignored);
+    }
+  };
+
+  @NonNull
+  private final Set<Field> ignored;
+
+  @CheckForNull
+  private final ForkJoinPool pool;
+
+  private final int threshold;
+
+  /**
+   * Constructor of an engine comparing all the fields, in the calling thread.
+   */
+  public DeepEquals() {
+    this(Collections.<Field> emptySet(), null, Integer.MAX_VALUE);
+  }
+
+  private DeepEquals(@NonNull Set<Field> ignored, @CheckForNull ForkJoinPool pool, int threshold) {
+    this.ignored = ignored;
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Creates an engine that ignores the specified fields too.
+   * 
+   * @param type
+   *          the class from which to start searching the fields.
+   * @param fieldNames
+   *          the names of the fields.
+   * @return the new engine.
+   * @throws RuntimeException
+   *           if a field cannot be found within the class hierarchy.
+   */
+  @NonNull
+  public DeepEquals ignoring(@NonNull Class<?> type, @NonNull String... fieldNames) {
+    Set<Field> ignored = new HashSet<Field>(this.ignored);
+    for (String fieldName : fieldNames) {
+      ignored.add(BaseFieldAccessor.getField(type, fieldName));
+    }
+    return new DeepEquals(ignored, pool, threshold);
+  }
+
+  /**
+   * Creates an engine that splits the arrays and collections with more than the specified number
+   * of elements in chunks of at most that size, compared or hashed in parallel by the tasks of the
+   * specified pool.
+   * 
+   * @param pool
+   *          the pool running the tasks.
+   * @param threshold
+   *          the maximum number of elements compared by a single task.
+   * @return the new engine.
+   * @throws IllegalArgumentException
+   *           if the threshold is not positive.
+   */
+  @NonNull
+  public DeepEquals parallel(@NonNull ForkJoinPool pool, int threshold) {
+    if (pool == null) {
+      throw new NullPointerException();
+    }
+    if (threshold < 1) {
+      throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+    }
+    return new DeepEquals(ignored, pool, threshold);
+  }
+
+  /**
+   * Compares two graphs of objects.
+   * 
+   * @param first
+   *          the first graph.
+   * @param second
+   *          the second graph.
+   * @return <code>true</code> if the graphs have the same structure and values.
+   */
+  public boolean deepEquals(@CheckForNull Object first, @CheckForNull Object second) {
+    return new Comparison(null).equal(first, second);
+  }
+
+  /**
+   * Computes the hash code of a graph of objects, consistent with
+   * {@link #deepEquals(Object, Object)}.
+   * 
+   * @param value
+   *          the graph.
+   * @return the hash code.
+   */
+  public int deepHashCode(@CheckForNull Object value) {
+    try {
+      return new Hashing(null).hash(value, HASH_DEPTH);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  static boolean same(long first, long second) {
+    return first == second;
+  }
+
+  static int mix(int hash, long value) {
+    return 31 * hash + Long.hashCode(value);
+  }
+
+  private static boolean primitiveArraysEqual(@NonNull Object first, @NonNull Object second) {
+    if (first instanceof int[]) {
+      return Arrays.equals((int[]) first, (int[]) second);
+    } else if (first instanceof long[]) {
+      return Arrays.equals((long[]) first, (long[]) second);
+    } else if (first instanceof double[]) {
+      return Arrays.equals((double[]) first, (double[]) second);
+    } else if (first instanceof byte[]) {
+      return Arrays.equals((byte[]) first, (byte[]) second);
+    } else if (first instanceof char[]) {
+      return Arrays.equals((char[]) first, (char[]) second);
+    } else if (first instanceof boolean[]) {
+      return Arrays.equals((boolean[]) first, (boolean[]) second);
+    } else if (first instanceof float[]) {
+      return Arrays.equals((float[]) first, (float[]) second);
+    }
+    return Arrays.equals((short[]) first, (short[]) second);
+  }
+
+  private static int primitiveArrayHash(@NonNull Object array) {
+    if (array instanceof int[]) {
+      return Arrays.hashCode((int[]) array);
+    } else if (array instanceof long[]) {
+      return Arrays.hashCode((long[]) array);
+    } else if (array instanceof double[]) {
+      return Arrays.hashCode((double[]) array);
+    } else if (array instanceof byte[]) {
+      return Arrays.hashCode((byte[]) array);
+    } else if (array instanceof char[]) {
+      return Arrays.hashCode((char[]) array);
+    } else if (array instanceof boolean[]) {
+      return Arrays.hashCode((boolean[]) array);
+    } else if (array instanceof float[]) {
+      return Arrays.hashCode((float[]) array);
+    }
+    return Arrays.hashCode((short[]) array);
+  }
+
+  /**
+   * @return the elements of an array or collection, if large enough to be split.
+   */
+  @CheckForNull
+  private Object[] splittable(@NonNull Object value, @NonNull Kind kind) {
+    if (pool == null) {
+      return null;
+    }
+    if (kind == Kind.ARRAY) {
+      Object[] array = (Object[]) value;
+      return array.length > threshold ? array : null;
+    }
+    return kind == Kind.SEQUENCE && ((Collection<?>) value).size() > threshold ? ((Collection<?>) value).toArray() : null;
+  }
+
+  private <R> R invoke(@NonNull ForkJoinTask<R> task) {
+    return ForkJoinTask.inForkJoinPool() ? task.invoke() : pool.invoke(task);
+  }
+
+  private static int pow31(int exponent) {
+    int result = 1;
+    for (int base = 31; exponent != 0; exponent >>>= 1, base *= base) {
+      if ((exponent & 1) != 0) {
+        result *= base;
+      }
+    }
+    return result;
+  }
+
+  private static enum Kind {
+    /** Compared through its own equals. */
+    VALUE,
+    /** Array of primitives, compared in bulk. */
+    PRIMITIVES,
+    /** Array of references. */
+    ARRAY,
+    /** Collection other than a set, compared in iteration order. */
+    SEQUENCE,
+    /** Map, values compared deeply. */
+    MAP,
+    /** Object compared field by field. */
+    FIELDS
+  }
+
+  /**
+   * The comparison plan of a class.
+   */
+  private static final class Plan {
+
+    @NonNull
+    private static final MethodHandle[] NONE = new MethodHandle[0];
+
+    @NonNull
+    final Kind kind;
+
+    /**
+     * Compares all the primitive fields, with type <code>(Object,Object)boolean</code>;
+     * <code>null</code> if none.
+     */
+    @CheckForNull
+    final MethodHandle primitivesEqual;
+
+    /**
+     * Hashes all the primitive fields, with type <code>(Object)int</code>.
+     */
+    @CheckForNull
+    final MethodHandle primitivesHash;
+
+    /**
+     * Getters of the reference fields, with type <code>(Object)Object</code>.
+     */
+    @NonNull
+    final MethodHandle[] references;
+
+    /**
+     * Whether the reference fields can only hold values: the objects of the class are compared and
+     * hashed at once, without tracking them, since they cannot be part of a cycle.
+     */
+    final boolean leaf;
+
+    Plan(@NonNull Class<?> type, @NonNull Set<Field> ignored) {
+      kind = kindOf(type);
+      if (kind != Kind.FIELDS) {
+        primitivesEqual = primitivesHash = null;
+        references = NONE;
+        leaf = false;
+        return;
+      }
+      ObjectSnapshot<?> layout = ObjectSnapshot.make(type);
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle equal = null;
+      MethodHandle hash = MethodHandles.dropArguments(MethodHandles.constant(int.class, 1), 0, Object.class);
+      MethodHandle unequal = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, Object.class, Object.class);
+      Field[] primitiveFields = layout.getPrimitiveFields();
+      Field[] referenceFields = layout.getReferenceFields();
+      try {
+        for (int i = primitiveFields.length - 1; i >= 0; i--) {
+          if (ignored.contains(primitiveFields[i])) {
+            continue;
+          }
+          MethodHandle getter = toLong(lookup.unreflectGetter(primitiveFields[i]));
+          // fused, so that the comparisons compile into a single unit, stopping at the first
+          // difference
+          MethodHandle same = MethodHandles.filterArguments(SAME, 0, getter, getter);
+          equal = equal == null ? same : MethodHandles.guardWithTest(same, equal, unequal);
+          hash = MethodHandles.permuteArguments(MethodHandles.filterArguments(MIX, 0, hash, getter), HASH, 0, 0);
+        }
+        MethodHandle[] references = new MethodHandle[referenceFields.length];
+        int count = 0;
+        boolean leaf = true;
+        for (Field field : referenceFields) {
+          if (!ignored.contains(field)) {
+            references[count++] = lookup.unreflectGetter(field).asType(GET);
+            leaf &= isFinalValue(field.getType());
+          }
+        }
+        this.leaf = leaf;
+        this.references = Arrays.copyOf(references, count);
+      } catch (IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+      primitivesEqual = equal;
+      primitivesHash = equal == null ? null : hash;
+    }
+
+    /**
+     * @return whether all the instances of the type, subclasses included, are compared without
+     *         descending into them.
+     */
+    private static boolean isFinalValue(@NonNull Class<?> type) {
+      return type == String.class || type == Boolean.class || type == Character.class || type == Byte.class || type == Short.class || type == Integer.class || type == Long.class || type == Float.class || type == Double.class || type == Class.class || type.isEnum() || (type.isArray() && type.getComponentType().isPrimitive());
+    }
+
+    @NonNull
+    private static Kind kindOf(@NonNull Class<?> type) {
+      if (type.isArray()) {
+        return type.getComponentType().isPrimitive() ? Kind.PRIMITIVES : Kind.ARRAY;
+      }
+      if (type == String.class || type == Boolean.class || type == Character.class || type == Byte.class || type == Short.class || type == Integer.class || type == Long.class || type == Float.class || type == Double.class || type == BigInteger.class || type == BigDecimal.class || type == Class.class || Enum.class.isAssignableFrom(type) || Set.class.isAssignableFrom(type)) {
+        return Kind.VALUE;
+      }
+      if (Map.class.isAssignableFrom(type)) {
+        return Kind.MAP;
+      }
+      if (Collection.class.isAssignableFrom(type)) {
+        return Kind.SEQUENCE;
+      }
+      try {
+        ObjectSnapshot.make(type);
+        return Kind.FIELDS;
+      } catch (RuntimeException e) {
+        // typically the private fields of modules not open to this library
+        return Kind.VALUE;
+      }
+    }
+
+    /**
+     * Adapts a primitive getter to <code>(Object)long</code>, floating point values by the bits
+     * {@link Double#equals(Object)} compares.
+     */
+    @NonNull
+    private static MethodHandle toLong(@NonNull MethodHandle getter) {
+      Class<?> type = getter.type().returnType();
+      if (type == double.class) {
+        getter = MethodHandles.filterReturnValue(getter, DOUBLE_BITS);
+      } else if (type == float.class) {
+        getter = MethodHandles.filterReturnValue(getter, FLOAT_BITS);
+      }
+      return MethodHandles.explicitCastArguments(getter, GET_LONG);
+    }
+  }
+
+  /**
+   * The state of a single comparison.
+   */
+  private final class Comparison {
+
+    /**
+     * The comparison that split the collection this one compares part of, <code>null</code> if
+     * none. Blocked until this one completes, its pairs are only read.
+     */
+    @CheckForNull
+    private final Comparison outer;
+
+    /**
+     * The pairs already compared or being compared, by the identity of the first object.
+     */
+    @NonNull
+    private final Map<Object, Object> pairs = new IdentityHashMap<Object, Object>();
+
+    /**
+     * The further pairs of first objects compared with more than one second object.
+     */
+    @CheckForNull
+    private Set<Pair> morePairs;
+
+    /**
+     * First, second and plan of the pairs still to be compared.
+     */
+    @NonNull
+    private final ArrayDeque<Object> pending = new ArrayDeque<Object>();
+
+    Comparison(@CheckForNull Comparison outer) {
+      this.outer = outer;
+    }
+
+    /**
+     * Compares two graphs.
+     */
+    boolean equal(@CheckForNull Object first, @CheckForNull Object second) {
+      try {
+        return add(first, second) && run();
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    /**
+     * Compares two objects as far as possible without descending into them, scheduling the rest.
+     * 
+     * @return <code>false</code> if the objects already differ.
+     */
+    private boolean add(@CheckForNull Object first, @CheckForNull Object second) throws Throwable {
+      if (first == second) {
+        return true;
+      }
+      if (first == null || second == null || first.getClass() != second.getClass()) {
+        return false;
+      }
+      Plan plan = plans.get(first.getClass());
+      switch (plan.kind) {
+        case VALUE:
+          return first.equals(second);
+        case PRIMITIVES:
+          return primitiveArraysEqual(first, second);
+        case ARRAY:
+          if (((Object[]) first).length != ((Object[]) second).length) {
+            return false;
+          }
+          break;
+        case SEQUENCE:
+          if (((Collection<?>) first).size() != ((Collection<?>) second).size()) {
+            return false;
+          }
+          break;
+        case MAP:
+          if (((Map<?, ?>) first).size() != ((Map<?, ?>) second).size()) {
+            return false;
+          }
+          break;
+        default:
+          if (plan.leaf) {
+            return compare(first, second, plan);
+          }
+          break;
+      }
+      // on the path of the enclosing comparisons, such as a back reference to a split collection
+      if (outer != null && outer.isCompared(first, second)) {
+        return true;
+      }
+      Object previous = pairs.get(first);
+      if (previous == second) {
+        return true;
+      }
+      if (previous == null) {
+        pairs.put(first, second);
+      } else {
+        if (morePairs == null) {
+          morePairs = new HashSet<Pair>();
+        }
+        if (!morePairs.add(new Pair(first, second))) {
+          return true;
+        }
+      }
+      pending.add(first);
+      pending.add(second);
+      pending.add(plan);
+      return true;
+    }
+
+    /**
+     * @return whether this comparison or any enclosing one already compares the pair.
+     */
+    private boolean isCompared(@NonNull Object first, @NonNull Object second) {
+      for (Comparison comparison = this; comparison != null; comparison = comparison.outer) {
+        if (comparison.pairs.get(first) == second || (comparison.morePairs != null && comparison.morePairs.contains(new Pair(first, second)))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Compares the scheduled pairs.
+     * 
+     * @return <code>false</code> at the first difference.
+     */
+    private boolean run() throws Throwable {
+      while (!pending.isEmpty()) {
+        if (!compare(pending.poll(), pending.poll(), (Plan) pending.poll())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean compare(@NonNull Object first, @NonNull Object second, @NonNull Plan plan)
+      throws Throwable {
+      switch (plan.kind) {
+        case FIELDS:
+          MethodHandle primitivesEqual = plan.primitivesEqual;
+          if (primitivesEqual != null && !(boolean) primitivesEqual.invokeExact(first, second)) {
+            return false;
+          }
+          for (MethodHandle getter : plan.references) {
+            if (!add((Object) getter.invokeExact(first), (Object) getter.invokeExact(second))) {
+              return false;
+            }
+          }
+          return true;
+        case MAP:
+          Map<?, ?> secondMap = (Map<?, ?>) second;
+          for (Map.Entry<?, ?> entry : ((Map<?, ?>) first).entrySet()) {
+            Object value = secondMap.get(entry.getKey());
+            if ((value == null && !secondMap.containsKey(entry.getKey())) || !add(entry.getValue(), value)) {
+              return false;
+            }
+          }
+          return true;
+        default:
+          Object[] firstElements = splittable(first, plan.kind);
+          if (firstElements != null) {
+            Object[] secondElements = plan.kind == Kind.ARRAY ? (Object[]) second : ((Collection<?>) second).toArray();
+            return invoke(new ParallelEquals(this, firstElements, secondElements, 0, firstElements.length, new AtomicBoolean()));
+          }
+          if (plan.kind == Kind.ARRAY) {
+            Object[] firstArray = (Object[]) first;
+            Object[] secondArray = (Object[]) second;
+            for (int i = 0; i < firstArray.length; i++) {
+              if (!add(firstArray[i], secondArray[i])) {
+                return false;
+              }
+            }
+            return true;
+          }
+          Iterator<?> secondIterator = ((Collection<?>) second).iterator();
+          for (Object element : (Collection<?>) first) {
+            if (!secondIterator.hasNext() || !add(element, secondIterator.next())) {
+              return false;
+            }
+          }
+          return true;
+      }
+    }
+  }
+
+  /**
+   * Compares a range of elements, splitting it among tasks when too large.
+   */
+  private final class ParallelEquals extends RecursiveTask<Boolean> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The comparison that split the elements.
+     */
+    @NonNull
+    private final Comparison outer;
+
+    @NonNull
+    private final Object[] first;
+
+    @NonNull
+    private final Object[] second;
+
+    private final int from;
+
+    private final int to;
+
+    /**
+     * Set at the first difference, to stop the other tasks.
+     */
+    @NonNull
+    private final AtomicBoolean different;
+
+    ParallelEquals(@NonNull Comparison outer, @NonNull Object[] first, @NonNull Object[] second,
+      int from, int to, @NonNull AtomicBoolean different) {
+      this.outer = outer;
+      this.first = first;
+      this.second = second;
+      this.from = from;
+      this.to = to;
+      this.different = different;
+    }
+
+    @Override
+    protected Boolean compute() {
+      if (to - from > threshold) {
+        int middle = (from + to) >>> 1;
+        ParallelEquals left = new ParallelEquals(outer, first, second, from, middle, different);
+        left.fork();
+        boolean equal = new ParallelEquals(outer, first, second, middle, to, different).compute();
+        return left.join() && equal;
+      }
+      Comparison comparison = new Comparison(outer);
+      for (int i = from; i < to; i++) {
+        if (different.get()) {
+          return false;
+        }
+        if (!comparison.equal(first[i], second[i])) {
+          different.set(true);
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The state of a single hashing: the hash codes already computed, by object and levels left.
+   */
+  private final class Hashing {
+
+    /**
+     * The hashing that split the collection this one hashes part of, <code>null</code> if none.
+     * Blocked until this one completes, its hash codes are only read.
+     */
+    @CheckForNull
+    private final Hashing outer;
+
+    /**
+     * The hash codes of the objects, by the levels left, followed by the bit set of the levels
+     * computed.
+     */
+    @NonNull
+    private final Map<Object, int[]> hashes = new IdentityHashMap<Object, int[]>();
+
+    Hashing(@CheckForNull Hashing outer) {
+      this.outer = outer;
+    }
+
+    /**
+     * Hashes an object and what it reaches within the specified number of levels.
+     */
+    int hash(@CheckForNull Object value, int depth) throws Throwable {
+      if (value == null) {
+        return 0;
+      }
+      Plan plan = plans.get(value.getClass());
+      switch (plan.kind) {
+        case VALUE:
+          return value.hashCode();
+        case PRIMITIVES:
+          return primitiveArrayHash(value);
+        default:
+          // leaves reach values only, they are hashed whole
+          if (depth == 0 && !(plan.kind == Kind.FIELDS && plan.leaf)) {
+            return value.getClass().getName().hashCode();
+          }
+          for (Hashing hashing = this; hashing != null; hashing = hashing.outer) {
+            int[] known = hashing.hashes.get(value);
+            if (known != null && (known[HASH_DEPTH + 1] & 1 << depth) != 0) {
+              return known[depth];
+            }
+          }
+          int hash = compute(value, plan, depth);
+          int[] known = hashes.get(value);
+          if (known == null) {
+            known = new int[HASH_DEPTH + 2];
+            hashes.put(value, known);
+          }
+          known[depth] = hash;
+          known[HASH_DEPTH + 1] |= 1 << depth;
+          return hash;
+      }
+    }
+
+    private int compute(@NonNull Object value, @NonNull Plan plan, int depth) throws Throwable {
+      int hash;
+      switch (plan.kind) {
+        case FIELDS:
+          MethodHandle primitivesHash = plan.primitivesHash;
+          hash = primitivesHash == null ? 1 : (int) primitivesHash.invokeExact(value);
+          for (MethodHandle getter : plan.references) {
+            hash = 31 * hash + hash((Object) getter.invokeExact(value), depth - 1);
+          }
+          return hash;
+        case MAP:
+          hash = 0;
+          for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            hash += Objects.hashCode(entry.getKey()) ^ hash(entry.getValue(), depth - 1);
+          }
+          return hash;
+        default:
+          // the collections reached by a task are not split again, its hash codes are its own
+          Object[] elements = outer == null ? splittable(value, plan.kind) : null;
+          if (elements != null) {
+            return pow31(elements.length) + invoke(new ParallelHash(this, elements, 0, elements.length, depth - 1)).intValue();
+          }
+          hash = 1;
+          if (plan.kind == Kind.ARRAY) {
+            for (Object element : (Object[]) value) {
+              hash = 31 * hash + hash(element, depth - 1);
+            }
+          } else {
+            for (Object element : (Collection<?>) value) {
+              hash = 31 * hash + hash(element, depth - 1);
+            }
+          }
+          return hash;
+      }
+    }
+  }
+
+  /**
+   * Hashes a range of elements as <code>sum(31^(to - 1 - i) * hash(element[i]))</code>, splitting
+   * it among tasks when too large.
+   */
+  private final class ParallelHash extends RecursiveTask<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The hashing that split the collection.
+     */
+    @NonNull
+    private final Hashing outer;
+
+    @NonNull
+    private final Object[] elements;
+
+    private final int from;
+
+    private final int to;
+
+    /**
+     * The levels left for the elements.
+     */
+    private final int depth;
+
+    ParallelHash(@NonNull Hashing outer, @NonNull Object[] elements, int from, int to, int depth) {
+      this.outer = outer;
+      this.elements = elements;
+      this.from = from;
+      this.to = to;
+      this.depth = depth;
+    }
+
+    @Override
+    protected Integer compute() {
+      if (to - from > threshold) {
+        int middle = (from + to) >>> 1;
+        ParallelHash left = new ParallelHash(outer, elements, from, middle, depth);
+        left.fork();
+        int right = new ParallelHash(outer, elements, middle, to, depth).compute().intValue();
+        return Integer.valueOf(left.join().intValue() * pow31(to - middle) + right);
+      }
+      Hashing hashing = new Hashing(outer);
+      try {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+          hash = 31 * hash + hashing.hash(elements[i], depth);
+        }
+        return Integer.valueOf(hash);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * Two objects compared, by identity.
+   */
+  private static final class Pair {
+
+    @NonNull
+    private final Object first;
+
+    @NonNull
+    private final Object second;
+
+    Pair(@NonNull Object first, @NonNull Object second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(first) * 31 + System.identityHashCode(second);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Pair)) {
+        return false;
+      }
+      Pair other = (Pair) obj;
+      return first == other.first && second == other.second;
+    }
+  }
+}
@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Cache of the accessors behind the one-shot accesses by name, such as
+ * {@link Accessors#accessField(String, Object)}, keyed by the runtime class of the target and the
+ * member name, plus the classes of the arguments for methods.
+ * <p>
+ * Each class has its own tables, kept in a {@link ClassValue}, so the cache doesn't keep the
+ * classes, nor their class loaders, reachable; the classes of the arguments are held weakly.
+ * </p>
+ * <p>
+ * A table is made of {@value #SETS} sets of two entries each, so it is bounded however many names
+ * go through it. A lookup checks the two entries of a single set, as a polymorphic inline cache
+ * checks its receiver classes, and does not lock. On a miss, the new entry replaces one that was
+ * not hit since the last replacement in its set, if any, so the accessors used repeatedly stay
+ * while the ones used once are evicted.
+ * </p>
+ * <p>
+ * Entries are immutable apart from their hit flag, and are published with racy writes: a lost
+ * write only means another miss.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class InlineCache {
+
+  /**
+   * The number of sets of the tables of each class; a power of two.
+   */
+  static final int SETS = 16;
+
+  private static final ClassValue<InlineCache> CACHES = new ClassValue<InlineCache>() {
+    @Override
+    protected InlineCache computeValue(Class<?> type) {
+      return new InlineCache();
+    }
+  };
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static final WeakReference<Class<?>>[] NO_CLASSES = new WeakReference[0];
+
+  @NonNull
+  private final Entry[] fields = new Entry[SETS * 2];
+
+  @NonNull
+  private final Entry[] methods = new Entry[SETS * 2];
+
+  private InlineCache() {
+    // one for each class
+  }
+
+  /**
+   * Returns the accessor of a non static field, from the cache or creating it.
+   * 
+   * @param type
+   *          the runtime class of the target.
+   * @param name
+   *          the field name.
+   * @return the accessor.
+   * @throws RuntimeException
+   *           if there is no such field.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull
+  static FieldAccessor<Object, Object> field(@NonNull Class<?> type, @NonNull String name) {
+    Entry[] fields = CACHES.get(type).fields;
+    int set = set(name);
+    Entry entry = fields[set];
+    if (entry == null || !entry.name.equals(name)) {
+      entry = fields[set + 1];
+      if (entry == null || !entry.name.equals(name)) {
+        entry = new Entry(name, NO_CLASSES, new FieldAccessor<Object, Object>(name, (Class<Object>) type));
+        insert(fields, set, entry);
+        return (FieldAccessor<Object, Object>) entry.accessor;
+      }
+    }
+    entry.hit = true;
+    return (FieldAccessor<Object, Object>) entry.accessor;
+  }
+
+  /**
+   * Returns the accessor of the method applicable to the specified arguments, from the cache or
+   * resolving it as described by {@link Accessors#invoke(String, Object, Object...)}.
+   * 
+   * @param type
+   *          the runtime class of the target.
+   * @param name
+   *          the method name.
+   * @param args
+   *          the arguments.
+   * @return the accessor.
+   * @throws RuntimeException
+   *           if there is no applicable method.
+   * @throws IllegalArgumentException
+   *           if more than one method is applicable and none is the most specific.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull
+  static UnboundMethodAccessor<Object, Object> method(@NonNull Class<?> type,
+    @NonNull String name, @NonNull Object[] args) {
+    Entry[] methods = CACHES.get(type).methods;
+    int set = set(name) ^ ((args.length << 1) & (SETS * 2 - 1));
+    Entry entry = methods[set];
+    if (entry == null || !entry.matches(name, args)) {
+      entry = methods[set + 1];
+      if (entry == null || !entry.matches(name, args)) {
+        Method method = applicable(type, name, args);
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        WeakReference<Class<?>>[] classes = new WeakReference[args.length];
+        for (int i = 0; i < args.length; i++) {
+          classes[i] = args[i] == null ? null : new WeakReference<Class<?>>(args[i].getClass());
+        }
+        entry = new Entry(name, classes, new UnboundMethodAccessor<Object, Object>(method));
+        insert(methods, set, entry);
+        return (UnboundMethodAccessor<Object, Object>) entry.accessor;
+      }
+    }
+    entry.hit = true;
+    return (UnboundMethodAccessor<Object, Object>) entry.accessor;
+  }
+
+  /**
+   * @return the index of the first entry of the set for the key.
+   */
+  private static int set(@NonNull String name) {
+    int hash = name.hashCode();
+    return ((hash ^ hash >>> 16) & (SETS - 1)) << 1;
+  }
+
+  /**
+   * Stores an entry in a set, replacing the one not hit since the last replacement, if any.
+   */
+  private static void insert(@NonNull Entry[] table, int set, @NonNull Entry entry) {
+    Entry first = table[set];
+    Entry second = table[set + 1];
+    // racy but idempotent, entries are immutable but for the hit flag
+    if (first == null || (second != null && !first.hit)) {
+      table[set] = entry;
+      if (second != null) {
+        second.hit = false;
+      }
+    } else {
+      table[set + 1] = entry;
+      first.hit = false;
+    }
+  }
+
+  /**
+   * Finds the method with the specified name and as many parameters as the arguments, accepting
+   * them, declared in the hierarchy of the class, {@link Object} included, or as a default method
+   * of its interfaces.
+   * <p>
+   * As the Java compiler does, the methods accepting the arguments without unboxing them are
+   * preferred to the ones that need unboxing; among the preferred ones, the most specific is
+   * chosen.
+   * </p>
+   */
+  @NonNull
+  private static Method applicable(@NonNull Class<?> type, @NonNull String name,
+    @NonNull Object[] args) {
+    List<Method> candidates = candidates(type, name, args, false);
+    if (candidates.isEmpty()) {
+      candidates = candidates(type, name, args, true);
+    }
+    if (candidates.isEmpty()) {
+      throw new RuntimeException("No such method: " + name + " applicable to " + args.length + " arguments");
+    }
+    Method found = null;
+    for (Method candidate : candidates) {
+      if (mostSpecific(candidate, candidates)) {
+        if (found != null) {
+          found = null;
+          break;
+        }
+        found = candidate;
+      }
+    }
+    if (found == null) {
+      throw new IllegalArgumentException("Ambiguous method: " + name + " among " + candidates);
+    }
+    if (!found.trySetAccessible()) {
+      throw new RuntimeException("Inaccessible method: " + found);
+    }
+    return found;
+  }
+
+  /**
+   * Collects the methods accepting the arguments, first the ones of the classes, from the class
+   * up, then the default methods of their interfaces, each interface before the ones it extends,
+   * skipping those overridden by a method already collected.
+   */
+  @NonNull
+  private static List<Method> candidates(@NonNull Class<?> type, @NonNull String name,
+    @NonNull Object[] args, boolean unboxing) {
+    List<Method> candidates = new ArrayList<Method>();
+    ArrayDeque<Class<?>> interfaces = new ArrayDeque<Class<?>>();
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      collect(current, name, args, unboxing, candidates);
+      interfaces.addAll(Arrays.asList(current.getInterfaces()));
+    }
+    Set<Class<?>> visited = new HashSet<Class<?>>();
+    while (!interfaces.isEmpty()) {
+      Class<?> current = interfaces.poll();
+      if (visited.add(current)) {
+        collect(current, name, args, unboxing, candidates);
+        interfaces.addAll(Arrays.asList(current.getInterfaces()));
+      }
+    }
+    return candidates;
+  }
+
+  private static void collect(@NonNull Class<?> declaring, @NonNull String name,
+    @NonNull Object[] args, boolean unboxing, @NonNull List<Method> candidates) {
+    for (Method method : declaring.getDeclaredMethods()) {
+      if (method.getName().equals(name) && !method.isSynthetic() && (!declaring.isInterface() || method.isDefault()) && accepts(method.getParameterTypes(), args, unboxing) && !overridden(method, candidates)) {
+        candidates.add(method);
+      }
+    }
+  }
+
+  /**
+   * @param unboxing
+   *          whether primitive parameters accept the instances of their wrapper.
+   */
+  private static boolean accepts(@NonNull Class<?>[] parameterTypes, @NonNull Object[] args,
+    boolean unboxing) {
+    if (parameterTypes.length != args.length) {
+      return false;
+    }
+    for (int i = 0; i < args.length; i++) {
+      Class<?> parameterType = parameterTypes[i];
+      if (parameterType.isPrimitive()) {
+        if (!unboxing || !MethodType.methodType(parameterType).wrap().returnType().isInstance(args[i])) {
+          return false;
+        }
+      } else if (args[i] != null && !parameterType.isInstance(args[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return whether a method with the same parameters was already found in a subclass.
+   */
+  private static boolean overridden(@NonNull Method method, @NonNull List<Method> candidates) {
+    for (Method candidate : candidates) {
+      if (Arrays.equals(candidate.getParameterTypes(), method.getParameterTypes())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return whether each parameter of the method is assignable to the ones of all the others.
+   */
+  private static boolean mostSpecific(@NonNull Method method, @NonNull List<Method> candidates) {
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    for (Method candidate : candidates) {
+      Class<?>[] other = candidate.getParameterTypes();
+      for (int i = 0; i < parameterTypes.length; i++) {
+        if (!other[i].isAssignableFrom(parameterTypes[i])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * An accessor with its key within the class.
+   */
+  private static final class Entry {
+
+    @NonNull
+    final String name;
+
+    /**
+     * The classes of the arguments, <code>null</code> for <code>null</code> arguments; once a
+     * class is unloaded, the entry matches no arguments.
+     */
+    @NonNull
+    final WeakReference<Class<?>>[] classes;
+
+    @NonNull
+    final Object accessor;
+
+    /**
+     * Whether the entry was hit since the last replacement in its set.
+     */
+    boolean hit;
+
+    Entry(@NonNull String name, @NonNull WeakReference<Class<?>>[] classes,
+      @NonNull Object accessor) {
+      this.name = name;
+      this.classes = classes;
+      this.accessor = accessor;
+    }
+
+    boolean matches(@NonNull String name, @NonNull Object[] args) {
+      if (classes.length != args.length || !this.name.equals(name)) {
+        return false;
+      }
+      for (int i = 0; i < args.length; i++) {
+        Object arg = args[i];
+        WeakReference<Class<?>> type = classes[i];
+        if (type == null ? arg != null : arg == null || type.get() != arg.getClass()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
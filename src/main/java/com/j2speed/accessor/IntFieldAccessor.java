@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Allow to access a private <code>int</code> field of a class without boxing its value.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ * 
+ * @param <T>
+ *          the type of the target type which hierarchy contains the field.
+ */
+public class IntFieldAccessor<T> extends BaseFieldAccessor<T, Integer> {
+
+  /**
+   * The getter for the field, with type <code>(Object)int</code>.
+   */
+  @NonNull
+  private final MethodHandle intGetter;
+
+  /**
+   * The setter for the field, with type <code>(Object,int)void</code>.
+   */
+  @CheckForNull
+  private final MethodHandle intSetter;
+
+  /**
+   * Generic builder. Convenience to remove generics pollution while creating an accessor.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class from which to start searching the field
+   * @return an instance of {@link IntFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> IntFieldAccessor<T> make(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new IntFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class from which to start searching the field
+   * @throws IllegalArgumentException
+   *           if the field is static or is not of type <code>int</code>.
+   */
+  public IntFieldAccessor(@NonNull String fieldName, @NonNull Class<? extends T> type) {
+    super(fieldName, type);
+    checkNotStatic();
+    checkType(int.class);
+    intGetter = getter(int.class);
+    intSetter = setter(int.class);
+  }
+
+  /**
+   * Gets the value of the field.
+   * 
+   * @param target
+   *          the instance from which to get the value.
+   * @return the current field value.
+   */
+  public final int getInt(@NonNull T target) {
+    try {
+      return (int) intGetter.invokeExact((Object) target);
+    } catch (Throwable e) {
+      throw accessFailure(e);
+    }
+  }
+
+  /**
+   * Sets the value for the field.
+   * 
+   * @param target
+   *          the target instance on which to set the new value.
+   * @param value
+   *          the value to set.
+   */
+  public final void setInt(@NonNull T target, int value) {
+    MethodHandle setter = checkWritable(intSetter);
+    try {
+      setter.invokeExact((Object) target, value);
+    } catch (Throwable e) {
+      throw accessFailure(e);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * An accessor to a method that returns an <code>int</code>, which is invoked without boxing
+ * the result.
+ * <p>
+ * Arguments of type <code>int</code>, <code>long</code> and <code>double</code> of single argument
+ * methods are not boxed either.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class IntMethodAccessor extends AbstractMethodAccessor<Integer> {
+
+  /**
+   * Builder, mirroring {@link MethodAccessor#make(String, Object, Class...)}.
+   * 
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   * @return an instance of {@link IntMethodAccessor}.
+   */
+  @NonNull
+  public static IntMethodAccessor make(@NonNull String methodName, @NonNull Object target,
+    @NonNull Class<?>... parametersType) {
+    return new IntMethodAccessor(methodName, target, parametersType);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   * @throws IllegalArgumentException
+   *           if the method does not return <code>int</code>.
+   */
+  public IntMethodAccessor(@NonNull String methodName, @NonNull Object target,
+    @NonNull Class<?>... parametersType) {
+    super(methodName, target, parametersType);
+    checkReturnType(int.class);
+  }
+
+  /**
+   * Invoke the method using the specified parameters.
+   * 
+   * @param args
+   *          the arguments for the method.
+   * @return the result of the method.
+   */
+  public final int invokeAsInt(@NonNull Object... args) {
+    try {
+      return (int) spreader().invokeExact(checkArguments(args));
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invoke the method with no arguments.
+   * 
+   * @return the result of the method.
+   */
+  public final int invokeAsInt() {
+    try {
+      return (int) exactHandle().invoke();
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invoke the method with an <code>int</code> argument, without boxing it if the method takes a
+   * primitive.
+   * 
+   * @param arg0
+   *          the argument.
+   * @return the result of the method.
+   */
+  public final int invokeAsInt(int arg0) {
+    try {
+      return (int) exactHandle().invoke(arg0);
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invoke the method with a <code>long</code> argument, without boxing it if the method takes a
+   * primitive.
+   * 
+   * @param arg0
+   *          the argument.
+   * @return the result of the method.
+   */
+  public final int invokeAsInt(long arg0) {
+    try {
+      return (int) exactHandle().invoke(arg0);
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invoke the method with a <code>double</code> argument, without boxing it if the method takes a
+   * primitive.
+   * 
+   * @param arg0
+   *          the argument.
+   * @return the result of the method.
+   */
+  public final int invokeAsInt(double arg0) {
+    try {
+      return (int) exactHandle().invoke(arg0);
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+
+  /**
+   * Invoke the method with a single argument.
+   * 
+   * @param arg0
+   *          the argument.
+   * @return the result of the method.
+   */
+  public final int invokeAsInt(Object arg0) {
+    try {
+      return (int) exactHandle().invoke(arg0);
+    } catch (Throwable e) {
+      throw invocationFailure(e);
+    }
+  }
+}
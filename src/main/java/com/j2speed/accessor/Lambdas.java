@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Implements functional interfaces with private methods and constructors.
+ * <p>
+ * The implementation is spun by {@link LambdaMetafactory} exactly as for a lambda expression or a
+ * method reference written in the class declaring the member, so that the JIT can inline through
+ * it. Arguments and results are adapted as for method references: boxing, unboxing, widening and
+ * casts.
+ * </p>
+ * <p>
+ * When the metafactory cannot be used, because the declaring class cannot be opened to this
+ * library or the interface is not visible from it, the interface is implemented by
+ * {@link MethodHandleProxies} instead, which is slower but has the same behavior.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class Lambdas {
+
+  private Lambdas() {/* static utility */}
+
+  /**
+   * Implements the functional interface with the specified method.
+   * 
+   * @param <F>
+   *          the type of the functional interface.
+   * @param type
+   *          the functional interface.
+   * @param method
+   *          the accessible method.
+   * @param receiver
+   *          the instance on which the method is invoked, captured by the implementation, or
+   *          <code>null</code> to take it as the first parameter of the interface method. Ignored
+   *          for static methods.
+   * @return the implementation of the interface.
+   * @throws IllegalArgumentException
+   *           if the type is not a functional interface or its method is not compatible with the
+   *           method.
+   */
+  @NonNull
+  static <F> F bind(@NonNull Class<F> type, @NonNull Method method, @CheckForNull Object receiver) {
+    Class<?> host = method.getDeclaringClass();
+    Lookup lookup = privateLookup(host);
+    try {
+      MethodHandle direct = (lookup != null ? lookup : MethodHandles.lookup()).unreflect(method);
+      boolean capture = receiver != null && !Modifier.isStatic(method.getModifiers());
+      return bind(type, lookup, direct, capture ? new Object[] { receiver } : new Object[0]);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Implements the functional interface with the specified constructor.
+   * 
+   * @param <F>
+   *          the type of the functional interface.
+   * @param type
+   *          the functional interface.
+   * @param constructor
+   *          the accessible constructor.
+   * @param enclosing
+   *          the enclosing instance captured by the implementation, for inner classes.
+   * @return the implementation of the interface.
+   * @throws IllegalArgumentException
+   *           if the type is not a functional interface or its method is not compatible with the
+   *           constructor.
+   */
+  @NonNull
+  static <F> F bind(@NonNull Class<F> type, @NonNull Constructor<?> constructor,
+    @CheckForNull Object enclosing) {
+    Class<?> host = constructor.getDeclaringClass();
+    Lookup lookup = privateLookup(host);
+    try {
+      MethodHandle direct = (lookup != null ? lookup : MethodHandles.lookup()).unreflectConstructor(constructor);
+      return bind(type, lookup, direct, enclosing != null ? new Object[] { enclosing } : new Object[0]);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @NonNull
+  private static <F> F bind(@NonNull Class<F> type, @CheckForNull Lookup lookup,
+    @NonNull MethodHandle direct, @NonNull Object[] captured) {
+    if (!type.isInterface()) {
+      throw new IllegalArgumentException(type + " is not an interface");
+    }
+    Method sam = singleAbstractMethod(type);
+    if (lookup != null && sam != null) {
+      MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+      MethodType implType = direct.type().dropParameterTypes(0, captured.length);
+      if (implType.parameterCount() != samType.parameterCount()) {
+        throw new IllegalArgumentException("wrong number of parameters: " + samType.parameterCount() + " expected: " + implType.parameterCount());
+      }
+      MethodType factoryType = MethodType.methodType(type, direct.type().parameterList().subList(0, captured.length));
+      try {
+        CallSite site = LambdaMetafactory.metafactory(lookup, sam.getName(), factoryType, samType, direct, instantiate(samType, implType));
+        return type.cast(site.getTarget().invokeWithArguments(captured));
+      } catch (LambdaConversionException e) {
+        throw new IllegalArgumentException(e);
+      } catch (LinkageError e) {
+        // the interface cannot be implemented next to the host
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+    try {
+      return MethodHandleProxies.asInterfaceInstance(type, MethodHandles.insertArguments(direct, 0, captured));
+    } catch (WrongMethodTypeException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Narrows the reference parameters of the interface method to the parameters of the
+   * implementation, as the compiler does for method references, since the metafactory does not
+   * insert casts on the arguments.
+   */
+  @NonNull
+  private static MethodType instantiate(@NonNull MethodType samType, @NonNull MethodType implType) {
+    MethodType instantiated = samType;
+    for (int i = 0; i < samType.parameterCount(); i++) {
+      Class<?> parameter = samType.parameterType(i);
+      Class<?> implParameter = implType.wrap().parameterType(i);
+      if (!parameter.isPrimitive() && parameter.isAssignableFrom(implParameter)) {
+        instantiated = instantiated.changeParameterType(i, implParameter);
+      }
+    }
+    return instantiated;
+  }
+
+  /**
+   * Returns the only abstract method of the interface, or <code>null</code> if it has several
+   * ones, as when a generic method is specialized by a sub interface.
+   */
+  @CheckForNull
+  private static Method singleAbstractMethod(@NonNull Class<?> type) {
+    Method sam = null;
+    for (Method method : type.getMethods()) {
+      if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) {
+        continue;
+      }
+      if (sam == null) {
+        sam = method;
+      } else if (!sam.getName().equals(method.getName()) || !Arrays.equals(sam.getParameterTypes(), method.getParameterTypes())) {
+        return null;
+      }
+    }
+    if (sam == null) {
+      throw new IllegalArgumentException(type + " is not a functional interface");
+    }
+    return sam;
+  }
+
+  /**
+   * Checks whether the interface method redeclares a public method of {@link Object}, as
+   * {@link java.util.Comparator#equals(Object)} does.
+   */
+  private static boolean isObjectMethod(@NonNull Method method) {
+    try {
+      Object.class.getMethod(method.getName(), method.getParameterTypes());
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a lookup with full privilege access on the host, required by the metafactory, or
+   * <code>null</code> if the host cannot be opened to this library.
+   */
+  @CheckForNull
+  private static Lookup privateLookup(@NonNull Class<?> host) {
+    if (host.isHidden() || host.isArray() || host.isPrimitive()) {
+      return null;
+    }
+    try {
+      Lookup lookup = MethodHandles.privateLookupIn(host, MethodHandles.lookup());
+      return lookup.hasFullPrivilegeAccess() ? lookup : null;
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+}
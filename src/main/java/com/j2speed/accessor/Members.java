@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Process wide cache of the members resolved by the accessors.
+ * <p>
+ * Each class gets, through a {@link ClassValue}, the index of its declared members, built once from
+ * a single call to {@link Class#getDeclaredFields()}, {@link Class#getDeclaredMethods()} or
+ * {@link Class#getDeclaredConstructors()}, and the members already resolved starting from it. The
+ * hierarchy is therefore walked without any exception thrown, and only the first time a member is
+ * requested. Being attached to the classes themselves, the cache does not prevent class loaders from
+ * being unloaded.
+ * </p>
+ * <p>
+ * The resolved members are made accessible and shared by all the accessors, which must never
+ * change them.
+ * </p>
+ *
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class Members {
+
+  private static final ClassValue<Members> MEMBERS = new ClassValue<Members>() {
+    @Override
+    protected Members computeValue(Class<?> type) {
+      return new Members(type);
+    }
+  };
+
+  @NonNull
+  private final Class<?> type;
+
+  /**
+   * The fields declared by the class, by name; built on first use.
+   */
+  @CheckForNull
+  private volatile Map<String, Field> declaredFields;
+
+  /**
+   * The methods declared by the class, by signature; built on first use.
+   */
+  @CheckForNull
+  private volatile Map<Signature, Method> declaredMethods;
+
+  /**
+   * The fields resolved in the hierarchy starting from this class.
+   */
+  @NonNull
+  private final ConcurrentMap<String, Field> fields = new ConcurrentHashMap<String, Field>();
+
+  /**
+   * The methods resolved in the hierarchy starting from this class.
+   */
+  @NonNull
+  private final ConcurrentMap<Signature, Method> methods = new ConcurrentHashMap<Signature, Method>();
+
+  /**
+   * The constructors declared by the class.
+   */
+  @NonNull
+  private final ConcurrentMap<Signature, Constructor<?>> constructors = new ConcurrentHashMap<Signature, Constructor<?>>();
+
+  private Members(@NonNull Class<?> type) {
+    this.type = type;
+  }
+
+  /**
+   * Searches for a field starting from the specified class and going up the hierarchy until the
+   * field is found or the {@link Object} class is reached.
+   *
+   * @param cls
+   *          the class from which to start
+   * @param name
+   *          the field name
+   * @return the accessible {@link Field} found
+   * @throws RuntimeException
+   *           if the field cannot be found within the specified class hierarchy.
+   */
+  @NonNull
+  static Field field(@NonNull Class<?> cls, @NonNull String name) {
+    Field field = findField(cls, name);
+    if (field == null) {
+      throw new RuntimeException("No such field: " + name);
+    }
+    return field;
+  }
+
+  /**
+   * Searches for a field as {@link #field(Class, String)} does, without failing.
+   *
+   * @return the accessible {@link Field} found, <code>null</code> if none.
+   */
+  @CheckForNull
+  static Field findField(@NonNull Class<?> cls, @NonNull String name) {
+    Members members = MEMBERS.get(cls);
+    Field field = members.fields.get(name);
+    if (field == null) {
+      for (Class<?> current = cls; current != Object.class && current != null; current = current.getSuperclass()) {
+        field = MEMBERS.get(current).declaredFields().get(name);
+        if (field != null) {
+          field.setAccessible(true);
+          Field previous = members.fields.putIfAbsent(name, field);
+          return previous == null ? field : previous;
+        }
+      }
+    }
+    return field;
+  }
+
+  /**
+   * Searches for a method starting from the specified class and going up the hierarchy until the
+   * method is found or the {@link Object} class is reached.
+   *
+   * @param cls
+   *          the class from which to start
+   * @param name
+   *          the method name
+   * @param parametersType
+   *          the parameters signature.
+   * @return the accessible {@link Method} found
+   * @throws RuntimeException
+   *           if the method cannot be found within the specified class hierarchy.
+   */
+  @NonNull
+  static Method method(@NonNull Class<?> cls, @NonNull String name,
+    @NonNull Class<?>... parametersType) {
+    Method method = findMethod(cls, name, parametersType);
+    if (method == null) {
+      throw new RuntimeException("No such method: " + name + "(" + Arrays.toString(parametersType) + ")");
+    }
+    return method;
+  }
+
+  /**
+   * Searches for a method as {@link #method(Class, String, Class...)} does, without failing.
+   *
+   * @return the accessible {@link Method} found, <code>null</code> if none.
+   */
+  @CheckForNull
+  static Method findMethod(@NonNull Class<?> cls, @NonNull String name,
+    @NonNull Class<?>... parametersType) {
+    Members members = MEMBERS.get(cls);
+    Signature signature = new Signature(name, parametersType);
+    Method method = members.methods.get(signature);
+    if (method == null) {
+      for (Class<?> current = cls; current != Object.class && current != null; current = current.getSuperclass()) {
+        method = MEMBERS.get(current).declaredMethods().get(signature);
+        if (method != null) {
+          method.setAccessible(true);
+          Method previous = members.methods.putIfAbsent(signature.copy(), method);
+          return previous == null ? method : previous;
+        }
+      }
+    }
+    return method;
+  }
+
+  /**
+   * Searches for a constructor declared by the specified class.
+   *
+   * @param cls
+   *          the class declaring the constructor
+   * @param parameterTypes
+   *          the parameters signature.
+   * @return the accessible {@link Constructor} found
+   * @throws NoSuchMethodException
+   *           if the class does not declare the constructor.
+   */
+  @NonNull
+  static Constructor<?> constructor(@NonNull Class<?> cls, @NonNull Class<?>... parameterTypes)
+    throws NoSuchMethodException {
+    Members members = MEMBERS.get(cls);
+    Signature signature = new Signature(null, parameterTypes);
+    Constructor<?> constructor = members.constructors.get(signature);
+    if (constructor == null) {
+      constructor = cls.getDeclaredConstructor(parameterTypes);
+      constructor.setAccessible(true);
+      Constructor<?> previous = members.constructors.putIfAbsent(signature.copy(), constructor);
+      return previous == null ? constructor : previous;
+    }
+    return constructor;
+  }
+
+  @NonNull
+  private Map<String, Field> declaredFields() {
+    Map<String, Field> fields = declaredFields;
+    if (fields == null) {
+      Field[] declared = type.getDeclaredFields();
+      fields = new HashMap<String, Field>(declared.length * 2);
+      for (Field field : declared) {
+        fields.put(field.getName(), field);
+      }
+      declaredFields = fields;
+    }
+    return fields;
+  }
+
+  @NonNull
+  private Map<Signature, Method> declaredMethods() {
+    Map<Signature, Method> methods = declaredMethods;
+    if (methods == null) {
+      Method[] declared = type.getDeclaredMethods();
+      methods = new HashMap<Signature, Method>(declared.length * 2);
+      for (Method method : declared) {
+        Signature signature = new Signature(method.getName(), method.getParameterTypes());
+        Method other = methods.get(signature);
+        // same choice as getDeclaredMethod on covariant returns: the most specific wins
+        if (other == null || other.getReturnType().isAssignableFrom(method.getReturnType())) {
+          methods.put(signature, method);
+        }
+      }
+      declaredMethods = methods;
+    }
+    return methods;
+  }
+
+  /**
+   * Name and parameters of a method or constructor.
+   */
+  private static final class Signature {
+
+    @CheckForNull
+    private final String name;
+
+    @NonNull
+    private final Class<?>[] parameterTypes;
+
+    private final int hash;
+
+    Signature(@CheckForNull String name, @CheckForNull Class<?>[] parameterTypes) {
+      this.name = name;
+      this.parameterTypes = parameterTypes == null ? new Class<?>[0] : parameterTypes;
+      this.hash = (name == null ? 0 : name.hashCode()) * 31 + Arrays.hashCode(this.parameterTypes);
+    }
+
+    /**
+     * @return a copy safe to be stored, since parameters arrays come from the callers.
+     */
+    @NonNull
+    Signature copy() {
+      return new Signature(name, parameterTypes.clone());
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Signature)) {
+        return false;
+      }
+      Signature other = (Signature) obj;
+      return hash == other.hash && (name == null ? other.name == null : name.equals(other.name)) && Arrays.equals(parameterTypes, other.parameterTypes);
+    }
+  }
+}
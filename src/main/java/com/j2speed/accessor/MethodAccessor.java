@@ -15,6 +15,9 @@
  */
 package com.j2speed.accessor;
 
+import java.lang.reflect.Method;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.MethodAccess;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
@@ -48,6 +51,27 @@ public class MethodAccessor<T> extends AbstractMethodAccessor<T> {
     return new MethodAccessor<T>(methodName, target, parametersType);
   }
 
+  /**
+   * Generic builder invoking the method through the specified strategy.
+   * 
+   * @param <T>
+   *          the return type of the method
+   * 
+   * @param strategy
+   *          the strategy creating the access to the method.
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   * @return an instance of {@link MethodAccessor} with the specified generic parameters.
+   */
+  public static <T> MethodAccessor<T> make(@NonNull AccessStrategy strategy,
+    @NonNull String methodName, Object target, @NonNull Class<?>... parametersType) {
+    return new MethodAccessor<T>(strategy, methodName, target, parametersType);
+  }
+
   /**
    * Constructor.
    * 
@@ -63,6 +87,38 @@ public class MethodAccessor<T> extends AbstractMethodAccessor<T> {
     super(methodName, target, parametersType);
   }
 
+  /**
+   * Constructor invoking the method through the specified strategy, instead of the one selected by
+   * {@link AccessStrategies}.
+   * 
+   * @param strategy
+   *          the strategy creating the access to the method.
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   */
+  public MethodAccessor(@NonNull AccessStrategy strategy, @NonNull String methodName,
+    Object target, @NonNull Class<?>... parametersType) {
+    super(checkStrategy(strategy), methodName, target, parametersType);
+  }
+
+  /**
+   * Constructor for an already resolved method.
+   * 
+   * @param method
+   *          the method to invoke
+   * @param access
+   *          the backend invoking the method
+   * @param target
+   *          the target object
+   */
+  MethodAccessor(@NonNull Method method, @NonNull MethodAccess access, @NonNull Object target) {
+    super(method, access, target);
+  }
+
   /**
    * Invoke the method using the specified parameters.
    * 
@@ -73,4 +129,106 @@ public class MethodAccessor<T> extends AbstractMethodAccessor<T> {
   public T invoke(@NonNull Object... args) {
     return super.invokeBase(args);
   }
+
+  /**
+   * Invoke the method with no arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} if the method takes any argument.
+   * </p>
+   * 
+   * @return the result of the specified type.
+   */
+  public T invoke0() {
+    return super.invokeBase0();
+  }
+
+  /**
+   * Invoke the method with one argument, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes one argument.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @return the result of the specified type.
+   */
+  public T invoke1(Object arg0) {
+    return super.invokeBase1(arg0);
+  }
+
+  /**
+   * Invoke the method with two arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes two arguments.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @param arg1
+   *          the second argument.
+   * @return the result of the specified type.
+   */
+  public T invoke2(Object arg0, Object arg1) {
+    return super.invokeBase2(arg0, arg1);
+  }
+
+  /**
+   * Invoke the method with three arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes three arguments.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @param arg1
+   *          the second argument.
+   * @param arg2
+   *          the third argument.
+   * @return the result of the specified type.
+   */
+  public T invoke3(Object arg0, Object arg1, Object arg2) {
+    return super.invokeBase3(arg0, arg1, arg2);
+  }
+
+  /**
+   * Invoke the method with four arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes four arguments.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @param arg1
+   *          the second argument.
+   * @param arg2
+   *          the third argument.
+   * @param arg3
+   *          the fourth argument.
+   * @return the result of the specified type.
+   */
+  public T invoke4(Object arg0, Object arg1, Object arg2, Object arg3) {
+    return super.invokeBase4(arg0, arg1, arg2, arg3);
+  }
+
+  /**
+   * Invoke the method with five arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes five arguments.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @param arg1
+   *          the second argument.
+   * @param arg2
+   *          the third argument.
+   * @param arg3
+   *          the fourth argument.
+   * @param arg4
+   *          the fifth argument.
+   * @return the result of the specified type.
+   */
+  public T invoke5(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4) {
+    return super.invokeBase5(arg0, arg1, arg2, arg3, arg4);
+  }
 }
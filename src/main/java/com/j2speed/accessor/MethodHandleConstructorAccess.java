@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A {@link ConstructorAccess} backed by an unreflected {@link MethodHandle}.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class MethodHandleConstructorAccess implements ConstructorAccess {
+
+  /**
+   * The handle, with type <code>(Object[])Object</code>.
+   */
+  @NonNull
+  private final MethodHandle handle;
+
+  MethodHandleConstructorAccess(@NonNull Constructor<?> constructor) {
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflectConstructor(constructor);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+    handle = AbstractMethodAccessor.wrapTargetExceptions(handle);
+    this.handle = handle.asSpreader(Object[].class, constructor.getParameterCount()).asType(MethodType.methodType(Object.class, Object[].class));
+  }
+
+  @Override
+  public Object newInstance(Object[] args) throws InvocationTargetException {
+    try {
+      return handle.invokeExact(args);
+    } catch (InvocationTargetException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
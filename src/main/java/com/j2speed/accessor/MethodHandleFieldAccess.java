@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import com.j2speed.accessor.spi.FieldAccess;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A {@link FieldAccess} backed by unreflected {@link MethodHandle}s.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class MethodHandleFieldAccess implements FieldAccess {
+
+  @NonNull
+  private final Field field;
+
+  /**
+   * The getter, with type <code>(Object)Object</code>.
+   */
+  @NonNull
+  private final MethodHandle getter;
+
+  /**
+   * The setter, with type <code>(Object,Object)void</code>, or <code>null</code> if the field
+   * cannot be written.
+   */
+  @CheckForNull
+  private final MethodHandle setter;
+
+  MethodHandleFieldAccess(@NonNull Field field, @NonNull MethodHandle getter,
+    @CheckForNull MethodHandle setter) {
+    this.field = field;
+    this.getter = getter;
+    this.setter = setter;
+  }
+
+  /**
+   * Creates the access for the field, unreflecting its getter and setter.
+   * 
+   * @param field
+   *          the accessible field.
+   * @return the access for the field.
+   */
+  @NonNull
+  static MethodHandleFieldAccess make(@NonNull Field field) {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle getter;
+    try {
+      getter = lookup.unreflectGetter(field);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+    MethodHandle setter;
+    try {
+      setter = lookup.unreflectSetter(field);
+    } catch (IllegalAccessException e) {
+      // static final fields cannot be written
+      setter = null;
+    }
+    if (Modifier.isStatic(field.getModifiers())) {
+      getter = MethodHandles.dropArguments(getter, 0, Object.class);
+      setter = setter == null ? null : MethodHandles.dropArguments(setter, 0, Object.class);
+    }
+    getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+    setter = setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+    return new MethodHandleFieldAccess(field, getter, setter);
+  }
+
+  @Override
+  public Object get(Object target) {
+    try {
+      return getter.invokeExact(target);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void set(Object target, Object value) {
+    if (setter == null) {
+      throw new RuntimeException(new IllegalAccessException("Field " + field.getName() + " is final"));
+    }
+    try {
+      setter.invokeExact(target, value);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import com.j2speed.accessor.spi.MethodAccess;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A {@link MethodAccess} backed by an unreflected {@link MethodHandle}.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class MethodHandleMethodAccess implements MethodAccess {
+
+  /**
+   * The handle, with type <code>(Object,Object[])Object</code>.
+   */
+  @NonNull
+  private final MethodHandle handle;
+
+  private final boolean isStatic;
+
+  MethodHandleMethodAccess(@NonNull Method method) {
+    isStatic = Modifier.isStatic(method.getModifiers());
+    MethodHandle handle = AbstractMethodAccessor.unreflect(method);
+    if (isStatic) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    this.handle = handle.asSpreader(Object[].class, method.getParameterCount()).asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+    if (target == null && !isStatic) {
+      // as reflection does, rather than failing within the method
+      throw new NullPointerException();
+    }
+    try {
+      return handle.invokeExact(target, args);
+    } catch (InvocationTargetException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Captures all the instance fields of an object, in one pass, into a <code>long[]</code> holding
+ * the primitive fields and an <code>Object[]</code> holding the reference ones, and restores them
+ * back.
+ * <p>
+ * The layout of a class, the instance fields declared in its hierarchy and their slot in the
+ * arrays, is computed once and shared: {@link #make(Class)} returns the same instance for the same
+ * class. The primitive values are stored without boxing, floating point ones by their raw bits,
+ * and the arrays can be reused, or sized to hold many objects one after the other through the
+ * offset overloads, so that capturing does not allocate. {@link #getPrimitiveFields()} and
+ * {@link #getReferenceFields()} give the field of each slot, to report the differences between
+ * two snapshots.
+ * </p>
+ * <p>
+ * The snapshot is shallow: references are copied, not the objects they refer to. The fields
+ * declared by subclasses of the class of the snapshot are not captured.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ * 
+ * @param <T>
+ *          the type of the objects captured.
+ */
+public final class ObjectSnapshot<T> {
+
+  private static final ClassValue<ObjectSnapshot<?>> LAYOUTS = new ClassValue<ObjectSnapshot<?>>() {
+    @Override
+    protected ObjectSnapshot<?> computeValue(Class<?> type) {
+      return new ObjectSnapshot<Object>(type);
+    }
+  };
+
+  private static final MethodType GET_PRIMITIVE = MethodType.methodType(long.class, Object.class);
+
+  private static final MethodType SET_PRIMITIVE = MethodType.methodType(void.class, Object.class, long.class);
+
+  private static final MethodType GET_REFERENCE = MethodType.methodType(Object.class, Object.class);
+
+  private static final MethodType SET_REFERENCE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  @NonNull
+  private final Class<?> type;
+
+  @NonNull
+  private final Field[] primitiveFields;
+
+  @NonNull
+  private final Field[] referenceFields;
+
+  /**
+   * Getters with type <code>(Object)long</code>, one per primitive field.
+   */
+  @NonNull
+  private final MethodHandle[] primitiveGetters;
+
+  /**
+   * Getters with type <code>(Object)Object</code>, one per reference field.
+   */
+  @NonNull
+  private final MethodHandle[] referenceGetters;
+
+  /**
+   * Setters with type <code>(Object,long)void</code>, <code>null</code> if the class does not
+   * allow to restore its fields.
+   */
+  @CheckForNull
+  private final MethodHandle[] primitiveSetters;
+
+  /**
+   * Setters with type <code>(Object,Object)void</code>, <code>null</code> if the class does not
+   * allow to restore its fields.
+   */
+  @CheckForNull
+  private final MethodHandle[] referenceSetters;
+
+  /**
+   * Gets the layout of the specified class.
+   * 
+   * @param <T>
+   *          the type of the objects captured.
+   * @param type
+   *          the class of the objects captured.
+   * @return the shared instance of {@link ObjectSnapshot} for the class.
+   * @throws IllegalArgumentException
+   *           if the class is an interface, an array or a primitive.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull
+  public static <T> ObjectSnapshot<T> make(@NonNull Class<? extends T> type) {
+    return (ObjectSnapshot<T>) LAYOUTS.get(type);
+  }
+
+  private ObjectSnapshot(@NonNull Class<?> type) {
+    if (type.isInterface() || type.isArray() || type.isPrimitive()) {
+      throw new IllegalArgumentException("Cannot snapshot " + type.getName());
+    }
+    this.type = type;
+    List<Field> primitives = new ArrayList<Field>();
+    List<Field> references = new ArrayList<Field>();
+    for (Class<?> current = type; current != Object.class && current != null; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          // the Field instance shared with the accessors
+          Field shared = BaseFieldAccessor.getField(current, field.getName());
+          (field.getType().isPrimitive() ? primitives : references).add(shared);
+        }
+      }
+    }
+    primitiveFields = primitives.toArray(new Field[primitives.size()]);
+    referenceFields = references.toArray(new Field[references.size()]);
+    primitiveGetters = new MethodHandle[primitiveFields.length];
+    referenceGetters = new MethodHandle[referenceFields.length];
+    MethodHandle[] primitiveSetters = new MethodHandle[primitiveFields.length];
+    MethodHandle[] referenceSetters = new MethodHandle[referenceFields.length];
+    try {
+      for (int i = 0; i < primitiveFields.length; i++) {
+        primitiveGetters[i] = toLong(MethodHandles.lookup().unreflectGetter(primitiveFields[i]));
+      }
+      for (int i = 0; i < referenceFields.length; i++) {
+        referenceGetters[i] = MethodHandles.lookup().unreflectGetter(referenceFields[i]).asType(GET_REFERENCE);
+      }
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+    try {
+      for (int i = 0; i < primitiveFields.length; i++) {
+        primitiveSetters[i] = fromLong(MethodHandles.lookup().unreflectSetter(primitiveFields[i]));
+      }
+      for (int i = 0; i < referenceFields.length; i++) {
+        referenceSetters[i] = MethodHandles.lookup().unreflectSetter(referenceFields[i]).asType(SET_REFERENCE);
+      }
+    } catch (IllegalAccessException e) {
+      // final fields of records and hidden classes: capture only
+      primitiveSetters = null;
+      referenceSetters = null;
+    }
+    this.primitiveSetters = primitiveSetters;
+    this.referenceSetters = referenceSetters;
+  }
+
+  /**
+   * @return the class of the objects captured.
+   */
+  @NonNull
+  public Class<?> getType() {
+    return type;
+  }
+
+  /**
+   * @return the number of primitive fields, the length of the primitives array of a snapshot.
+   */
+  public int getPrimitiveCount() {
+    return primitiveFields.length;
+  }
+
+  /**
+   * @return the number of reference fields, the length of the references array of a snapshot.
+   */
+  public int getReferenceCount() {
+    return referenceFields.length;
+  }
+
+  /**
+   * @return the primitive fields, in the order of their slots.
+   */
+  @NonNull
+  public Field[] getPrimitiveFields() {
+    return primitiveFields.clone();
+  }
+
+  /**
+   * @return the reference fields, in the order of their slots.
+   */
+  @NonNull
+  public Field[] getReferenceFields() {
+    return referenceFields.clone();
+  }
+
+  /**
+   * Captures the fields of the specified object at the beginning of the arrays.
+   * 
+   * @param target
+   *          the object to capture.
+   * @param primitives
+   *          receives the primitive fields, at least {@link #getPrimitiveCount()} long.
+   * @param references
+   *          receives the reference fields, at least {@link #getReferenceCount()} long.
+   */
+  public void capture(@NonNull T target, @NonNull long[] primitives, @NonNull Object[] references) {
+    capture(target, primitives, 0, references, 0);
+  }
+
+  /**
+   * Captures the fields of the specified object.
+   * 
+   * @param target
+   *          the object to capture.
+   * @param primitives
+   *          receives the primitive fields.
+   * @param primitiveOffset
+   *          the slot of the first primitive field.
+   * @param references
+   *          receives the reference fields.
+   * @param referenceOffset
+   *          the slot of the first reference field.
+   */
+  public void capture(@NonNull T target, @NonNull long[] primitives, int primitiveOffset,
+    @NonNull Object[] references, int referenceOffset) {
+    checkTarget(target);
+    checkBounds(primitives.length, primitiveOffset, primitiveFields.length);
+    checkBounds(references.length, referenceOffset, referenceFields.length);
+    try {
+      for (int i = 0; i < primitiveGetters.length; i++) {
+        primitives[primitiveOffset + i] = (long) primitiveGetters[i].invokeExact((Object) target);
+      }
+      for (int i = 0; i < referenceGetters.length; i++) {
+        references[referenceOffset + i] = (Object) referenceGetters[i].invokeExact((Object) target);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Restores the fields of the specified object from the beginning of the arrays.
+   * 
+   * @param target
+   *          the object to restore.
+   * @param primitives
+   *          the primitive fields, as captured.
+   * @param references
+   *          the reference fields, as captured.
+   * @throws UnsupportedOperationException
+   *           if the class does not allow its final fields to be written, as records do.
+   */
+  public void restore(@NonNull T target, @NonNull long[] primitives, @NonNull Object[] references) {
+    restore(target, primitives, 0, references, 0);
+  }
+
+  /**
+   * Restores the fields of the specified object.
+   * 
+   * @param target
+   *          the object to restore.
+   * @param primitives
+   *          the primitive fields, as captured.
+   * @param primitiveOffset
+   *          the slot of the first primitive field.
+   * @param references
+   *          the reference fields, as captured.
+   * @param referenceOffset
+   *          the slot of the first reference field.
+   * @throws UnsupportedOperationException
+   *           if the class does not allow its final fields to be written, as records do.
+   */
+  public void restore(@NonNull T target, @NonNull long[] primitives, int primitiveOffset,
+    @NonNull Object[] references, int referenceOffset) {
+    MethodHandle[] primitiveSetters = this.primitiveSetters;
+    MethodHandle[] referenceSetters = this.referenceSetters;
+    if (primitiveSetters == null || referenceSetters == null) {
+      throw new UnsupportedOperationException("Cannot restore the final fields of " + type.getName());
+    }
+    checkTarget(target);
+    checkBounds(primitives.length, primitiveOffset, primitiveFields.length);
+    checkBounds(references.length, referenceOffset, referenceFields.length);
+    try {
+      for (int i = 0; i < primitiveSetters.length; i++) {
+        primitiveSetters[i].invokeExact((Object) target, primitives[primitiveOffset + i]);
+      }
+      for (int i = 0; i < referenceSetters.length; i++) {
+        referenceSetters[i].invokeExact((Object) target, references[referenceOffset + i]);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ObjectSnapshot[" + type.getName() + "]";
+  }
+
+  private void checkTarget(@NonNull T target) {
+    if (!type.isInstance(target)) {
+      throw target == null ? new NullPointerException() : new ClassCastException(target.getClass().getName() + " is not a " + type.getName());
+    }
+  }
+
+  private static void checkBounds(int length, int offset, int count) {
+    if (offset < 0 || offset > length - count) {
+      throw new ArrayIndexOutOfBoundsException("Slots " + offset + ".." + (offset + count) + " out of " + length);
+    }
+  }
+
+  /**
+   * Adapts a primitive getter to <code>(Object)long</code>, keeping the raw bits of floating point
+   * values.
+   */
+  @NonNull
+  private static MethodHandle toLong(@NonNull MethodHandle getter) throws IllegalAccessException {
+    Class<?> type = getter.type().returnType();
+    if (type == double.class) {
+      getter = MethodHandles.filterReturnValue(getter, converter("doubleToRawLongBits", long.class, double.class));
+    } else if (type == float.class) {
+      getter = MethodHandles.filterReturnValue(getter, converter("floatToRawIntBits", int.class, float.class));
+    }
+    return MethodHandles.explicitCastArguments(getter, GET_PRIMITIVE);
+  }
+
+  /**
+   * Adapts a primitive setter to <code>(Object,long)void</code>, the inverse of
+   * {@link #toLong(MethodHandle)}.
+   */
+  @NonNull
+  private static MethodHandle fromLong(@NonNull MethodHandle setter) throws IllegalAccessException {
+    Class<?> type = setter.type().parameterType(1);
+    if (type == double.class) {
+      setter = MethodHandles.filterArguments(setter, 1, converter("longBitsToDouble", double.class, long.class));
+    } else if (type == float.class) {
+      setter = MethodHandles.filterArguments(setter, 1, converter("intBitsToFloat", float.class, int.class));
+    }
+    return MethodHandles.explicitCastArguments(setter, SET_PRIMITIVE);
+  }
+
+  @NonNull
+  private static MethodHandle converter(@NonNull String name, @NonNull Class<?> returnType,
+    @NonNull Class<?> parameterType) throws IllegalAccessException {
+    Class<?> owner = returnType == double.class || parameterType == double.class ? Double.class : Float.class;
+    try {
+      return MethodHandles.publicLookup().findStatic(owner, name, MethodType.methodType(returnType, parameterType));
+    } catch (NoSuchMethodException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
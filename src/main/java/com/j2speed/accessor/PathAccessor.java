@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Reads the value at the end of a path of fields and methods without parameters, such as
+ * <code>"customer.address.zip"</code> or <code>"customer.address().zip"</code>, starting from an
+ * instance of a class.
+ * <p>
+ * The members are resolved once, at construction, from the declared types along the path, and
+ * the whole chain is composed into a single {@link MethodHandle}: a read runs as one fused
+ * operation, without boxing the intermediate values nor looking anything up. If the target or any
+ * intermediate value is <code>null</code> the read stops there and returns <code>null</code>.
+ * </p>
+ * <p>
+ * Exceptions thrown by the methods in the path propagate unchanged if unchecked, wrapped in a
+ * {@link RuntimeException} otherwise.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ * 
+ * @param <T>
+ *          the type of the class the path starts from.
+ * @param <V>
+ *          the type of the value at the end of the path, boxed if primitive.
+ */
+public final class PathAccessor<T, V> {
+
+  private static final MethodHandle IS_NULL;
+
+  static {
+    try {
+      IS_NULL = MethodHandles.lookup().findStatic(Objects.class, "isNull", MethodType.methodType(boolean.class, Object.class));
+    } catch (Exception e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  @NonNull
+  private final String path;
+
+  /**
+   * The composed path, with type <code>(Object)Object</code>.
+   */
+  @NonNull
+  private final MethodHandle handle;
+
+  /**
+   * The declared type of the value at the end of the path.
+   */
+  @NonNull
+  private final Class<?> valueType;
+
+  /**
+   * Generic builder. Convenience to remove generics pollution while creating an accessor.
+   * 
+   * @param <T>
+   *          the type of the class the path starts from.
+   * @param <V>
+   *          the type of the value at the end of the path.
+   * @param type
+   *          the class the path starts from.
+   * @param path
+   *          the path, segments separated by dots; a segment ending with <code>()</code> is a
+   *          method without parameters, any other a field.
+   * @return an instance of {@link PathAccessor} with the specified generic parameters.
+   */
+  @NonNull
+  public static <T, V> PathAccessor<T, V> make(@NonNull Class<? extends T> type,
+    @NonNull String path) {
+    return new PathAccessor<T, V>(type, path);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param type
+   *          the class the path starts from.
+   * @param path
+   *          the path, segments separated by dots; a segment ending with <code>()</code> is a
+   *          method without parameters, any other a field.
+   * @throws IllegalArgumentException
+   *           if the path is malformed, or goes through a primitive or a void method.
+   * @throws RuntimeException
+   *           if a member of the path cannot be found.
+   */
+  public PathAccessor(@NonNull Class<? extends T> type, @NonNull String path) {
+    if (type == null || path == null)
+      throw new NullPointerException();
+    this.path = path;
+    String[] segments = path.split("\\.", -1);
+    Class<?> current = type;
+    MethodHandle composed = null;
+    for (int i = 0; i < segments.length; i++) {
+      if (current.isPrimitive()) {
+        throw new IllegalArgumentException("Path " + path + " goes through the primitive " + segments[i - 1]);
+      }
+      MethodHandle hop = hop(current, segments[i]);
+      current = hop.type().returnType();
+      // stops on null, boxing primitives at the end of the path
+      hop = hop.asType(hop.type().changeReturnType(current.isPrimitive() ? MethodType.methodType(current).wrap().returnType() : current));
+      MethodHandle stop = MethodHandles.dropArguments(MethodHandles.zero(hop.type().returnType()), 0, hop.type().parameterType(0));
+      hop = MethodHandles.guardWithTest(IS_NULL.asType(MethodType.methodType(boolean.class, hop.type().parameterType(0))), stop, hop);
+      composed = composed == null ? hop : MethodHandles.filterReturnValue(composed, hop);
+    }
+    this.valueType = current;
+    this.handle = composed.asType(MethodType.methodType(Object.class, Object.class));
+  }
+
+  /**
+   * Reads the value at the end of the path.
+   * 
+   * @param target
+   *          the instance the path starts from.
+   * @return the value, or <code>null</code> if the target or any intermediate value is
+   *         <code>null</code>.
+   */
+  @SuppressWarnings("unchecked")
+  public V get(T target) {
+    try {
+      return (V) handle.invokeExact((Object) target);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * @return the declared type of the value at the end of the path.
+   */
+  @NonNull
+  public Class<?> getValueType() {
+    return valueType;
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+  /**
+   * Resolves a segment of the path in the specified class.
+   * 
+   * @return a handle with type <code>(type)R</code>, where <code>R</code> is the declared type of
+   *         the member.
+   */
+  @NonNull
+  private MethodHandle hop(@NonNull Class<?> type, @NonNull String segment) {
+    boolean isMethod = segment.endsWith("()");
+    String name = isMethod ? segment.substring(0, segment.length() - 2) : segment;
+    if (!isJavaIdentifier(name)) {
+      throw new IllegalArgumentException("Malformed path: " + path);
+    }
+    MethodHandle hop;
+    boolean isStatic;
+    try {
+      if (isMethod) {
+        Method method = Members.method(type, name);
+        if (method.getReturnType() == void.class) {
+          throw new IllegalArgumentException("Path " + path + " goes through the void method " + segment);
+        }
+        hop = MethodHandles.lookup().unreflect(method);
+        isStatic = Modifier.isStatic(method.getModifiers());
+      } else {
+        Field field = Members.field(type, name);
+        hop = MethodHandles.lookup().unreflectGetter(field);
+        isStatic = Modifier.isStatic(field.getModifiers());
+      }
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+    if (isStatic) {
+      hop = MethodHandles.dropArguments(hop, 0, type);
+    }
+    return hop.asType(hop.type().changeParameterType(0, type));
+  }
+
+  private static boolean isJavaIdentifier(@NonNull String name) {
+    if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < name.length(); i++) {
+      if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -15,14 +15,27 @@
  */
 package com.j2speed.accessor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.FieldAccess;
+import com.j2speed.accessor.spi.MethodAccess;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
@@ -69,6 +82,28 @@ import edu.umd.cs.findbugs.annotations.NonNull;
  * Note that, if the object declare a method with throwing exceptions, you can declare the same
  * exceptions in the interface method so that you can test for them as well.
  * </p>
+ * <p>
+ * When generation is enabled, see {@link AccessGenerator}, the proxies are instances of a class
+ * generated once for each interface, target class and names mapping, whose methods invoke the
+ * target members directly instead of going through {@link Proxy} and reflection.
+ * </p>
+ * <p>
+ * The members matched by the methods of an interface, together with the proxy class, are resolved
+ * once for each interface, target class and names mapping and then shared: creating another proxy
+ * of the same shape, for another instance of the target class, costs only the allocation of the
+ * proxy. The cache does not prevent the classes involved from being unloaded.
+ * </p>
+ * <p>
+ * The proxies created by {@link #createAccessor(Class, Object, Map)} match all the methods of the
+ * interface up front, failing fast on a misconfigured interface. For large interfaces of which
+ * only a few methods are used, {@link #createLazyAccessor(Class, Object, Map)} matches each method
+ * on its first invocation instead.
+ * </p>
+ * <p>
+ * The interfaces annotated with {@link AccessorFor} are implemented at build time, and the accessors
+ * for the targets of the annotated class, with no names mapping, are instances of the generated
+ * class.
+ * </p>
  * 
  * @version trunk
  * @since 0.8
@@ -77,6 +112,67 @@ import edu.umd.cs.findbugs.annotations.NonNull;
  */
 public abstract class ProxyAccessor {
 
+  /**
+   * Stands for the shapes that cannot be implemented by a generated class: creates no proxy.
+   */
+  private static final MethodHandle NOT_GENERATED = MethodHandles.dropArguments(MethodHandles.constant(Object.class, null), 0, Object.class);
+
+  /**
+   * Stands for the shapes that cannot be implemented by a generated retargetable class.
+   */
+  private static final MethodHandle[] NOT_RETARGETABLE = new MethodHandle[0];
+
+  /**
+   * The arguments of the methods without parameters, passed as <code>null</code> to the handlers.
+   */
+  private static final Object[] NO_ARGUMENTS = {};
+
+  /**
+   * Sets the target of a {@link CursorInvocationHandler}, with type <code>(Object,Object)void</code>.
+   */
+  private static final MethodHandle SET_CURSOR_TARGET;
+  static {
+    try {
+      SET_CURSOR_TARGET = MethodHandles.lookup().findSetter(CursorInvocationHandler.class, "target", Object.class).asType(MethodType.methodType(void.class, Object.class, Object.class));
+    } catch (NoSuchFieldException e) {
+      throw new ExceptionInInitializerError(e);
+    } catch (IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * The plans of the proxies, by target class: a {@link ProxyPlan}, or a {@link PlanReference} to
+   * it, by shape.
+   * <p>
+   * A plan references its interface. The keys reference the interfaces weakly; the plans are held
+   * strongly when their interface is defined by the class loader of the target class, or by one of
+   * its ancestors, which stay loaded as long as the target class anyway, weakly otherwise, so the
+   * cache keeps no class loader loaded.
+   * </p>
+   */
+  private static final ClassValue<ConcurrentMap<ProxyKey, Object>> PLANS = new ClassValue<ConcurrentMap<ProxyKey, Object>>() {
+    @Override
+    protected ConcurrentMap<ProxyKey, Object> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<ProxyKey, Object>();
+    }
+  };
+
+  /**
+   * The plans held weakly that have been reclaimed, whose entries are still to be removed.
+   */
+  private static final ReferenceQueue<ProxyPlan> RECLAIMED = new ReferenceQueue<ProxyPlan>();
+
+  /**
+   * The accessors generated at build time, by interface.
+   */
+  private static final ClassValue<Compiled> COMPILED = new ClassValue<Compiled>() {
+    @Override
+    protected Compiled computeValue(Class<?> type) {
+      return Compiled.load(type);
+    }
+  };
+
   private ProxyAccessor() {
     // static factory
   }
@@ -140,112 +236,404 @@ public abstract class ProxyAccessor {
    *           if the target doesn't match one of the interface's methods.
    * @throws NoSuchFieldException
    */
-  @SuppressWarnings("unchecked")
   @NonNull
   public static <T> T createAccessor(@NonNull Class<T> type, @NonNull Object target,
     @CheckForNull Map<String, String> namesMapping) {
+    Class<?> targetClass = target instanceof Class<?> ? (Class<?>) target : target.getClass();
+    return createAccessor(type, target, namesMapping, AccessStrategies.get(targetClass) == AccessStrategies.GENERATED);
+  }
+
+  /**
+   * Creates a proxy as {@link #createAccessor(Class, Object, Map)} does, with the specified
+   * strategy instead of the one selected by {@link AccessStrategies}.
+   * <p>
+   * The dynamic proxy reaches the target members through the backends created by the strategy;
+   * {@link AccessStrategies#GENERATED} also implements the interface with a generated class that
+   * invokes them directly.
+   * </p>
+   * 
+   * @param <T>
+   *          The return type for this method. T must be an interface.
+   * @param type
+   *          The Class object of the interface.
+   * @param target
+   *          The object that matches the interface's methods.
+   * @param namesMapping
+   *          a mapping of names, as for {@link #createAccessor(Class, Object, Map)}.
+   * @param strategy
+   *          the strategy for the proxy.
+   * @return A proxy instance that implements T
+   */
+  @NonNull
+  public static <T> T createAccessor(@NonNull Class<T> type, @NonNull Object target,
+    @CheckForNull Map<String, String> namesMapping, @NonNull AccessStrategy strategy) {
+    if (strategy == null) {
+      throw new NullPointerException();
+    }
+    return createAccessor(type, target, namesMapping, strategy == AccessStrategies.GENERATED, strategy);
+  }
+
+  /**
+   * Creates a proxy, choosing whether to try a generated class.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull
+  static <T> T createAccessor(@NonNull Class<T> type, @NonNull Object target,
+    @CheckForNull Map<String, String> namesMapping, boolean generate) {
+    return createAccessor(type, target, namesMapping, generate, null);
+  }
+
+  /**
+   * Creates a proxy, choosing whether to try a generated class and the strategy of the backends.
+   * 
+   * @param strategy
+   *          the strategy of the backends, <code>null</code> to select it for each member.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull
+  private static <T> T createAccessor(@NonNull Class<T> type, @NonNull Object target,
+    @CheckForNull Map<String, String> namesMapping, boolean generate,
+    @CheckForNull AccessStrategy strategy) {
     if (namesMapping == null) {
       namesMapping = Collections.emptyMap();
     }
     checkInterface(type);
-    Map<Method, Invoker> methodsMap = new HashMap<Method, Invoker>();
-    Class<?> targetClass = target instanceof Class<?> ? (Class<?>) target : target.getClass();
-    // We require an interface so all the methods are public
-    for (Method method : type.getMethods()) {
-      Invoker invoker = getInvoker(method, targetClass, namesMapping);
-      methodsMap.put(method, invoker);
+    Object compiled = COMPILED.get(type).newAccessor(target, namesMapping);
+    if (compiled != null) {
+      return (T) compiled;
     }
-    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new DynamicInvocationHandler(target, methodsMap));
+    boolean isStatic = target instanceof Class<?>;
+    Class<?> targetClass = isStatic ? (Class<?>) target : target.getClass();
+    ProxyPlan plan = getPlan(type, targetClass, isStatic, namesMapping, strategy, true);
+    if (generate) {
+      MethodHandle factory = plan.generatedFactory(type, isStatic);
+      try {
+        Object proxy = (Object) factory.invokeExact(target);
+        if (proxy != null) {
+          return (T) proxy;
+        }
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return (T) plan.newProxy(type, new DynamicInvocationHandler(target, plan.table));
+  }
+
+  /**
+   * Creates a proxy as {@link #createAccessor(Class, Object)} does, matching each method of the
+   * interface on its first invocation rather than up front.
+   * 
+   * @param <T>
+   *          The return type for this method. T must be an interface.
+   * @param type
+   *          The Class object of the interface.
+   * @param target
+   *          The object that matches the interface's methods.
+   * @return A proxy instance that implements T, whose methods throw a {@link RuntimeException} if
+   *         the target doesn't match them.
+   */
+  @NonNull
+  public static <T> T createLazyAccessor(@NonNull Class<T> type, @NonNull Object target) {
+    return createLazyAccessor(type, target, null);
   }
 
   /**
-   * Tries to find a suitable {@link Invoker} for the specified {@link Method} in the target class.
+   * Creates a proxy as {@link #createAccessor(Class, Object, Map)} does, matching each method of
+   * the interface on its first invocation rather than up front.
+   * <p>
+   * The methods matched are published to the other proxies of the same shape without locking: a
+   * method matched concurrently by several threads is merely matched more than once.
+   * </p>
    * 
-   * @param method
+   * @param <T>
+   *          The return type for this method. T must be an interface.
+   * @param type
+   *          The Class object of the interface.
+   * @param target
+   *          The object that matches the interface's methods.
+   * @param namesMapping
+   *          a mapping of names between a method in the interface to the actual method name in the
+   *          target instance or between a standard JavaBean field name and the actual field name in
+   *          the target instance.
+   * @return A proxy instance that implements T, whose methods throw a {@link RuntimeException} if
+   *         the target doesn't match them.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull
+  public static <T> T createLazyAccessor(@NonNull Class<T> type, @NonNull Object target,
+    @CheckForNull Map<String, String> namesMapping) {
+    if (namesMapping == null) {
+      namesMapping = Collections.emptyMap();
+    }
+    checkInterface(type);
+    Object compiled = COMPILED.get(type).newAccessor(target, namesMapping);
+    if (compiled != null) {
+      return (T) compiled;
+    }
+    boolean isStatic = target instanceof Class<?>;
+    Class<?> targetClass = isStatic ? (Class<?>) target : target.getClass();
+    ProxyPlan plan = getPlan(type, targetClass, isStatic, namesMapping, null, false);
+    return (T) plan.newProxy(type, new DynamicInvocationHandler(target, plan.table));
+  }
+
+  /**
+   * Creates a cursor over instances of the target class: a single proxy implementing the interface
+   * that can be moved from an instance to another without allocating.
+   * 
+   * @param <T>
+   *          The type of the proxy. T must be an interface.
+   * @param type
+   *          The Class object of the interface.
+   * @param targetClass
+   *          The class of the instances that match the interface's methods.
+   * @return a cursor with no target.
+   * @throws RuntimeException
+   *           if the target class doesn't match one of the interface's methods.
+   * @see ProxyCursor
+   */
+  @NonNull
+  public static <T> ProxyCursor<T> createCursor(@NonNull Class<T> type,
+    @NonNull Class<?> targetClass) {
+    return createCursor(type, targetClass, null);
+  }
+
+  /**
+   * Creates a cursor over instances of the target class, mapping the names of the interface's
+   * methods as {@link #createAccessor(Class, Object, Map)} does.
+   * 
+   * @param <T>
+   *          The type of the proxy. T must be an interface.
+   * @param type
+   *          The Class object of the interface.
    * @param targetClass
+   *          The class of the instances that match the interface's methods.
    * @param namesMapping
-   * @return
+   *          a mapping of names between a method in the interface to the actual method name in the
+   *          target class or between a standard JavaBean field name and the actual field name in
+   *          the target class.
+   * @return a cursor with no target.
+   * @throws RuntimeException
+   *           if the target class doesn't match one of the interface's methods.
+   * @see ProxyCursor
+   */
+  @NonNull
+  public static <T> ProxyCursor<T> createCursor(@NonNull Class<T> type,
+    @NonNull Class<?> targetClass, @CheckForNull Map<String, String> namesMapping) {
+    return createCursor(type, targetClass, namesMapping, AccessStrategies.get(targetClass) == AccessStrategies.GENERATED);
+  }
+
+  /**
+   * Creates a cursor, choosing whether to try a generated class.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull
+  static <T> ProxyCursor<T> createCursor(@NonNull Class<T> type, @NonNull Class<?> targetClass,
+    @CheckForNull Map<String, String> namesMapping, boolean generate) {
+    if (namesMapping == null) {
+      namesMapping = Collections.emptyMap();
+    }
+    checkInterface(type);
+    ProxyPlan plan = getPlan(type, targetClass, false, namesMapping, null, true);
+    Object proxy;
+    MethodHandle setTarget;
+    MethodHandle[] generated = generate ? plan.generatedRetargetable(type) : NOT_RETARGETABLE;
+    if (generated != NOT_RETARGETABLE) {
+      try {
+        proxy = (Object) generated[0].invokeExact((Object) null);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+      setTarget = generated[1].bindTo(proxy);
+    } else {
+      CursorInvocationHandler handler = new CursorInvocationHandler(plan.table);
+      proxy = plan.newProxy(type, handler);
+      setTarget = SET_CURSOR_TARGET.bindTo(handler);
+    }
+    return new ProxyCursor<T>((T) proxy, targetClass, setTarget);
+  }
+
+  /**
+   * Returns the plan of the proxies for the specified shape, resolving it the first time the shape
+   * is requested.
+   * 
+   * @param strategy
+   *          the strategy of the backends, <code>null</code> to select it for each member.
+   * @param eager
+   *          whether to match all the methods of the interface, rather than each one on first use.
+   * @throws RuntimeException
+   *           if eager and the target class doesn't match one of the interface's methods.
+   */
+  @NonNull
+  private static ProxyPlan getPlan(@NonNull Class<?> type, @NonNull Class<?> targetClass,
+    boolean isStatic, @NonNull Map<String, String> namesMapping,
+    @CheckForNull AccessStrategy strategy, boolean eager) {
+    ConcurrentMap<ProxyKey, Object> plans = PLANS.get(targetClass);
+    ProxyKey key = new ProxyKey(type, isStatic, namesMapping, strategy);
+    Object value = plans.get(key);
+    ProxyPlan plan = value instanceof PlanReference ? ((PlanReference) value).get() : (ProxyPlan) value;
+    if (plan == null) {
+      key = key.copy();
+      // We require an interface so all the methods are public
+      plan = new ProxyPlan(type.getMethods(), targetClass, key.namesMapping, strategy);
+      if (eager) {
+        // not cached if the interface doesn't match
+        plan.validate();
+      }
+      expungeReclaimed();
+      // racy but idempotent, plans of the same shape are equivalent
+      plans.put(key, outlives(type, targetClass) ? plan : new PlanReference(plan, plans, key));
+    } else if (eager) {
+      plan.validate();
+    }
+    return plan;
+  }
+
+  /**
+   * @return whether the interface stays loaded as long as the target class: it is defined by the
+   *         class loader of the target class or by one of its ancestors.
+   */
+  private static boolean outlives(@NonNull Class<?> type, @NonNull Class<?> targetClass) {
+    ClassLoader loader = type.getClassLoader();
+    if (loader == null) {
+      return true;
+    }
+    for (ClassLoader current = targetClass.getClassLoader(); current != null; current = current.getParent()) {
+      if (current == loader) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes the entries of the plans held weakly that have been reclaimed.
+   */
+  private static void expungeReclaimed() {
+    for (Reference<? extends ProxyPlan> reference; (reference = RECLAIMED.poll()) != null;) {
+      PlanReference plan = (PlanReference) reference;
+      plan.plans.remove(plan.key, plan);
+    }
+  }
+
+  /**
+   * Finds a suitable {@link Invoker} for the specified {@link Method} in the target class.
+   * 
+   * @throws RuntimeException
+   *           if the target class doesn't match the method.
    */
   @NonNull
   private static Invoker getInvoker(@NonNull Method method, @NonNull Class<?> targetClass,
-    @NonNull Map<String, String> namesMapping) {
+    @NonNull Map<String, String> namesMapping, @CheckForNull AccessStrategy strategy) {
+    Invoker invoker = findInvoker(method, targetClass, namesMapping, strategy);
+    if (invoker == null) {
+      throw new RuntimeException("No member of " + targetClass.getName() + " for method: " + method);
+    }
+    return invoker;
+  }
+
+  /**
+   * Tries to find a suitable {@link Invoker} for the specified {@link Method} in the target class,
+   * first among the methods, then among the fields through a JavaBean style mapping.
+   * 
+   * @return the invoker, <code>null</code> if none.
+   */
+  @CheckForNull
+  private static Invoker findInvoker(@NonNull Method method, @NonNull Class<?> targetClass,
+    @NonNull Map<String, String> namesMapping, @CheckForNull AccessStrategy strategy) {
     String name = namesMapping.get(method.getName());
     name = name == null ? method.getName() : name;
-    try {
-      Method targetMethod = AbstractMethodAccessor.getMethod(targetClass, name, method.getParameterTypes());
-      // Check that the return type of the interface method is compatible with
-      // the found method.
-      if (targetMethod.getReturnType().isAssignableFrom(method.getReturnType())) {
-        return new MethodInvoker(targetMethod);
-      }
-      // It is not compatible, so let's try a JavaBean style mapping
-      return getJavaBeanStyleInvoker(name, method, targetClass, namesMapping);
-    } catch (RuntimeException e) {
-      return getJavaBeanStyleInvoker(name, method, targetClass, namesMapping);
+    Method targetMethod = Members.findMethod(targetClass, name, method.getParameterTypes());
+    // Check that the return type of the interface method is compatible with
+    // the found method.
+    if (targetMethod != null && targetMethod.getReturnType().isAssignableFrom(method.getReturnType())) {
+      return new MethodInvoker(targetMethod, strategy);
     }
+    // It is not, so let's try a JavaBean style mapping
+    return findJavaBeanStyleInvoker(name, method, targetClass, namesMapping, strategy);
   }
 
   /**
    * Tries to find a suitable field in the target class to map with the method.
    */
-  private static Invoker getJavaBeanStyleInvoker(@NonNull String name, @NonNull Method method,
-    @NonNull Class<?> targetClass, @NonNull Map<String, String> namesMapping) {
+  @CheckForNull
+  private static Invoker findJavaBeanStyleInvoker(@NonNull String name, @NonNull Method method,
+    @NonNull Class<?> targetClass, @NonNull Map<String, String> namesMapping,
+    @CheckForNull AccessStrategy strategy) {
     // try to find a java bean style compatible field
     int paramCount = method.getParameterTypes().length;
     if (paramCount == 0) {
       // could be a bean getter
-      if (name.startsWith("is"))
-        return getBooleanGetter(name, method, targetClass, namesMapping);
-      else if (name.startsWith("get"))
-        return getGetter(name, method, targetClass, namesMapping);
-    } else if (paramCount == 1 && name.startsWith("set")) {
+      if (name.startsWith("is") && name.length() > 2)
+        return findBooleanGetter(name, method, targetClass, namesMapping, strategy);
+      else if (name.startsWith("get") && name.length() > 3)
+        return findGetter(name, method, targetClass, namesMapping, strategy);
+    } else if (paramCount == 1 && name.startsWith("set") && name.length() > 3) {
       // could be a setter
-      return getSetter(name, method, targetClass, namesMapping);
+      return findSetter(name, method, targetClass, namesMapping, strategy);
     }
 
     // not JavaBean compatible as well
-    throw new RuntimeException();
+    return null;
   }
 
   /**
    * Tries to map an "is" style getter to a boolean field in the target class.
    */
-  private static Invoker getBooleanGetter(@NonNull String name, @NonNull Method method,
-    @NonNull Class<?> targetClass, @NonNull Map<String, String> namesMapping) {
-    Field field = BaseFieldAccessor.getField(targetClass, getFieldName(2, name, namesMapping));
+  @CheckForNull
+  private static Invoker findBooleanGetter(@NonNull String name, @NonNull Method method,
+    @NonNull Class<?> targetClass, @NonNull Map<String, String> namesMapping,
+    @CheckForNull AccessStrategy strategy) {
+    Field field = Members.findField(targetClass, getFieldName(2, name, namesMapping));
+    if (field == null) {
+      return null;
+    }
     Class<?> fieldType = field.getType();
     Class<?> returnType = method.getReturnType();
     if ((returnType == boolean.class || returnType == Boolean.class) && (fieldType == boolean.class || fieldType == Boolean.class)) {
-      return new FieldGetter(field);
+      return new FieldGetter(field, strategy);
     }
-    throw new RuntimeException("No bean field for method: " + method);
+    return null;
   }
 
   /**
-   * Tries to map a "get" style getter to a boolean field in the target class.
+   * Tries to map a "get" style getter to a field in the target class.
    */
-  private static Invoker getGetter(@NonNull String name, @NonNull Method method,
-    @NonNull Class<?> targetClass, @NonNull Map<String, String> namesMapping) {
-    Field field = BaseFieldAccessor.getField(targetClass, getFieldName(3, name, namesMapping));
+  @CheckForNull
+  private static Invoker findGetter(@NonNull String name, @NonNull Method method,
+    @NonNull Class<?> targetClass, @NonNull Map<String, String> namesMapping,
+    @CheckForNull AccessStrategy strategy) {
+    Field field = Members.findField(targetClass, getFieldName(3, name, namesMapping));
+    if (field == null) {
+      return null;
+    }
     Class<?> returnType = method.getReturnType();
     if ((returnType == Object.class || returnType.equals(field.getType())) && returnType != void.class && returnType != Void.class) {
-      return new FieldGetter(field);
+      return new FieldGetter(field, strategy);
     }
-    throw new RuntimeException("No bean field for method: " + method);
+    return null;
   }
 
   /**
-   * Tries to mat a "set"ter to a field in the target class.
+   * Tries to map a "set"ter to a field in the target class.
    */
-  private static Invoker getSetter(@NonNull String name, @NonNull Method method,
-    @NonNull Class<?> targetClass, @NonNull Map<String, String> namesMapping) {
-    Field field = BaseFieldAccessor.getField(targetClass, getFieldName(3, name, namesMapping));
+  @CheckForNull
+  private static Invoker findSetter(@NonNull String name, @NonNull Method method,
+    @NonNull Class<?> targetClass, @NonNull Map<String, String> namesMapping,
+    @CheckForNull AccessStrategy strategy) {
+    Field field = Members.findField(targetClass, getFieldName(3, name, namesMapping));
+    if (field == null) {
+      return null;
+    }
     Class<?>[] paramTypes = method.getParameterTypes();
     Class<?> returnType = method.getReturnType();
     if (paramTypes.length == 1 && paramTypes[0].equals(field.getType()) && (returnType == void.class || returnType == Void.class)) {
-      return new FieldSetter(field);
+      return new FieldSetter(field, strategy);
     }
-    throw new RuntimeException("No bean field for method: " + method);
+    return null;
   }
 
   /**
@@ -269,6 +657,245 @@ public abstract class ProxyAccessor {
       throw new IllegalArgumentException("type can only be an interface.");
   }
 
+  /**
+   * The accessor generated at build time for an interface annotated with {@link AccessorFor}.
+   * 
+   * @author Alessandro Nistico
+   */
+  private static final class Compiled {
+
+    private static final Compiled NONE = new Compiled(null, null);
+
+    /**
+     * The class the interface is for.
+     */
+    @CheckForNull
+    private final Class<?> target;
+
+    /**
+     * The constructor of the accessor, with type <code>(Object)Object</code>.
+     */
+    @CheckForNull
+    private final MethodHandle factory;
+
+    private Compiled(@CheckForNull Class<?> target, @CheckForNull MethodHandle factory) {
+      this.target = target;
+      this.factory = factory;
+    }
+
+    /**
+     * Loads the accessor generated for the interface, if any.
+     */
+    @NonNull
+    static Compiled load(@NonNull Class<?> type) {
+      AccessorFor accessorFor = type.getAnnotation(AccessorFor.class);
+      if (accessorFor == null) {
+        return NONE;
+      }
+      try {
+        Class<?> accessor = Class.forName(type.getName() + CompiledAccessors.SUFFIX, true, type.getClassLoader());
+        MethodHandle constructor = MethodHandles.publicLookup().findConstructor(accessor, MethodType.methodType(void.class, Object.class));
+        return new Compiled(accessorFor.value(), constructor.asType(MethodType.methodType(Object.class, Object.class)));
+      } catch (ReflectiveOperationException e) {
+        // not processed, or not accessible
+        return NONE;
+      } catch (LinkageError e) {
+        return NONE;
+      }
+    }
+
+    /**
+     * Creates an accessor for the target.
+     * 
+     * @return the accessor, <code>null</code> if the generated class doesn't apply to the target
+     *         or to the names mapping.
+     */
+    @CheckForNull
+    Object newAccessor(@NonNull Object target, @NonNull Map<String, String> namesMapping) {
+      if (factory == null || !namesMapping.isEmpty() || (target != this.target && !this.target.isInstance(target))) {
+        return null;
+      }
+      try {
+        return (Object) factory.invokeExact(target);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * The members resolved for a shape of proxy, shared by all its proxies.
+   * 
+   * @author Alessandro Nistico
+   */
+  private static final class ProxyPlan {
+
+    @NonNull
+    private final Method[] methods;
+
+    @NonNull
+    private final DispatchTable table;
+
+    /**
+     * Whether all the methods have been matched.
+     */
+    private volatile boolean validated;
+
+    /**
+     * The constructor of the {@link Proxy} class; resolved with the first proxy, if accessible.
+     */
+    @CheckForNull
+    private volatile Constructor<?> constructor;
+
+    /**
+     * Whether the {@link Proxy} class has been resolved.
+     */
+    private volatile boolean resolved;
+
+    /**
+     * The constructor of the generated proxies; {@link ProxyAccessor#NOT_GENERATED} if the shape
+     * cannot be implemented by a generated class.
+     */
+    @CheckForNull
+    private volatile MethodHandle generated;
+
+    /**
+     * The constructor and the target setter of the generated retargetable proxies;
+     * {@link ProxyAccessor#NOT_RETARGETABLE} if the shape cannot be implemented by a generated
+     * class.
+     */
+    @CheckForNull
+    private volatile MethodHandle[] retargetable;
+
+    private ProxyPlan(@NonNull Method[] methods, @NonNull Class<?> targetClass,
+      @NonNull Map<String, String> namesMapping, @CheckForNull AccessStrategy strategy) {
+      this.methods = methods;
+      this.table = new DispatchTable(methods, targetClass, namesMapping, strategy);
+    }
+
+    /**
+     * Matches all the methods not matched yet.
+     * 
+     * @throws RuntimeException
+     *           if the target class doesn't match one of the methods.
+     */
+    void validate() {
+      if (!validated) {
+        for (Method method : methods) {
+          table.get(method);
+        }
+        validated = true;
+      }
+    }
+
+    /**
+     * Creates a {@link Proxy} of the interface with the handler.
+     */
+    @NonNull
+    Object newProxy(@NonNull Class<?> type, @NonNull InvocationHandler handler) {
+      Constructor<?> constructor = this.constructor;
+      if (constructor != null) {
+        try {
+          return constructor.newInstance(handler);
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+      Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+      if (!resolved) {
+        try {
+          constructor = proxy.getClass().getConstructor(InvocationHandler.class);
+          if (constructor.trySetAccessible()) {
+            this.constructor = constructor;
+          }
+        } catch (NoSuchMethodException e) {
+          // keep going through Proxy
+        }
+        resolved = true;
+      }
+      return proxy;
+    }
+
+    /**
+     * Returns the constructor of the generated proxies, generating the class the first time.
+     * 
+     * @return a handle with type <code>(Object)Object</code>, returning <code>null</code> if the
+     *         shape cannot be implemented by a generated class.
+     */
+    @NonNull
+    MethodHandle generatedFactory(@NonNull Class<?> type, boolean isStatic) {
+      MethodHandle factory = generated;
+      if (factory == null) {
+        synchronized (this) {
+          factory = generated;
+          if (factory == null) {
+            factory = generate(type, isStatic);
+            generated = factory;
+          }
+        }
+      }
+      return factory;
+    }
+
+    /**
+     * Returns the constructor and the target setter of the generated retargetable proxies,
+     * generating the class the first time.
+     * 
+     * @return handles with type <code>(Object)Object</code> and <code>(Object,Object)void</code>,
+     *         or {@link ProxyAccessor#NOT_RETARGETABLE} if the shape cannot be implemented by a
+     *         generated class.
+     */
+    @NonNull
+    MethodHandle[] generatedRetargetable(@NonNull Class<?> type) {
+      MethodHandle[] factory = retargetable;
+      if (factory == null) {
+        synchronized (this) {
+          factory = retargetable;
+          if (factory == null) {
+            MethodHandle[] handles = handles(false);
+            factory = handles == null ? null : AccessGenerator.generateRetargetableProxy(type, methods, handles);
+            factory = factory == null ? NOT_RETARGETABLE : factory;
+            retargetable = factory;
+          }
+        }
+      }
+      return factory;
+    }
+
+    @NonNull
+    private MethodHandle generate(@NonNull Class<?> type, boolean isStatic) {
+      MethodHandle[] handles = handles(isStatic);
+      MethodHandle generated = handles == null ? null : AccessGenerator.generateProxy(type, methods, handles);
+      return generated == null ? NOT_GENERATED : generated;
+    }
+
+    /**
+     * @return the handles implementing the methods, <code>null</code> if some member cannot be
+     *         invoked through a handle.
+     */
+    @CheckForNull
+    private MethodHandle[] handles(boolean isStatic) {
+      MethodHandle[] handles = new MethodHandle[methods.length];
+      try {
+        for (int i = 0; i < methods.length; i++) {
+          Invoker invoker = table.get(methods[i]);
+          if (isStatic && !invoker.isStatic()) {
+            // fails on invocation, as reflection does
+            return null;
+          }
+          handles[i] = invoker.handle().asType(AccessGenerator.proxyMethodType(methods[i]));
+        }
+      } catch (IllegalAccessException e) {
+        return null;
+      }
+      return handles;
+    }
+  }
+
   /**
    * Invocation handler for the mapped methods.
    * 
@@ -287,7 +914,7 @@ public abstract class ProxyAccessor {
      * The methods mapping interface-&gt;target.
      */
     @NonNull
-    private final Map<Method, Invoker> methodsMap;
+    private final DispatchTable methodsMap;
 
     /**
      * The constructor.
@@ -297,8 +924,7 @@ public abstract class ProxyAccessor {
      * @param methodsMap
      *          the mapped methods.
      */
-    private DynamicInvocationHandler(@NonNull Object target,
-      @NonNull Map<Method, Invoker> methodsMap) {
+    private DynamicInvocationHandler(@NonNull Object target, @NonNull DispatchTable methodsMap) {
       this.target = target;
       this.methodsMap = methodsMap;
     }
@@ -315,6 +941,136 @@ public abstract class ProxyAccessor {
     }
   }
 
+  /**
+   * Invocation handler of the proxies of a {@link ProxyCursor}, whose target is moved by the
+   * cursor.
+   * 
+   * @author Alessandro Nistico
+   */
+  private static final class CursorInvocationHandler implements InvocationHandler {
+
+    /**
+     * The current target; set through {@link ProxyAccessor#SET_CURSOR_TARGET}.
+     */
+    @CheckForNull
+    private Object target;
+
+    @NonNull
+    private final DispatchTable methodsMap;
+
+    private CursorInvocationHandler(@NonNull DispatchTable methodsMap) {
+      this.methodsMap = methodsMap;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      try {
+        return methodsMap.get(method).invoke(target, args);
+      } catch (InvocationTargetException ie) {
+        throw ie.getTargetException();
+      }
+    }
+  }
+
+  /**
+   * The {@link Invoker}s of the methods of an interface, in an open addressing table indexed by the
+   * name and the number of parameters of the methods.
+   * <p>
+   * Unlike a {@link HashMap}, a lookup neither hashes the {@link Method}, which combines the hash
+   * codes of two strings, nor usually calls {@link Method#equals(Object)}: the names of methods
+   * are interned strings with cached hash codes, and the table is at most half full, so a lookup
+   * is mostly a single identity comparison against the method cached by the proxy class.
+   * </p>
+   * 
+   * @author Alessandro Nistico
+   */
+  private static final class DispatchTable {
+
+    @NonNull
+    private final Method[] methods;
+
+    /**
+     * The invokers of the methods, each matched on first use; being immutable, they are published
+     * without locking.
+     */
+    @NonNull
+    private final Invoker[] invokers;
+
+    private final int mask;
+
+    @NonNull
+    private final Class<?> targetClass;
+
+    @NonNull
+    private final Map<String, String> namesMapping;
+
+    /**
+     * The strategy of the backends, <code>null</code> to select it for each member.
+     */
+    @CheckForNull
+    private final AccessStrategy strategy;
+
+    private DispatchTable(@NonNull Method[] methods, @NonNull Class<?> targetClass,
+      @NonNull Map<String, String> namesMapping, @CheckForNull AccessStrategy strategy) {
+      int size = Integer.highestOneBit(Math.max(methods.length, 1)) << 2;
+      this.methods = new Method[size];
+      this.invokers = new Invoker[size];
+      this.mask = size - 1;
+      this.targetClass = targetClass;
+      this.namesMapping = namesMapping;
+      this.strategy = strategy;
+      for (int i = 0; i < methods.length; i++) {
+        int index = index(methods[i]);
+        while (this.methods[index] != null) {
+          index = (index + 1) & mask;
+        }
+        this.methods[index] = methods[i];
+      }
+    }
+
+    private int index(@NonNull Method method) {
+      return (method.getName().hashCode() * 31 + method.getParameterCount()) & mask;
+    }
+
+    /**
+     * @return the invoker of the method.
+     * @throws UnsupportedOperationException
+     *           if the method is not mapped, as the methods of {@link Object}.
+     * @throws RuntimeException
+     *           if the target class doesn't match the method.
+     */
+    @NonNull
+    Invoker get(@NonNull Method method) {
+      for (int index = index(method);; index = (index + 1) & mask) {
+        Method candidate = methods[index];
+        if (candidate == method) {
+          return invoker(index);
+        }
+        if (candidate == null) {
+          throw new UnsupportedOperationException("No mapping for method: " + method);
+        }
+        if (candidate.equals(method)) {
+          // remember the instance used by the proxy class, that is always the same
+          methods[index] = method;
+          return invoker(index);
+        }
+      }
+    }
+
+    @NonNull
+    private Invoker invoker(int index) {
+      Invoker invoker = invokers[index];
+      if (invoker == null) {
+        // racy but idempotent, the invoker is immutable
+        invoker = getInvoker(methods[index], targetClass, namesMapping, strategy);
+        invokers[index] = invoker;
+      }
+      return invoker;
+    }
+  }
+
   /**
    * Invocation abstraction for accessing methods and fields.
    * 
@@ -324,10 +1080,23 @@ public abstract class ProxyAccessor {
 
     Object invoke(@NonNull Object obj, @NonNull Object... args) throws IllegalAccessException,
       IllegalArgumentException, InvocationTargetException;
+
+    /**
+     * @return whether the member is static.
+     */
+    boolean isStatic();
+
+    /**
+     * @return a handle equivalent to {@link #invoke(Object, Object...)}, taking the target
+     *         followed by the arguments.
+     */
+    @NonNull
+    MethodHandle handle() throws IllegalAccessException;
   }
 
   /**
-   * An {@link Invoker} to invoke a method.
+   * An {@link Invoker} to invoke a method, through the backend created by the strategy of the
+   * proxy or, if none, by the one selected by {@link AccessStrategies} for it.
    * 
    * @author Alessandro Nistico
    */
@@ -336,14 +1105,29 @@ public abstract class ProxyAccessor {
     @NonNull
     private final Method delegate;
 
-    private MethodInvoker(@NonNull Method delegate) {
+    @NonNull
+    private final MethodAccess access;
+
+    private MethodInvoker(@NonNull Method delegate, @CheckForNull AccessStrategy strategy) {
       this.delegate = delegate;
+      this.access = AccessStrategies.methodAccess(delegate, strategy);
     }
 
     @Override
     public Object invoke(Object obj, Object... args) throws IllegalAccessException,
       IllegalArgumentException, InvocationTargetException {
-      return delegate.invoke(obj, args);
+      return access.invoke(obj, args == null ? NO_ARGUMENTS : args);
+    }
+
+    @Override
+    public boolean isStatic() {
+      return Modifier.isStatic(delegate.getModifiers());
+    }
+
+    @Override
+    public MethodHandle handle() throws IllegalAccessException {
+      MethodHandle handle = MethodHandles.lookup().unreflect(delegate);
+      return isStatic() ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
     }
   }
 
@@ -357,14 +1141,29 @@ public abstract class ProxyAccessor {
     @NonNull
     private final Field accessor;
 
-    private FieldGetter(@NonNull Field accessor) {
+    @NonNull
+    private final FieldAccess access;
+
+    private FieldGetter(@NonNull Field accessor, @CheckForNull AccessStrategy strategy) {
       this.accessor = accessor;
+      this.access = AccessStrategies.fieldAccess(accessor, strategy);
     }
 
     @Override
     public Object invoke(Object obj, Object... args) throws IllegalAccessException,
       IllegalArgumentException, InvocationTargetException {
-      return accessor.get(obj);
+      return access.get(obj);
+    }
+
+    @Override
+    public boolean isStatic() {
+      return Modifier.isStatic(accessor.getModifiers());
+    }
+
+    @Override
+    public MethodHandle handle() throws IllegalAccessException {
+      MethodHandle handle = MethodHandles.lookup().unreflectGetter(accessor);
+      return isStatic() ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
     }
   }
 
@@ -378,15 +1177,129 @@ public abstract class ProxyAccessor {
     @NonNull
     private final Field accessor;
 
-    private FieldSetter(@NonNull Field accessor) {
+    @NonNull
+    private final FieldAccess access;
+
+    private FieldSetter(@NonNull Field accessor, @CheckForNull AccessStrategy strategy) {
       this.accessor = accessor;
+      this.access = AccessStrategies.fieldAccess(accessor, strategy);
     }
 
     @Override
     public Object invoke(Object obj, Object... args) throws IllegalAccessException,
       IllegalArgumentException, InvocationTargetException {
-      accessor.set(obj, args[0]);
+      access.set(obj, args[0]);
       return null;
     }
+
+    @Override
+    public boolean isStatic() {
+      return Modifier.isStatic(accessor.getModifiers());
+    }
+
+    @Override
+    public MethodHandle handle() throws IllegalAccessException {
+      MethodHandle handle = MethodHandles.lookup().unreflectSetter(accessor);
+      return isStatic() ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+    }
+  }
+
+  /**
+   * A plan held weakly, removed from the plans of its target class once reclaimed.
+   * 
+   * @author Alessandro Nistico
+   */
+  private static final class PlanReference extends WeakReference<ProxyPlan> {
+
+    @NonNull
+    final ConcurrentMap<ProxyKey, Object> plans;
+
+    @NonNull
+    final ProxyKey key;
+
+    PlanReference(@NonNull ProxyPlan plan, @NonNull ConcurrentMap<ProxyKey, Object> plans,
+      @NonNull ProxyKey key) {
+      super(plan, RECLAIMED);
+      this.plans = plans;
+      this.key = key;
+    }
+  }
+
+  /**
+   * The shape of a proxy within a target class: the interface, whether the target is the class
+   * itself, the names mapping and the strategy of the backends.
+   * 
+   * @author Alessandro Nistico
+   */
+  private static final class ProxyKey {
+
+    /**
+     * The interface: the class itself while looking up, a {@link WeakReference} once stored.
+     */
+    @NonNull
+    private final Object type;
+
+    private final boolean isStatic;
+
+    @NonNull
+    private final Map<String, String> namesMapping;
+
+    /**
+     * The strategy of the backends, <code>null</code> to select it for each member.
+     */
+    @CheckForNull
+    private final AccessStrategy strategy;
+
+    private final int hash;
+
+    private ProxyKey(@NonNull Class<?> type, boolean isStatic,
+      @NonNull Map<String, String> namesMapping, @CheckForNull AccessStrategy strategy) {
+      this(type, isStatic, namesMapping, strategy, ((type.hashCode() * 31 + namesMapping.hashCode()) * 31 + System.identityHashCode(strategy)) * 31 + (isStatic ? 1 : 0));
+    }
+
+    private ProxyKey(@NonNull Object type, boolean isStatic,
+      @NonNull Map<String, String> namesMapping, @CheckForNull AccessStrategy strategy, int hash) {
+      this.type = type;
+      this.isStatic = isStatic;
+      this.namesMapping = namesMapping;
+      this.strategy = strategy;
+      this.hash = hash;
+    }
+
+    /**
+     * @return the interface, <code>null</code> if it has been unloaded.
+     */
+    @SuppressWarnings("unchecked")
+    @CheckForNull
+    Class<?> type() {
+      return type instanceof Class<?> ? (Class<?>) type : ((Reference<Class<?>>) type).get();
+    }
+
+    /**
+     * @return a copy safe to be stored, since the mapping comes from the callers, that does not
+     *         keep the interface alive.
+     */
+    @NonNull
+    ProxyKey copy() {
+      return new ProxyKey(new WeakReference<Class<?>>(type()), isStatic, new HashMap<String, String>(namesMapping), strategy, hash);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ProxyKey)) {
+        return false;
+      }
+      ProxyKey other = (ProxyKey) obj;
+      Class<?> type = type();
+      return hash == other.hash && type != null && type == other.type() && isStatic == other.isStatic && strategy == other.strategy && namesMapping.equals(other.namesMapping);
+    }
   }
 }
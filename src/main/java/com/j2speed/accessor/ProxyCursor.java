@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.NoSuchElementException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A single proxy, created through {@link ProxyAccessor#createCursor(Class, Class, java.util.Map)},
+ * that is moved from a target to another instead of creating a proxy for each target.
+ * <p>
+ * The cursor walks an array or a {@link List} of targets, allocating nothing per element:
+ * 
+ * <pre>
+ * ProxyCursor&lt;TestObjectAccess&gt; cursor = ProxyAccessor.createCursor(TestObjectAccess.class, TestObject.class);
+ * TestObjectAccess access = cursor.get();
+ * for (cursor.over(objects); cursor.next();) {
+ *   total += access.getAPrivate();
+ * }
+ * </pre>
+ * 
+ * </p>
+ * <p>
+ * A cursor is not thread safe: it must be confined to a thread, as an iterator.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ * 
+ * @param <T>
+ *          the type of the interface.
+ */
+public final class ProxyCursor<T> {
+
+  @NonNull
+  private final T proxy;
+
+  @NonNull
+  private final Class<?> targetClass;
+
+  /**
+   * Sets the target of the proxy, with type <code>(Object)void</code>.
+   */
+  @NonNull
+  private final MethodHandle setTarget;
+
+  /**
+   * The targets walked, either an array or a {@link List}.
+   */
+  @CheckForNull
+  private Object[] array;
+
+  @CheckForNull
+  private List<?> list;
+
+  private int size;
+
+  private int index = -1;
+
+  ProxyCursor(@NonNull T proxy, @NonNull Class<?> targetClass, @NonNull MethodHandle setTarget) {
+    this.proxy = proxy;
+    this.targetClass = targetClass;
+    this.setTarget = setTarget;
+  }
+
+  /**
+   * @return the proxy, always the same instance, on the current target.
+   */
+  @NonNull
+  public T get() {
+    return proxy;
+  }
+
+  /**
+   * Moves the proxy to the specified target.
+   * 
+   * @param target
+   *          an instance of the target class.
+   * @return the proxy.
+   * @throws IllegalArgumentException
+   *           if the target is not an instance of the target class.
+   */
+  @NonNull
+  public T retarget(@NonNull Object target) {
+    if (!targetClass.isInstance(target)) {
+      throw new IllegalArgumentException("Not an instance of " + targetClass.getName() + ": " + target);
+    }
+    try {
+      setTarget.invokeExact(target);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+    return proxy;
+  }
+
+  /**
+   * Walks the specified targets, starting before the first one.
+   * 
+   * @param targets
+   *          the targets, that must not change while walked.
+   * @return this cursor.
+   */
+  @NonNull
+  public ProxyCursor<T> over(@NonNull Object[] targets) {
+    array = targets;
+    list = null;
+    size = targets.length;
+    index = -1;
+    return this;
+  }
+
+  /**
+   * Walks the specified targets, starting before the first one. The targets are accessed by index,
+   * so the list should implement {@link java.util.RandomAccess}.
+   * 
+   * @param targets
+   *          the targets, that must not change while walked.
+   * @return this cursor.
+   */
+  @NonNull
+  public ProxyCursor<T> over(@NonNull List<?> targets) {
+    array = null;
+    list = targets;
+    size = targets.size();
+    index = -1;
+    return this;
+  }
+
+  /**
+   * Moves the proxy to the next target.
+   * 
+   * @return <code>false</code> if there are no more targets.
+   */
+  public boolean next() {
+    if (index + 1 >= size) {
+      index = size;
+      return false;
+    }
+    moveTo(index + 1);
+    return true;
+  }
+
+  /**
+   * Moves the proxy to the target at the specified position.
+   * 
+   * @param index
+   *          the position of the target.
+   * @return the proxy.
+   * @throws NoSuchElementException
+   *           if there is no target at the position.
+   */
+  @NonNull
+  public T moveTo(int index) {
+    if (index < 0 || index >= size) {
+      throw new NoSuchElementException("No target at " + index + ", size " + size);
+    }
+    retarget(array != null ? array[index] : list.get(index));
+    this.index = index;
+    return proxy;
+  }
+
+  /**
+   * @return the position of the current target, <code>-1</code> before the first one.
+   */
+  public int index() {
+    return index;
+  }
+
+  /**
+   * @return the number of targets walked.
+   */
+  public int size() {
+    return size;
+  }
+}
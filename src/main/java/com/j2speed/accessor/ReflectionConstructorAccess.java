@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A {@link ConstructorAccess} backed by core reflection.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class ReflectionConstructorAccess implements ConstructorAccess {
+
+  @NonNull
+  private final Constructor<?> constructor;
+
+  ReflectionConstructorAccess(@NonNull Constructor<?> constructor) {
+    this.constructor = constructor;
+  }
+
+  @Override
+  public Object newInstance(Object[] args) throws InvocationTargetException {
+    try {
+      return constructor.newInstance(args);
+    } catch (InstantiationException e) {
+      throw new RuntimeException(e);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
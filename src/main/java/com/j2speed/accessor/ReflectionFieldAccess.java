@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.reflect.Field;
+import com.j2speed.accessor.spi.FieldAccess;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A {@link FieldAccess} backed by core reflection.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class ReflectionFieldAccess implements FieldAccess {
+
+  @NonNull
+  private final Field field;
+
+  ReflectionFieldAccess(@NonNull Field field) {
+    this.field = field;
+  }
+
+  @Override
+  public Object get(Object target) {
+    try {
+      return field.get(target);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void set(Object target, Object value) {
+    try {
+      field.set(target, value);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import com.j2speed.accessor.spi.MethodAccess;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A {@link MethodAccess} backed by core reflection.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+final class ReflectionMethodAccess implements MethodAccess {
+
+  @NonNull
+  private final Method method;
+
+  ReflectionMethodAccess(@NonNull Method method) {
+    this.method = method;
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+    try {
+      return method.invoke(target, args);
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Allow to access a private static <code>boolean</code> field of a class without boxing its value.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ * 
+ * @param <T>
+ *          the type of the class containing the field.
+ */
+public class StaticBooleanFieldAccessor<T> extends BaseFieldAccessor<T, Boolean> {
+
+  /**
+   * The getter for the field, with type <code>()boolean</code>.
+   */
+  @NonNull
+  private final MethodHandle booleanGetter;
+
+  /**
+   * The setter for the field, with type <code>(boolean)void</code>.
+   */
+  @CheckForNull
+  private final MethodHandle booleanSetter;
+
+  /**
+   * Generic builder. Convenience to remove generics pollution while creating an accessor.
+   * 
+   * @param <T>
+   *          the type of the class containing the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class declaring the field
+   * @return an instance of {@link StaticBooleanFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> StaticBooleanFieldAccessor<T> make(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new StaticBooleanFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class declaring the field
+   * @throws IllegalArgumentException
+   *           if the field is not static or is not of type <code>boolean</code>.
+   */
+  public StaticBooleanFieldAccessor(@NonNull String fieldName, @NonNull Class<? extends T> type) {
+    super(fieldName, type);
+    checkStatic(type);
+    checkType(boolean.class);
+    booleanGetter = getter(boolean.class);
+    booleanSetter = setter(boolean.class);
+  }
+
+  /**
+   * Gets the value of the field.
+   * 
+   * @return the current field value.
+   */
+  public final boolean getBoolean() {
+    try {
+      return (boolean) booleanGetter.invokeExact();
+    } catch (Throwable e) {
+      throw accessFailure(e);
+    }
+  }
+
+  /**
+   * Sets the value for the field.
+   * 
+   * @param value
+   *          the value to set.
+   */
+  public final void setBoolean(boolean value) {
+    MethodHandle setter = checkWritable(booleanSetter);
+    try {
+      setter.invokeExact(value);
+    } catch (Throwable e) {
+      throw accessFailure(e);
+    }
+  }
+}
@@ -15,11 +15,18 @@
  */
 package com.j2speed.accessor;
 
-import java.lang.reflect.Modifier;
+import java.lang.invoke.VarHandle;
+import java.util.function.UnaryOperator;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.FieldAccess;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
  * Allow to access a private static field of a class.
+ * <p>
+ * Besides plain reads and writes, the accessor offers the atomic and memory ordered accesses of a
+ * {@link VarHandle}.
+ * </p>
  * 
  * @version trunk
  * @since 0.8
@@ -32,6 +39,12 @@ import edu.umd.cs.findbugs.annotations.NonNull;
  */
 public class StaticFieldAccessor<T, V> extends BaseFieldAccessor<T, V> {
 
+  /**
+   * The access to the field.
+   */
+  @NonNull
+  private final FieldAccess access;
+
   /**
    * Generic builder. Convenience to remove generics pollution while creating an accessor.
    * 
@@ -51,6 +64,27 @@ public class StaticFieldAccessor<T, V> extends BaseFieldAccessor<T, V> {
     return new StaticFieldAccessor<T, V>(fieldName, type);
   }
 
+  /**
+   * Generic builder accessing the field through the specified strategy.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the field.
+   * @param <V>
+   *          the type of the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class from which to start searching the field
+   * @param strategy
+   *          the strategy creating the access to the field.
+   * @return an instance of {@link StaticFieldAccessor} with the specified generic parameters.
+   */
+  @NonNull
+  public static <T, V> StaticFieldAccessor<T, V> make(@NonNull String fieldName,
+    @NonNull Class<? extends T> type, @NonNull AccessStrategy strategy) {
+    return new StaticFieldAccessor<T, V>(fieldName, type, strategy);
+  }
+
   /**
    * Constructor.
    * 
@@ -61,12 +95,29 @@ public class StaticFieldAccessor<T, V> extends BaseFieldAccessor<T, V> {
    */
   public StaticFieldAccessor(@NonNull String fieldName, @NonNull Class<? extends T> type) {
     super(fieldName, type);
-    if (!Modifier.isStatic(field.getModifiers())) {
-      throw new IllegalArgumentException("Field " + fieldName + " is not static");
-    }
-    if (!field.getDeclaringClass().equals(type)) {
-      throw new IllegalArgumentException("Field " + fieldName + " is not declared by the class " + type);
+    checkStatic(type);
+    access = fieldAccess(null);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the target from which to get the value
+   * @param strategy
+   *          the strategy creating the access to the field, instead of the one selected by
+   *          {@link AccessStrategies}.
+   */
+  public StaticFieldAccessor(@NonNull String fieldName, @NonNull Class<? extends T> type,
+    @NonNull AccessStrategy strategy) {
+    super(fieldName, type);
+    if (strategy == null) {
+      throw new NullPointerException();
     }
+    checkStatic(type);
+    access = fieldAccess(strategy);
   }
 
   /**
@@ -77,11 +128,9 @@ public class StaticFieldAccessor<T, V> extends BaseFieldAccessor<T, V> {
   @SuppressWarnings("unchecked")
   public final V get() {
     try {
-      return (V) field.get(null);
+      return (V) access.get(null);
     } catch (RuntimeException e) {
-      throw e;
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+      throw accessFailure(e);
     }
   }
 
@@ -92,11 +141,182 @@ public class StaticFieldAccessor<T, V> extends BaseFieldAccessor<T, V> {
    */
   public final void set(V value) {
     try {
-      field.set(null, value);
+      access.set(null, value);
+    } catch (RuntimeException e) {
+      throw writeFailure(e, value);
+    }
+  }
+
+  /**
+   * Gets the value of the field with volatile memory semantics.
+   * 
+   * @return the current field value.
+   */
+  @SuppressWarnings("unchecked")
+  public final V getVolatile() {
+    try {
+      Object value = varHandle().getVolatile();
+      return (V) value;
+    } catch (RuntimeException e) {
+      throw accessFailure(e);
+    }
+  }
+
+  /**
+   * Sets the value for the field with volatile memory semantics.
+   * 
+   * @param value
+   *          the value to set.
+   */
+  public final void setVolatile(V value) {
+    try {
+      varHandle().setVolatile((Object) value);
+    } catch (RuntimeException e) {
+      throw writeFailure(e, value);
+    }
+  }
+
+  /**
+   * Gets the value of the field with acquire memory semantics.
+   * 
+   * @return the current field value.
+   */
+  @SuppressWarnings("unchecked")
+  public final V getAcquire() {
+    try {
+      Object value = varHandle().getAcquire();
+      return (V) value;
+    } catch (RuntimeException e) {
+      throw accessFailure(e);
+    }
+  }
+
+  /**
+   * Sets the value for the field with release memory semantics.
+   * 
+   * @param value
+   *          the value to set.
+   */
+  public final void setRelease(V value) {
+    try {
+      varHandle().setRelease((Object) value);
+    } catch (RuntimeException e) {
+      throw writeFailure(e, value);
+    }
+  }
+
+  /**
+   * Gets the value of the field in program order, with no assurance of memory ordering effects
+   * with respect to other threads.
+   * 
+   * @return the current field value.
+   */
+  @SuppressWarnings("unchecked")
+  public final V getOpaque() {
+    try {
+      Object value = varHandle().getOpaque();
+      return (V) value;
+    } catch (RuntimeException e) {
+      throw accessFailure(e);
+    }
+  }
+
+  /**
+   * Sets the value for the field in program order, with no assurance of memory ordering effects
+   * with respect to other threads.
+   * 
+   * @param value
+   *          the value to set.
+   */
+  public final void setOpaque(V value) {
+    try {
+      varHandle().setOpaque((Object) value);
+    } catch (RuntimeException e) {
+      throw writeFailure(e, value);
+    }
+  }
+
+  /**
+   * Atomically sets the value of the field to <code>newValue</code> if its current value is
+   * <code>expected</code>, with volatile memory semantics.
+   * <p>
+   * Reference fields are compared by identity, primitive fields by value.
+   * </p>
+   * 
+   * @param expected
+   *          the expected current value.
+   * @param newValue
+   *          the new value.
+   * @return <code>true</code> if the value was set.
+   */
+  public final boolean compareAndSet(V expected, V newValue) {
+    try {
+      return varHandle().compareAndSet((Object) expected, (Object) newValue);
+    } catch (RuntimeException e) {
+      // neither of the values can be null for primitive fields
+      throw writeFailure(e, expected == null ? null : newValue);
+    }
+  }
+
+  /**
+   * Atomically sets the value of the field, with volatile memory semantics.
+   * 
+   * @param value
+   *          the value to set.
+   * @return the previous field value.
+   */
+  @SuppressWarnings("unchecked")
+  public final V getAndSet(V value) {
+    try {
+      Object previous = varHandle().getAndSet((Object) value);
+      return (V) previous;
+    } catch (RuntimeException e) {
+      throw writeFailure(e, value);
+    }
+  }
+
+  /**
+   * Atomically adds the specified delta to the value of the field, with volatile memory semantics.
+   * Only supported by numeric fields.
+   * 
+   * @param delta
+   *          the value to add.
+   * @return the previous field value.
+   * @throws UnsupportedOperationException
+   *           if the field is not numeric.
+   */
+  @SuppressWarnings("unchecked")
+  public final V getAndAdd(V delta) {
+    try {
+      Object previous = varHandle().getAndAdd((Object) delta);
+      return (V) previous;
+    } catch (RuntimeException e) {
+      throw writeFailure(e, delta);
+    }
+  }
+
+  /**
+   * Atomically updates the value of the field with the result of the specified function, retrying
+   * while other threads change it concurrently. The function may be applied more than once, so it
+   * must be free of side effects.
+   * 
+   * @param update
+   *          the function computing the new value from the current one.
+   * @return the previous field value.
+   */
+  @SuppressWarnings("unchecked")
+  public final V getAndUpdate(@NonNull UnaryOperator<V> update) {
+    VarHandle handle = varHandle();
+    try {
+      while (true) {
+        Object previous = handle.getVolatile();
+        V next = update.apply((V) previous);
+        if (handle.weakCompareAndSet(previous, (Object) next)) {
+          return (V) previous;
+        }
+      }
     } catch (RuntimeException e) {
-      throw e;
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+      throw accessFailure(e);
     }
   }
 }
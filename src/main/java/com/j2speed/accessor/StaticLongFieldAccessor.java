@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.invoke.MethodHandle;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Allow to access a private static <code>long</code> field of a class without boxing its value.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ * 
+ * @param <T>
+ *          the type of the class containing the field.
+ */
+public class StaticLongFieldAccessor<T> extends BaseFieldAccessor<T, Long> {
+
+  /**
+   * The getter for the field, with type <code>()long</code>.
+   */
+  @NonNull
+  private final MethodHandle longGetter;
+
+  /**
+   * The setter for the field, with type <code>(long)void</code>.
+   */
+  @CheckForNull
+  private final MethodHandle longSetter;
+
+  /**
+   * Generic builder. Convenience to remove generics pollution while creating an accessor.
+   * 
+   * @param <T>
+   *          the type of the class containing the field.
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class declaring the field
+   * @return an instance of {@link StaticLongFieldAccessor} with the specified generic parameter.
+   */
+  @NonNull
+  public static <T> StaticLongFieldAccessor<T> make(@NonNull String fieldName,
+    @NonNull Class<? extends T> type) {
+    return new StaticLongFieldAccessor<T>(fieldName, type);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param fieldName
+   *          the field name
+   * @param type
+   *          the class declaring the field
+   * @throws IllegalArgumentException
+   *           if the field is not static or is not of type <code>long</code>.
+   */
+  public StaticLongFieldAccessor(@NonNull String fieldName, @NonNull Class<? extends T> type) {
+    super(fieldName, type);
+    checkStatic(type);
+    checkType(long.class);
+    longGetter = getter(long.class);
+    longSetter = setter(long.class);
+  }
+
+  /**
+   * Gets the value of the field.
+   * 
+   * @return the current field value.
+   */
+  public final long getLong() {
+    try {
+      return (long) longGetter.invokeExact();
+    } catch (Throwable e) {
+      throw accessFailure(e);
+    }
+  }
+
+  /**
+   * Sets the value for the field.
+   * 
+   * @param value
+   *          the value to set.
+   */
+  public final void setLong(long value) {
+    MethodHandle setter = checkWritable(longSetter);
+    try {
+      setter.invokeExact(value);
+    } catch (Throwable e) {
+      throw accessFailure(e);
+    }
+  }
+}
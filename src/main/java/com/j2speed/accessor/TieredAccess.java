@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import com.j2speed.accessor.spi.FieldAccess;
+import com.j2speed.accessor.spi.MethodAccess;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A backend that starts on core reflection, which costs nothing to set up, and counts its
+ * invocations: once they reach a threshold it creates, through another strategy, a compiled backend
+ * and delegates to it from then on.
+ * <p>
+ * The counter is a plain field: increments lost to races only delay the upgrade a little. The
+ * compiled backend is created once, under the lock of the tiered one, and published through a
+ * volatile field, so any thread that sees it sees it fully initialized. If the strategy declines
+ * the member or fails, the backend stays on reflection.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ * 
+ * @param <A>
+ *          the type of the backend.
+ */
+abstract class TieredAccess<A> {
+
+  /**
+   * The backend used until the upgrade.
+   */
+  @NonNull
+  private final A reflective;
+
+  @NonNull
+  private final AccessStrategy upgrade;
+
+  private final int threshold;
+
+  /**
+   * The invocations so far, counted until the upgrade.
+   */
+  private int count;
+
+  /**
+   * The compiled backend, once created.
+   */
+  @CheckForNull
+  private volatile A compiled;
+
+  TieredAccess(@NonNull A reflective, @NonNull AccessStrategy upgrade, int threshold) {
+    this.reflective = reflective;
+    this.upgrade = upgrade;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @return the backend to use for the current invocation.
+   */
+  @NonNull
+  final A access() {
+    A access = compiled;
+    if (access != null) {
+      return access;
+    }
+    if (++count < threshold) {
+      return reflective;
+    }
+    return upgrade();
+  }
+
+  /**
+   * @return <code>true</code> once the compiled backend is in use.
+   */
+  final boolean isUpgraded() {
+    return compiled != null;
+  }
+
+  @NonNull
+  private synchronized A upgrade() {
+    A access = compiled;
+    if (access == null) {
+      try {
+        access = compile(upgrade);
+      } catch (RuntimeException e) {
+        access = null;
+      }
+      compiled = access = access != null ? access : reflective;
+    }
+    return access;
+  }
+
+  /**
+   * Creates the compiled backend.
+   * 
+   * @param strategy
+   *          the strategy creating it.
+   * @return the backend, <code>null</code> if the strategy declines the member.
+   */
+  @CheckForNull
+  abstract A compile(@NonNull AccessStrategy strategy);
+
+  /**
+   * A tiered {@link FieldAccess}.
+   */
+  static final class ForField extends TieredAccess<FieldAccess> implements FieldAccess {
+
+    @NonNull
+    private final Field field;
+
+    ForField(@NonNull Field field, @NonNull AccessStrategy upgrade,
+      int threshold) {
+      super(new ReflectionFieldAccess(field), upgrade, threshold);
+      this.field = field;
+    }
+
+    @Override
+    FieldAccess compile(AccessStrategy strategy) {
+      return strategy.fieldAccess(field);
+    }
+
+    @Override
+    public Object get(Object target) {
+      return access().get(target);
+    }
+
+    @Override
+    public void set(Object target, Object value) {
+      access().set(target, value);
+    }
+  }
+
+  /**
+   * A tiered {@link MethodAccess}.
+   */
+  static final class ForMethod extends TieredAccess<MethodAccess> implements MethodAccess {
+
+    @NonNull
+    private final Method method;
+
+    ForMethod(@NonNull Method method, @NonNull AccessStrategy upgrade, int threshold) {
+      super(new ReflectionMethodAccess(method), upgrade, threshold);
+      this.method = method;
+    }
+
+    @Override
+    MethodAccess compile(AccessStrategy strategy) {
+      return strategy.methodAccess(method);
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+      return access().invoke(target, args);
+    }
+  }
+
+  /**
+   * A tiered {@link ConstructorAccess}.
+   */
+  static final class ForConstructor extends TieredAccess<ConstructorAccess> implements
+    ConstructorAccess {
+
+    @NonNull
+    private final Constructor<?> constructor;
+
+    ForConstructor(@NonNull Constructor<?> constructor, @NonNull AccessStrategy upgrade,
+      int threshold) {
+      super(new ReflectionConstructorAccess(constructor), upgrade, threshold);
+      this.constructor = constructor;
+    }
+
+    @Override
+    ConstructorAccess compile(AccessStrategy strategy) {
+      return strategy.constructorAccess(constructor);
+    }
+
+    @Override
+    public Object newInstance(Object[] args) throws InvocationTargetException {
+      return access().newInstance(args);
+    }
+  }
+}
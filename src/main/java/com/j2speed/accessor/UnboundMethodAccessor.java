@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.MethodAccess;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * An accessor to a method that is resolved once from a class and can then be invoked on any
+ * instance of that class.
+ * <p>
+ * Where a {@link MethodAccessor} is bound to a single target, this accessor pays the method lookup
+ * only once and can be reused over many instances of the same type, as {@link FieldAccessor} does
+ * for fields:
+ * 
+ * <pre>
+ * UnboundMethodAccessor&lt;TestObject, Integer&gt; getPrivate = UnboundMethodAccessor.make(&quot;getPrivate&quot;, TestObject.class);
+ * for (TestObject test : tests) {
+ *   total += getPrivate.invoke(test);
+ * }
+ * </pre>
+ * 
+ * </p>
+ * <p>
+ * Static methods are supported as well, in which case the target is ignored and can be
+ * <code>null</code>.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ * 
+ * @param <T>
+ *          the type of the target type which hierarchy contains the method.
+ * @param <R>
+ *          the return type of the method
+ */
+public class UnboundMethodAccessor<T, R> {
+
+  /**
+   * The method to invoke.
+   */
+  @NonNull
+  private final Method method;
+
+  /**
+   * The backend invoking the method.
+   */
+  @NonNull
+  private final MethodAccess access;
+
+  /**
+   * Generic builder. Convenience to remove generics pollution while creating an accessor.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the method.
+   * @param <R>
+   *          the return type of the method
+   * @param methodName
+   *          the method name
+   * @param type
+   *          the class from which to start searching the method
+   * @param parametersType
+   *          the parameters signature.
+   * @return an instance of {@link UnboundMethodAccessor} with the specified generic parameters.
+   */
+  @NonNull
+  public static <T, R> UnboundMethodAccessor<T, R> make(@NonNull String methodName,
+    @NonNull Class<? extends T> type, @NonNull Class<?>... parametersType) {
+    return new UnboundMethodAccessor<T, R>(methodName, type, parametersType);
+  }
+
+  /**
+   * Generic builder invoking the method through the specified strategy.
+   * 
+   * @param <T>
+   *          the type of the target type which hierarchy contains the method.
+   * @param <R>
+   *          the return type of the method
+   * @param strategy
+   *          the strategy creating the access to the method.
+   * @param methodName
+   *          the method name
+   * @param type
+   *          the class from which to start searching the method
+   * @param parametersType
+   *          the parameters signature.
+   * @return an instance of {@link UnboundMethodAccessor} with the specified generic parameters.
+   */
+  @NonNull
+  public static <T, R> UnboundMethodAccessor<T, R> make(@NonNull AccessStrategy strategy,
+    @NonNull String methodName, @NonNull Class<? extends T> type,
+    @NonNull Class<?>... parametersType) {
+    return new UnboundMethodAccessor<T, R>(strategy, methodName, type, parametersType);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param methodName
+   *          the method name
+   * @param type
+   *          the class from which to start searching the method
+   * @param parametersType
+   *          the parameters signature.
+   */
+  public UnboundMethodAccessor(@NonNull String methodName, @NonNull Class<? extends T> type,
+    @NonNull Class<?>... parametersType) {
+    if (methodName == null || type == null)
+      throw new NullPointerException();
+    method = AbstractMethodAccessor.getMethod(type, methodName, parametersType);
+    access = AccessStrategies.methodAccess(method, null);
+  }
+
+  /**
+   * Constructor for an already resolved method, accessed through the strategy selected by
+   * {@link AccessStrategies}.
+   * 
+   * @param method
+   *          the accessible method.
+   */
+  UnboundMethodAccessor(@NonNull Method method) {
+    this.method = method;
+    access = AccessStrategies.methodAccess(method, null);
+  }
+
+  /**
+   * Constructor invoking the method through the specified strategy.
+   * 
+   * @param strategy
+   *          the strategy creating the access to the method, instead of the one selected by
+   *          {@link AccessStrategies}.
+   * @param methodName
+   *          the method name
+   * @param type
+   *          the class from which to start searching the method
+   * @param parametersType
+   *          the parameters signature.
+   */
+  public UnboundMethodAccessor(@NonNull AccessStrategy strategy, @NonNull String methodName,
+    @NonNull Class<? extends T> type, @NonNull Class<?>... parametersType) {
+    if (strategy == null || methodName == null || type == null)
+      throw new NullPointerException();
+    method = AbstractMethodAccessor.getMethod(type, methodName, parametersType);
+    access = AccessStrategies.methodAccess(method, strategy);
+  }
+
+  /**
+   * Invoke the method on the specified target using the specified parameters.
+   * 
+   * @param target
+   *          the instance on which to invoke the method, ignored for static methods.
+   * @param args
+   *          the arguments for the method.
+   * @return the result of the specified type.
+   */
+  @SuppressWarnings("unchecked")
+  public final R invoke(@CheckForNull T target, @NonNull Object... args) {
+    if (target == null && !Modifier.isStatic(method.getModifiers())) {
+      throw new NullPointerException("Method " + method.getName() + " is not static");
+    }
+    return (R) AbstractMethodAccessor.invoke(method, access, target, args);
+  }
+
+  /**
+   * Implements the specified functional interface with the method, taking the target as the first
+   * parameter of the interface method unless the method is static.
+   * <p>
+   * The implementation is spun as for a method reference written in the class declaring the
+   * method, so calls to it can be inlined. Exceptions thrown by the method propagate unchanged.
+   * </p>
+   * 
+   * @param <F>
+   *          the type of the functional interface.
+   * @param type
+   *          the functional interface, such as {@link java.util.function.Function} or
+   *          {@link java.util.function.ToLongFunction}.
+   * @return the implementation of the interface.
+   * @throws IllegalArgumentException
+   *           if the type is not a functional interface or its method is not compatible with the
+   *           method.
+   */
+  @NonNull
+  public final <F> F as(@NonNull Class<F> type) {
+    return Lambdas.bind(type, method, null);
+  }
+
+  /**
+   * Creates a {@link MethodAccessor} bound to the specified target that shares the method
+   * resolved by this accessor, with no further lookup.
+   * 
+   * @param target
+   *          the target object
+   * @return an instance of {@link MethodAccessor} bound to the target.
+   */
+  @NonNull
+  public final MethodAccessor<R> bindTo(@NonNull T target) {
+    if (!method.getDeclaringClass().isInstance(target)) {
+      throw new IllegalArgumentException("Target of type " + target.getClass() + " is not an instance of " + method.getDeclaringClass());
+    }
+    return new MethodAccessor<R>(method, access, target);
+  }
+}
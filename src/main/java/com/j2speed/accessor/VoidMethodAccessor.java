@@ -15,6 +15,7 @@
  */
 package com.j2speed.accessor;
 
+import com.j2speed.accessor.spi.AccessStrategy;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
@@ -41,6 +42,24 @@ public class VoidMethodAccessor extends AbstractMethodAccessor<Void> {
     super(methodName, target, parametersType);
   }
 
+  /**
+   * Constructor invoking the method through the specified strategy, instead of the one selected by
+   * {@link AccessStrategies}.
+   * 
+   * @param strategy
+   *          the strategy creating the access to the method.
+   * @param methodName
+   *          the method name
+   * @param target
+   *          the target object
+   * @param parametersType
+   *          the parameters signature.
+   */
+  public VoidMethodAccessor(@NonNull AccessStrategy strategy, @NonNull String methodName,
+    @NonNull Object target, @NonNull Class<?>... parametersType) {
+    super(checkStrategy(strategy), methodName, target, parametersType);
+  }
+
   /**
    * Common method invocation.
    * 
@@ -50,4 +69,99 @@ public class VoidMethodAccessor extends AbstractMethodAccessor<Void> {
   public void invoke(@NonNull Object... args) {
     super.invokeBase(args);
   }
+
+  /**
+   * Invoke the method with no arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} if the method takes any argument.
+   * </p>
+   */
+  public void invoke0() {
+    super.invokeBase0();
+  }
+
+  /**
+   * Invoke the method with one argument, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes one argument.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   */
+  public void invoke1(Object arg0) {
+    super.invokeBase1(arg0);
+  }
+
+  /**
+   * Invoke the method with two arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes two arguments.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @param arg1
+   *          the second argument.
+   */
+  public void invoke2(Object arg0, Object arg1) {
+    super.invokeBase2(arg0, arg1);
+  }
+
+  /**
+   * Invoke the method with three arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes three arguments.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @param arg1
+   *          the second argument.
+   * @param arg2
+   *          the third argument.
+   */
+  public void invoke3(Object arg0, Object arg1, Object arg2) {
+    super.invokeBase3(arg0, arg1, arg2);
+  }
+
+  /**
+   * Invoke the method with four arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes four arguments.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @param arg1
+   *          the second argument.
+   * @param arg2
+   *          the third argument.
+   * @param arg3
+   *          the fourth argument.
+   */
+  public void invoke4(Object arg0, Object arg1, Object arg2, Object arg3) {
+    super.invokeBase4(arg0, arg1, arg2, arg3);
+  }
+
+  /**
+   * Invoke the method with five arguments, without allocating an arguments array.
+   * <p>
+   * Fails with an {@link IllegalArgumentException} unless the method takes five arguments.
+   * </p>
+   * 
+   * @param arg0
+   *          the first argument.
+   * @param arg1
+   *          the second argument.
+   * @param arg2
+   *          the third argument.
+   * @param arg3
+   *          the fourth argument.
+   * @param arg4
+   *          the fifth argument.
+   */
+  public void invoke5(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4) {
+    super.invokeBase5(arg0, arg1, arg2, arg3, arg4);
+  }
 }
@@ -0,0 +1,526 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import com.j2speed.accessor.AccessorFor;
+import com.j2speed.accessor.CompiledAccessors;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Generates at build time the classes implementing the interfaces annotated with
+ * {@link AccessorFor}.
+ * <p>
+ * Each method of an interface is matched to a member of the target class, or of its superclasses,
+ * with the rules of {@link com.j2speed.accessor.ProxyAccessor}: a method with the same name and
+ * parameters, then a field through a JavaBean style getter or setter. A method that matches no
+ * member is a compilation error. The generated class, named after the interface with
+ * {@link CompiledAccessors#SUFFIX}, holds a static final handle for each member, that the JIT
+ * treats as a constant, and invokes it directly on its target.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+@SupportedAnnotationTypes("com.j2speed.accessor.AccessorFor")
+public class AccessorProcessor extends AbstractProcessor {
+
+  private static final String METHOD_HANDLE = "java.lang.invoke.MethodHandle";
+
+  private static final String METHOD_TYPE = "java.lang.invoke.MethodType";
+
+  private static final String SUPPORT = CompiledAccessors.class.getName();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(AccessorFor.class)) {
+      if (element.getKind() != ElementKind.INTERFACE) {
+        error(element, "@AccessorFor only applies to interfaces");
+        continue;
+      }
+      TypeElement type = (TypeElement) element;
+      if (!isAccessible(type, packageOf(type))) {
+        error(type, "@AccessorFor interfaces cannot be private");
+        continue;
+      }
+      TypeElement target = target(type);
+      if (target == null) {
+        // already reported by the compiler
+        continue;
+      }
+      List<Member> members = resolve(type, target);
+      if (members != null) {
+        try {
+          write(type, members);
+        } catch (IOException e) {
+          error(type, "Cannot write the accessor: " + e.getMessage());
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the target class of the annotation on the interface.
+   */
+  @CheckForNull
+  private TypeElement target(@NonNull TypeElement type) {
+    for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(AccessorFor.class.getName())) {
+        for (AnnotationValue value : annotation.getElementValues().values()) {
+          if (value.getValue() instanceof DeclaredType) {
+            return (TypeElement) ((DeclaredType) value.getValue()).asElement();
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Matches the methods of the interface to the members of the target class.
+   * 
+   * @return the members, <code>null</code> if some method did not match.
+   */
+  @CheckForNull
+  private List<Member> resolve(@NonNull TypeElement type, @NonNull TypeElement target) {
+    Types types = processingEnv.getTypeUtils();
+    Elements elements = processingEnv.getElementUtils();
+    List<Member> members = new ArrayList<Member>();
+    Set<String> implemented = new HashSet<String>();
+    boolean failed = false;
+    for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+      if (method.getEnclosingElement().getKind() != ElementKind.INTERFACE || !method.getModifiers().contains(Modifier.ABSTRACT)) {
+        continue;
+      }
+      ExecutableType view = (ExecutableType) types.asMemberOf((DeclaredType) type.asType(), method);
+      List<TypeMirror> parameters = new ArrayList<TypeMirror>();
+      for (TypeMirror parameter : view.getParameterTypes()) {
+        parameters.add(types.erasure(parameter));
+      }
+      if (!implemented.add(method.getSimpleName() + parameters.toString())) {
+        // the same method inherited from several interfaces
+        continue;
+      }
+      Member member = findMember(method, target);
+      if (member == null) {
+        error(method, "No member of " + target.getQualifiedName() + " for method " + method.getSimpleName());
+        failed = true;
+      } else {
+        member.parameters = parameters;
+        member.returnType = types.erasure(view.getReturnType());
+        member.thrown = view.getThrownTypes();
+        members.add(member);
+      }
+    }
+    return failed ? null : members;
+  }
+
+  /**
+   * Finds the member matched by the method, first among the methods, then among the fields through
+   * a JavaBean style mapping.
+   */
+  @CheckForNull
+  private Member findMember(@NonNull ExecutableElement method, @NonNull TypeElement target) {
+    Types types = processingEnv.getTypeUtils();
+    String name = method.getSimpleName().toString();
+    List<? extends VariableElement> parameters = method.getParameters();
+    TypeMirror returnType = types.erasure(method.getReturnType());
+    ExecutableElement targetMethod = findMethod(target, name, parameters);
+    if (targetMethod != null && isAssignable(returnType, types.erasure(targetMethod.getReturnType()))) {
+      return new Member(method, targetMethod, Member.METHOD);
+    }
+    if (parameters.isEmpty()) {
+      // could be a bean getter
+      if (name.startsWith("is") && name.length() > 2) {
+        VariableElement field = findField(target, fieldName(2, name));
+        if (field != null && isBoolean(returnType) && isBoolean(types.erasure(field.asType()))) {
+          return new Member(method, field, Member.GETTER);
+        }
+      } else if (name.startsWith("get") && name.length() > 3) {
+        VariableElement field = findField(target, fieldName(3, name));
+        if (field != null && (isType(returnType, Object.class) || types.isSameType(returnType, types.erasure(field.asType()))) && !isVoid(returnType)) {
+          return new Member(method, field, Member.GETTER);
+        }
+      }
+    } else if (parameters.size() == 1 && name.startsWith("set") && name.length() > 3) {
+      // could be a setter
+      VariableElement field = findField(target, fieldName(3, name));
+      if (field != null && types.isSameType(types.erasure(parameters.get(0).asType()), types.erasure(field.asType())) && isVoid(returnType)) {
+        return new Member(method, field, Member.SETTER);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Searches a method up the hierarchy of the target class, as
+   * {@link Class#getDeclaredMethod(String, Class...)} does on each class.
+   */
+  @CheckForNull
+  private ExecutableElement findMethod(@NonNull TypeElement target, @NonNull String name,
+    @NonNull List<? extends VariableElement> parameters) {
+    Types types = processingEnv.getTypeUtils();
+    for (TypeElement current = target; current != null; current = superclass(current)) {
+      for (ExecutableElement candidate : ElementFilter.methodsIn(current.getEnclosedElements())) {
+        if (!candidate.getSimpleName().contentEquals(name) || candidate.getParameters().size() != parameters.size()) {
+          continue;
+        }
+        boolean same = true;
+        for (int i = 0; i < parameters.size() && same; i++) {
+          same = types.isSameType(types.erasure(candidate.getParameters().get(i).asType()), types.erasure(parameters.get(i).asType()));
+        }
+        if (same) {
+          return candidate;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Searches a field up the hierarchy of the target class.
+   */
+  @CheckForNull
+  private VariableElement findField(@NonNull TypeElement target, @NonNull String name) {
+    for (TypeElement current = target; current != null; current = superclass(current)) {
+      for (VariableElement candidate : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        if (candidate.getSimpleName().contentEquals(name)) {
+          return candidate;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the superclass, <code>null</code> for {@link Object} as the accessors do not search it.
+   */
+  @CheckForNull
+  private TypeElement superclass(@NonNull TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+    return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+  }
+
+  /**
+   * Whether a value of the interface type can be returned as the target type, as
+   * {@link Class#isAssignableFrom(Class)} does.
+   */
+  private boolean isAssignable(@NonNull TypeMirror returnType, @NonNull TypeMirror targetType) {
+    Types types = processingEnv.getTypeUtils();
+    if (returnType.getKind().isPrimitive() || targetType.getKind().isPrimitive() || isVoid(returnType) || isVoid(targetType)) {
+      return types.isSameType(returnType, targetType);
+    }
+    return types.isSubtype(returnType, targetType);
+  }
+
+  private boolean isBoolean(@NonNull TypeMirror type) {
+    return type.getKind() == TypeKind.BOOLEAN || isType(type, Boolean.class);
+  }
+
+  private boolean isVoid(@NonNull TypeMirror type) {
+    return type.getKind() == TypeKind.VOID || isType(type, Void.class);
+  }
+
+  private boolean isType(@NonNull TypeMirror type, @NonNull Class<?> cls) {
+    return type.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(cls.getName());
+  }
+
+  @NonNull
+  private static String fieldName(int prefixLength, @NonNull String name) {
+    return Character.toLowerCase(name.charAt(prefixLength)) + name.substring(prefixLength + 1);
+  }
+
+  /**
+   * Writes the source of the class implementing the interface.
+   */
+  private void write(@NonNull TypeElement type, @NonNull List<Member> members) throws IOException {
+    Elements elements = processingEnv.getElementUtils();
+    PackageElement pkg = packageOf(type);
+    String binaryName = elements.getBinaryName(type).toString();
+    String simpleName = binaryName.substring(binaryName.lastIndexOf('.') + 1) + CompiledAccessors.SUFFIX;
+    String self = simpleName + ".class";
+    StringBuilder out = new StringBuilder();
+    if (!pkg.isUnnamed()) {
+      out.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+    }
+    out.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+    out.append("public final class ").append(simpleName).append(" implements ").append(type.getQualifiedName()).append(" {\n\n");
+    for (int i = 0; i < members.size(); i++) {
+      Member member = members.get(i);
+      out.append("  private static final ").append(METHOD_HANDLE).append(" handle").append(i).append(" = ");
+      out.append(SUPPORT).append('.').append(member.kind == Member.METHOD ? "method" : member.kind == Member.GETTER ? "getter" : "setter");
+      out.append('(').append(self).append(", \"").append(elements.getBinaryName((TypeElement) member.target.getEnclosingElement()));
+      out.append("\", \"").append(member.target.getSimpleName()).append("\", ");
+      if (member.kind == Member.METHOD) {
+        ExecutableElement targetMethod = (ExecutableElement) member.target;
+        out.append(METHOD_TYPE).append(".methodType(").append(literal(targetMethod.getReturnType(), pkg, self));
+        for (VariableElement parameter : targetMethod.getParameters()) {
+          out.append(", ").append(literal(parameter.asType(), pkg, self));
+        }
+        out.append(')');
+      } else {
+        out.append(literal(member.target.asType(), pkg, self));
+      }
+      out.append(", ").append(member.target.getModifiers().contains(Modifier.STATIC)).append(", ");
+      out.append(METHOD_TYPE).append(".methodType(").append(literal(member.returnType, pkg, self)).append(", java.lang.Object.class");
+      for (TypeMirror parameter : member.parameters) {
+        out.append(", ").append(literal(parameter, pkg, self));
+      }
+      out.append("));\n\n");
+    }
+    out.append("  private final java.lang.Object target;\n\n");
+    out.append("  public ").append(simpleName).append("(java.lang.Object target) {\n");
+    out.append("    this.target = target;\n");
+    out.append("  }\n");
+    for (int i = 0; i < members.size(); i++) {
+      writeMethod(out, members.get(i), i);
+    }
+    out.append("}\n");
+    Writer writer = processingEnv.getFiler().createSourceFile((pkg.isUnnamed() ? "" : pkg.getQualifiedName() + ".") + simpleName, type).openWriter();
+    try {
+      writer.write(out.toString());
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Writes a method invoking the handle of its member on the target.
+   */
+  private void writeMethod(@NonNull StringBuilder out, @NonNull Member member, int index) {
+    out.append("\n  @Override\n");
+    out.append("  public ").append(member.returnType).append(' ').append(member.method.getSimpleName()).append('(');
+    for (int i = 0; i < member.parameters.size(); i++) {
+      out.append(i == 0 ? "" : ", ").append(member.parameters.get(i)).append(" a").append(i);
+    }
+    out.append(')');
+    List<TypeMirror> rethrown = rethrown(member.thrown);
+    if (!member.thrown.isEmpty()) {
+      out.append(" throws ");
+      for (int i = 0; i < member.thrown.size(); i++) {
+        out.append(i == 0 ? "" : ", ").append(processingEnv.getTypeUtils().erasure(member.thrown.get(i)));
+      }
+    }
+    out.append(" {\n");
+    String indent = rethrown == null ? "    " : "      ";
+    if (rethrown != null) {
+      out.append("    try {\n");
+    }
+    out.append(indent);
+    if (member.returnType.getKind() != TypeKind.VOID) {
+      out.append("return (").append(member.returnType).append(") ");
+    }
+    out.append("handle").append(index).append(".invokeExact(target");
+    for (int i = 0; i < member.parameters.size(); i++) {
+      out.append(", a").append(i);
+    }
+    out.append(");\n");
+    if (rethrown != null) {
+      out.append("    } catch (");
+      for (int i = 0; i < rethrown.size(); i++) {
+        out.append(i == 0 ? "" : " | ").append(rethrown.get(i));
+      }
+      out.append(" e) {\n");
+      out.append("      throw e;\n");
+      out.append("    } catch (java.lang.Throwable e) {\n");
+      out.append("      throw new java.lang.reflect.UndeclaredThrowableException(e);\n");
+      out.append("    }\n");
+    }
+    out.append("  }\n");
+  }
+
+  /**
+   * Computes the exceptions a method can rethrow as they are: the unchecked ones and the declared
+   * ones, without those subclassing others as a multi-catch requires.
+   * 
+   * @return the exceptions, <code>null</code> if the method declares {@link Throwable}.
+   */
+  @CheckForNull
+  private List<TypeMirror> rethrown(@NonNull List<? extends TypeMirror> thrown) {
+    Types types = processingEnv.getTypeUtils();
+    Elements elements = processingEnv.getElementUtils();
+    List<TypeMirror> candidates = new ArrayList<TypeMirror>();
+    candidates.add(elements.getTypeElement(RuntimeException.class.getName()).asType());
+    candidates.add(elements.getTypeElement(Error.class.getName()).asType());
+    for (TypeMirror type : thrown) {
+      if (isType(types.erasure(type), Throwable.class)) {
+        return null;
+      }
+      candidates.add(types.erasure(type));
+    }
+    List<TypeMirror> rethrown = new ArrayList<TypeMirror>();
+    for (int i = 0; i < candidates.size(); i++) {
+      boolean covered = false;
+      for (int j = 0; j < candidates.size() && !covered; j++) {
+        TypeMirror other = candidates.get(j);
+        covered = i != j && types.isSubtype(candidates.get(i), other) && (!types.isSameType(candidates.get(i), other) || j < i);
+      }
+      if (!covered) {
+        rethrown.add(candidates.get(i));
+      }
+    }
+    return rethrown;
+  }
+
+  /**
+   * @return an expression for the class of the type, loading it by name when it cannot be named
+   *         from the package of the accessor.
+   */
+  @NonNull
+  private String literal(@NonNull TypeMirror type, @NonNull PackageElement pkg,
+    @NonNull String self) {
+    TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+    TypeMirror component = erased;
+    while (component.getKind() == TypeKind.ARRAY) {
+      component = ((ArrayType) component).getComponentType();
+    }
+    if (component.getKind() != TypeKind.DECLARED || isAccessible((TypeElement) ((DeclaredType) component).asElement(), pkg)) {
+      return erased + ".class";
+    }
+    return SUPPORT + ".type(" + self + ", \"" + binaryName(erased) + "\")";
+  }
+
+  /**
+   * @return the name of the type as {@link Class#forName(String)} expects it.
+   */
+  @NonNull
+  private String binaryName(@NonNull TypeMirror type) {
+    if (type.getKind() != TypeKind.ARRAY) {
+      return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+    }
+    TypeMirror component = ((ArrayType) type).getComponentType();
+    switch (component.getKind()) {
+      case BOOLEAN:
+        return "[Z";
+      case BYTE:
+        return "[B";
+      case CHAR:
+        return "[C";
+      case SHORT:
+        return "[S";
+      case INT:
+        return "[I";
+      case LONG:
+        return "[J";
+      case FLOAT:
+        return "[F";
+      case DOUBLE:
+        return "[D";
+      case ARRAY:
+        return "[" + binaryName(component);
+      default:
+        return "[L" + binaryName(component) + ";";
+    }
+  }
+
+  /**
+   * Whether the type can be named from the package.
+   */
+  private static boolean isAccessible(@NonNull TypeElement type, @NonNull PackageElement pkg) {
+    for (Element current = type; current.getKind() != ElementKind.PACKAGE; current = current.getEnclosingElement()) {
+      Set<Modifier> modifiers = current.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE) || (!modifiers.contains(Modifier.PUBLIC) && !packageOf(current).equals(pkg))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @NonNull
+  private static PackageElement packageOf(@NonNull Element element) {
+    Element current = element;
+    while (current.getKind() != ElementKind.PACKAGE) {
+      current = current.getEnclosingElement();
+    }
+    return (PackageElement) current;
+  }
+
+  private void error(@NonNull Element element, @NonNull String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+  /**
+   * A method of the interface and the member it matches.
+   */
+  private static final class Member {
+
+    static final int METHOD = 0;
+
+    static final int GETTER = 1;
+
+    static final int SETTER = 2;
+
+    @NonNull
+    final ExecutableElement method;
+
+    @NonNull
+    final Element target;
+
+    final int kind;
+
+    List<TypeMirror> parameters;
+
+    TypeMirror returnType;
+
+    List<? extends TypeMirror> thrown;
+
+    Member(@NonNull ExecutableElement method, @NonNull Element target, int kind) {
+      this.method = method;
+      this.target = target;
+      this.kind = kind;
+    }
+  }
+}
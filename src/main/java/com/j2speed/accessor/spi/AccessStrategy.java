@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.spi;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A way of performing the accesses on behalf of the accessors: creates the backends for the fields,
+ * methods and constructors they resolve.
+ * <p>
+ * The members are already accessible. A strategy may decline a member it cannot access, returning
+ * <code>null</code>, in which case the accessors fall back to their standard backend for it.
+ * </p>
+ * <p>
+ * The backends take and return boxed values and arrays of arguments, so a strategy serves the
+ * generic entry points only, such as <code>MethodAccessor.invoke(Object...)</code> and
+ * <code>ClassConstructor.newInstance(Object...)</code>. The entry points that exist not to allocate,
+ * the fixed arity <code>invoke0</code> to <code>invoke5</code> and <code>newInstance0</code> to
+ * <code>newInstance5</code>, and the typed <code>IntMethodAccessor</code>,
+ * <code>LongMethodAccessor</code> and <code>DoubleMethodAccessor</code>, always invoke the member
+ * through a method handle, whatever the strategy. For the same reason the primitive field
+ * accessors, such as <code>IntFieldAccessor</code> and <code>StaticIntFieldAccessor</code>, take no
+ * strategy and always access their field through typed method handles.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public interface AccessStrategy {
+
+  /**
+   * @param field
+   *          the field to access.
+   * @return the backend for the field, <code>null</code> if the strategy cannot access it.
+   */
+  @CheckForNull
+  FieldAccess fieldAccess(@NonNull Field field);
+
+  /**
+   * @param method
+   *          the method to invoke.
+   * @return the backend for the method, <code>null</code> if the strategy cannot invoke it.
+   */
+  @CheckForNull
+  MethodAccess methodAccess(@NonNull Method method);
+
+  /**
+   * @param constructor
+   *          the constructor to invoke.
+   * @return the backend for the constructor, <code>null</code> if the strategy cannot invoke it.
+   */
+  @CheckForNull
+  ConstructorAccess constructorAccess(@NonNull Constructor<?> constructor);
+}
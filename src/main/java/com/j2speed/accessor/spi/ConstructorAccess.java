@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.spi;
+
+import java.lang.reflect.InvocationTargetException;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Low level invocation of a constructor, as implemented by the accessor backends.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public interface ConstructorAccess {
+
+  /**
+   * Creates a new instance.
+   * 
+   * @param args
+   *          the arguments for the constructor, primitives are boxed.
+   * @return the new instance.
+   * @throws InvocationTargetException
+   *           wrapping anything thrown by the constructor.
+   */
+  @NonNull
+  Object newInstance(@NonNull Object[] args) throws InvocationTargetException;
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor.spi;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * Low level access to a field, as implemented by the accessor backends.
+ * <p>
+ * For static fields the target is ignored.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public interface FieldAccess {
+
+  /**
+   * Gets the value of the field.
+   * 
+   * @param target
+   *          the instance from which to get the value.
+   * @return the current field value, boxed if the field is primitive.
+   */
+  Object get(@CheckForNull Object target);
+
+  /**
+   * Sets the value for the field.
+   * 
+   * @param target
+   *          the target instance on which to set the new value.
+   * @param value
+   *          the value to set, boxed if the field is primitive.
+   */
+  void set(@CheckForNull Object target, Object value);
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Date;
+import org.junit.Test;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import com.j2speed.accessor.spi.FieldAccess;
+import com.j2speed.accessor.spi.MethodAccess;
+
+/**
+ * Unit test case for class AccessGenerator.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class AccessGeneratorTest {
+
+  @Test
+  public void testField() {
+    FieldAccess access = AccessGenerator.generate(BaseFieldAccessor.getField(TestObject.class, "aPrivate"));
+    assertNotNull(access);
+    assertTrue(access.getClass().isHidden());
+    TestObject test = new TestObject();
+    assertEquals(Integer.valueOf(26071973), access.get(test));
+    access.set(test, Integer.valueOf(26072007));
+    assertEquals(Integer.valueOf(26072007), access.get(test));
+  }
+
+  @Test
+  public void testReferenceField() {
+    FieldAccess access = AccessGenerator.generate(BaseFieldAccessor.getField(TestObject.class, "kind"));
+    assertNotNull(access);
+    TestObject test = new TestObject();
+    assertEquals(Boolean.TRUE, access.get(test));
+    access.set(test, Boolean.FALSE);
+    assertEquals(Boolean.FALSE, access.get(test));
+  }
+
+  @Test
+  public void testStaticField() {
+    FieldAccess access = AccessGenerator.generate(BaseFieldAccessor.getField(TestObject.class, "aStaticLong"));
+    assertNotNull(access);
+    try {
+      assertEquals(Long.valueOf(270220080000L), access.get(null));
+      access.set(null, Long.valueOf(1L));
+      assertEquals(Long.valueOf(1L), access.get(null));
+    } finally {
+      access.set(null, Long.valueOf(270220080000L));
+    }
+  }
+
+  @Test(expected = ClassCastException.class)
+  public void testFieldWrongValue() {
+    FieldAccess access = AccessGenerator.generate(BaseFieldAccessor.getField(TestObject.class, "aPrivate"));
+    access.set(new TestObject(), "wrong");
+  }
+
+  @Test
+  public void testShared() throws Exception {
+    Field field = BaseFieldAccessor.getField(TestObject.class, "aPrivate");
+    assertSame(AccessGenerator.generate(field), AccessGenerator.generate(field.getDeclaringClass().getDeclaredField("aPrivate")));
+    Method method = AbstractMethodAccessor.getMethod(TestObject.class, "setPrivate", int.class);
+    assertSame(AccessGenerator.generate(method), AccessGenerator.generate(method.getDeclaringClass().getDeclaredMethod("setPrivate", int.class)));
+    Constructor<?> constructor = Class.forName("com.j2speed.accessor.separate.PackagePrivateObject$StaticInner").getDeclaredConstructor(Date.class);
+    assertSame(AccessGenerator.generate(constructor), AccessGenerator.generate(constructor.getDeclaringClass().getDeclaredConstructor(Date.class)));
+  }
+
+  @Test
+  public void testNotGenerated() throws Exception {
+    // final fields cannot be written outside constructors
+    assertNull(AccessGenerator.generate(BaseFieldAccessor.getField(Class.forName("com.j2speed.accessor.separate.PackagePrivateObject"), "name")));
+    // java.base is not open to the library
+    assertNull(AccessGenerator.generate(Date.class.getDeclaredField("fastTime")));
+  }
+
+  @Test
+  public void testMethod() throws Exception {
+    MethodAccess access = AccessGenerator.generate(AbstractMethodAccessor.getMethod(TestObject.class, "setPrivate", int.class));
+    assertNotNull(access);
+    TestObject test = new TestObject();
+    assertEquals(Integer.valueOf(26071973), access.invoke(test, new Object[] { Integer.valueOf(1) }));
+    assertEquals(Integer.valueOf(1), access.invoke(test, new Object[] { Integer.valueOf(2) }));
+  }
+
+  @Test
+  public void testMethodThrowing() throws Exception {
+    MethodAccess access = AccessGenerator.generate(AbstractMethodAccessor.getMethod(TestObject.class, "throwingMethod"));
+    assertNotNull(access);
+    try {
+      access.invoke(new TestObject(), new Object[0]);
+      fail("Expected InvocationTargetException");
+    } catch (InvocationTargetException e) {
+      assertTrue(e.getTargetException() instanceof TestException);
+    }
+  }
+
+  @Test
+  public void testVoidMethod() throws Exception {
+    MethodAccess access = AccessGenerator.generate(AbstractMethodAccessor.getMethod(TestObject.class, "nonThrowingMethod"));
+    assertNotNull(access);
+    assertNull(access.invoke(new TestObject(), new Object[0]));
+  }
+
+  @Test
+  public void testConstructor() throws Exception {
+    Class<?> cls = Class.forName("com.j2speed.accessor.separate.PackagePrivateObject$StaticInner");
+    Constructor<?> constructor = cls.getDeclaredConstructor(Date.class);
+    ConstructorAccess access = AccessGenerator.generate(constructor);
+    assertNotNull(access);
+    Date date = new Date();
+    Object instance = access.newInstance(new Object[] { date });
+    assertSame(cls, instance.getClass());
+    assertEquals("Static" + date, instance.toString());
+  }
+
+  @Test
+  public void testConstructorThrowing() throws Exception {
+    Class<?> cls = Class.forName("com.j2speed.accessor.TestObject$InnerThrowsError");
+    ConstructorAccess access = AccessGenerator.generate(cls.getDeclaredConstructor(TestObject.class));
+    assertNotNull(access);
+    try {
+      access.newInstance(new Object[] { new TestObject() });
+      fail("Expected InvocationTargetException");
+    } catch (InvocationTargetException e) {
+      assertTrue(e.getTargetException() instanceof Error);
+    }
+  }
+}
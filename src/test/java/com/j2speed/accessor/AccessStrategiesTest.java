@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import com.j2speed.accessor.ClassAccessor.ClassConstructor;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import com.j2speed.accessor.spi.FieldAccess;
+import com.j2speed.accessor.spi.MethodAccess;
+
+/**
+ * Unit test case for class AccessStrategies.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class AccessStrategiesTest {
+
+  private static final AccessStrategy[] STRATEGIES = { AccessStrategies.STANDARD, AccessStrategies.REFLECTION, AccessStrategies.METHOD_HANDLES, AccessStrategies.GENERATED };
+
+  /**
+   * Declines every member.
+   */
+  private static final AccessStrategy NONE = new AccessStrategy() {
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      return null;
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      return null;
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      return null;
+    }
+  };
+
+  @Test
+  public void testField() {
+    for (AccessStrategy strategy : STRATEGIES) {
+      FieldAccessor<TestObject, Integer> accessor = FieldAccessor.make("aPrivate", TestObject.class, strategy);
+      TestObject test = new TestObject();
+      assertEquals(strategy.toString(), Integer.valueOf(26071973), accessor.get(test));
+      accessor.set(test, Integer.valueOf(26072007));
+      assertEquals(strategy.toString(), Integer.valueOf(26072007), accessor.get(test));
+    }
+  }
+
+  @Test
+  public void testStaticField() {
+    for (AccessStrategy strategy : STRATEGIES) {
+      StaticFieldAccessor<TestObject, Integer> accessor = StaticFieldAccessor.make("aStaticPrivate", TestObject.class, strategy);
+      try {
+        assertEquals(strategy.toString(), Integer.valueOf(27022008), accessor.get());
+        accessor.set(Integer.valueOf(1));
+        assertEquals(strategy.toString(), Integer.valueOf(1), accessor.get());
+      } finally {
+        accessor.set(Integer.valueOf(27022008));
+      }
+    }
+  }
+
+  @Test
+  public void testMethod() {
+    for (AccessStrategy strategy : STRATEGIES) {
+      TestObject test = new TestObject();
+      MethodAccessor<Integer> accessor = MethodAccessor.make(strategy, "setPrivate", test, int.class);
+      assertEquals(strategy.toString(), Integer.valueOf(26071973), accessor.invoke(Integer.valueOf(1)));
+      assertEquals(strategy.toString(), Integer.valueOf(1), accessor.invoke(Integer.valueOf(2)));
+    }
+  }
+
+  @Test
+  public void testStaticMethod() {
+    for (AccessStrategy strategy : STRATEGIES) {
+      UnboundMethodAccessor<TestObject, Integer> accessor = UnboundMethodAccessor.make(strategy, "twice", TestObject.class, int.class);
+      assertEquals(strategy.toString(), Integer.valueOf(42), accessor.invoke(null, Integer.valueOf(21)));
+    }
+  }
+
+  @Test
+  public void testMethodThrowing() {
+    for (AccessStrategy strategy : STRATEGIES) {
+      VoidMethodAccessor accessor = new VoidMethodAccessor(strategy, "throwingMethod", new TestObject());
+      try {
+        accessor.invoke();
+        fail(strategy.toString());
+      } catch (RuntimeException e) {
+        assertTrue(strategy.toString(), e.getCause() instanceof TestException);
+      }
+    }
+  }
+
+  @Test
+  public void testMethodWrongArgument() {
+    for (AccessStrategy strategy : STRATEGIES) {
+      MethodAccessor<Integer> accessor = MethodAccessor.make(strategy, "setPrivate", new TestObject(), int.class);
+      try {
+        accessor.invoke("wrong");
+        fail(strategy.toString());
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testConstructor() {
+    for (AccessStrategy strategy : STRATEGIES) {
+      ClassAccessor accessor = ClassAccessor.create("com.j2speed.accessor.separate.PackagePrivateObject").forInner("StaticInner");
+      Date date = new Date();
+      Object instance = accessor.constructor(strategy, Date.class).newInstance(date);
+      assertEquals(strategy.toString(), "Static" + date, instance.toString());
+    }
+  }
+
+  @Test
+  public void testInnerConstructor() {
+    ClassAccessor accessor = ClassAccessor.create("com.j2speed.accessor.separate.PackagePrivateObject");
+    Object enclosing = accessor.constructor(String.class).newInstance("Alex");
+    for (AccessStrategy strategy : STRATEGIES) {
+      Date date = new Date();
+      Object instance = accessor.forInner("Inner").constructor(strategy, enclosing, Date.class).newInstance(date);
+      assertEquals(strategy.toString(), "Alex" + date, instance.toString());
+    }
+    ClassConstructor constructor = accessor.forInner("Inner").constructor(AccessStrategies.REFLECTION, enclosing, Date.class);
+    assertSame(ReflectionConstructorAccess.class, FieldAccessor.make("access", ClassConstructor.class).get(constructor).getClass());
+  }
+
+  @Test
+  public void testBackends() {
+    assertSame(ReflectionFieldAccess.class, fieldAccess(FieldAccessor.make("aPrivate", TestObject.class, AccessStrategies.REFLECTION)).getClass());
+    assertSame(MethodHandleFieldAccess.class, fieldAccess(FieldAccessor.make("aPrivate", TestObject.class, AccessStrategies.METHOD_HANDLES)).getClass());
+    assertTrue(fieldAccess(FieldAccessor.make("aPrivate", TestObject.class, AccessStrategies.GENERATED)).getClass().isHidden());
+    TestObject test = new TestObject();
+    assertSame(ReflectionMethodAccess.class, methodAccess(MethodAccessor.make(AccessStrategies.REFLECTION, "setPrivate", test, int.class)).getClass());
+    assertSame(MethodHandleMethodAccess.class, methodAccess(MethodAccessor.make(AccessStrategies.METHOD_HANDLES, "setPrivate", test, int.class)).getClass());
+    assertTrue(methodAccess(MethodAccessor.make(AccessStrategies.GENERATED, "setPrivate", test, int.class)).getClass().isHidden());
+  }
+
+  @Test
+  public void testFallback() throws Exception {
+    assertSame(MethodHandleFieldAccess.class, fieldAccess(FieldAccessor.make("aPrivate", TestObject.class, NONE)).getClass());
+    assertSame(ReflectionMethodAccess.class, methodAccess(MethodAccessor.make(NONE, "setPrivate", new TestObject(), int.class)).getClass());
+    // final fields cannot be written outside constructors, the generated strategy declines them
+    Field field = BaseFieldAccessor.getField(Class.forName("com.j2speed.accessor.separate.PackagePrivateObject"), "name");
+    assertNull(AccessStrategies.GENERATED.fieldAccess(field));
+    assertNotNull(AccessStrategies.fieldAccess(field, AccessStrategies.GENERATED));
+  }
+
+  @Test
+  public void testPerClassLoader() {
+    ClassLoader loader = TestObject.class.getClassLoader();
+    AccessStrategies.set(loader, AccessStrategies.REFLECTION);
+    try {
+      assertSame(AccessStrategies.REFLECTION, AccessStrategies.get(TestObject.class));
+      assertSame(AccessStrategies.getDefault(), AccessStrategies.get(String.class));
+      assertSame(ReflectionFieldAccess.class, fieldAccess(FieldAccessor.make("aPrivate", TestObject.class)).getClass());
+      // an explicit strategy wins
+      assertSame(MethodHandleFieldAccess.class, fieldAccess(FieldAccessor.make("aPrivate", TestObject.class, AccessStrategies.METHOD_HANDLES)).getClass());
+    } finally {
+      AccessStrategies.set(loader, null);
+    }
+    assertSame(AccessStrategies.getDefault(), AccessStrategies.get(TestObject.class));
+  }
+
+  @Test
+  public void testDefault() {
+    AccessStrategy previous = AccessStrategies.getDefault();
+    AccessStrategies.setDefault(AccessStrategies.METHOD_HANDLES);
+    try {
+      assertSame(AccessStrategies.METHOD_HANDLES, AccessStrategies.get(TestObject.class));
+      assertSame(MethodHandleMethodAccess.class, methodAccess(MethodAccessor.make("setPrivate", new TestObject(), int.class)).getClass());
+    } finally {
+      AccessStrategies.setDefault(previous);
+    }
+  }
+
+  @Test
+  public void testFixedArityUsesHandles() throws Exception {
+    final AtomicInteger invocations = new AtomicInteger();
+    AccessStrategy counting = new AccessStrategy() {
+      @Override
+      public FieldAccess fieldAccess(Field field) {
+        return null;
+      }
+
+      @Override
+      public MethodAccess methodAccess(final Method method) {
+        final MethodAccess access = AccessStrategies.REFLECTION.methodAccess(method);
+        return new MethodAccess() {
+          @Override
+          public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+            invocations.incrementAndGet();
+            return access.invoke(target, args);
+          }
+        };
+      }
+
+      @Override
+      public ConstructorAccess constructorAccess(final Constructor<?> constructor) {
+        final ConstructorAccess access = AccessStrategies.REFLECTION.constructorAccess(constructor);
+        return new ConstructorAccess() {
+          @Override
+          public Object newInstance(Object[] args) throws InvocationTargetException {
+            invocations.incrementAndGet();
+            return access.newInstance(args);
+          }
+        };
+      }
+    };
+    MethodAccessor<Integer> accessor = MethodAccessor.make(counting, "setPrivate", new TestObject(), int.class);
+    assertEquals(Integer.valueOf(26071973), accessor.invoke(Integer.valueOf(1)));
+    assertEquals(1, invocations.get());
+    // the fixed arity invocations don't go through the strategy
+    assertEquals(Integer.valueOf(1), accessor.invoke1(Integer.valueOf(2)));
+    assertEquals(1, invocations.get());
+    ClassConstructor constructor = ClassAccessor.create("com.j2speed.accessor.separate.PackagePrivateObject").forInner("StaticInner").constructor(counting, Date.class);
+    Date date = new Date();
+    assertEquals("Static" + date, constructor.newInstance(date).toString());
+    assertEquals(2, invocations.get());
+    assertEquals("Static" + date, constructor.newInstance1(date).toString());
+    assertEquals(2, invocations.get());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullStrategy() {
+    FieldAccessor.make("aPrivate", TestObject.class, null);
+  }
+
+  private static Object fieldAccess(FieldAccessor<?, ?> accessor) {
+    return FieldAccessor.make("access", FieldAccessor.class).get(accessor);
+  }
+
+  private static Object methodAccess(AbstractMethodAccessor<?> accessor) {
+    return FieldAccessor.make("access", AbstractMethodAccessor.class).get(accessor);
+  }
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.management.ManagementFactory;
+import java.util.function.IntUnaryOperator;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Allocation regression gate for the paths documented as allocation free: each path is warmed up
+ * until compiled, then the bytes allocated by the current thread over many calls are measured
+ * through {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}.
+ * <p>
+ * A path passes if any of a few measured rounds allocates nothing per call, so that a round
+ * disturbed by a compilation in progress does not fail the build. Boxed values are kept in the
+ * range cached by {@link Integer#valueOf(int)}, since boxing is not part of what is measured.
+ * </p>
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class AllocationTest {
+
+  private static final int WARMUP_ROUNDS = 10;
+
+  private static final int ROUNDS = 5;
+
+  private static final int CALLS = 100000;
+
+  /**
+   * Allocated bytes per call under which a path is considered allocation free; a round may still
+   * see a few bytes allocated by the measurement itself.
+   */
+  private static final double TOLERANCE = 0.01;
+
+  private static com.sun.management.ThreadMXBean threads;
+
+  /**
+   * Keeps the results alive.
+   */
+  private Object sink;
+
+  private int intSink;
+
+  @BeforeClass
+  public static void checkSupported() {
+    Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  @Test
+  public void testFieldGet() {
+    final FieldAccessor<TestObject, Integer> accessor = FieldAccessor.make("aPrivate", TestObject.class);
+    final TestObject target = new TestObject();
+    accessor.set(target, Integer.valueOf(42));
+    assertAllocationFree("FieldAccessor.get", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          sink = accessor.get(target);
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testFieldSet() {
+    final FieldAccessor<TestObject, Integer> accessor = FieldAccessor.make("aPrivate", TestObject.class);
+    final TestObject target = new TestObject();
+    assertAllocationFree("FieldAccessor.set", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          accessor.set(target, Integer.valueOf(i & 0x7F));
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testStaticFieldGet() {
+    final StaticFieldAccessor<TestObject, Boolean> accessor = StaticFieldAccessor.make("aStaticBoolean", TestObject.class);
+    assertAllocationFree("StaticFieldAccessor.get", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          sink = accessor.get();
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testIntFieldGetSet() {
+    final IntFieldAccessor<TestObject> accessor = IntFieldAccessor.make("aPrivate", TestObject.class);
+    final TestObject target = new TestObject();
+    assertAllocationFree("IntFieldAccessor.getInt/setInt", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          accessor.setInt(target, i);
+          intSink += accessor.getInt(target);
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testMethodInvoke1() {
+    final MethodAccessor<Integer> accessor = MethodAccessor.make("setPrivate", new TestObject(), int.class);
+    assertAllocationFree("MethodAccessor.invoke1", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          sink = accessor.invoke1(Integer.valueOf(i & 0x3F));
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testVoidMethodInvoke0() {
+    final VoidMethodAccessor accessor = new VoidMethodAccessor("nonThrowingMethod", new TestObject());
+    assertAllocationFree("VoidMethodAccessor.invoke0", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          accessor.invoke0();
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testIntMethodInvoke() {
+    final IntMethodAccessor accessor = IntMethodAccessor.make("twice", new TestObject(), int.class);
+    assertAllocationFree("IntMethodAccessor.invokeAsInt", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          intSink += accessor.invokeAsInt(i);
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testMethodAs() {
+    final IntUnaryOperator twice = UnboundMethodAccessor.make("twice", TestObject.class, int.class).as(IntUnaryOperator.class);
+    assertAllocationFree("UnboundMethodAccessor.as", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          intSink += twice.applyAsInt(i);
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testGeneratedProxy() {
+    final Access proxy = ProxyAccessor.createAccessor(Access.class, new TestObject(), null, AccessStrategies.GENERATED);
+    assertAllocationFree("generated proxy dispatch", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          proxy.setAPrivate(i);
+          intSink += proxy.getAPrivate() + proxy.setPrivate(i);
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testProxyCursor() {
+    final TestObject[] targets = { new TestObject(), new TestObject(), new TestObject() };
+    final ProxyCursor<Access> cursor = ProxyAccessor.createCursor(Access.class, TestObject.class);
+    assertAllocationFree("ProxyCursor.retarget", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          cursor.retarget(targets[i % targets.length]);
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testSnapshotCaptureRestore() {
+    final ObjectSnapshot<TestObject> snapshot = ObjectSnapshot.make(TestObject.class);
+    final long[] primitives = new long[snapshot.getPrimitiveCount()];
+    final Object[] references = new Object[snapshot.getReferenceCount()];
+    final TestObject target = new TestObject();
+    assertAllocationFree("ObjectSnapshot.capture/restore", new Batch() {
+      public void run(int calls) {
+        for (int i = 0; i < calls; i++) {
+          snapshot.capture(target, primitives, references);
+          snapshot.restore(target, primitives, references);
+        }
+      }
+    });
+  }
+
+  private void assertAllocationFree(String path, Batch batch) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      batch.run(CALLS);
+    }
+    long thread = Thread.currentThread().getId();
+    double best = Double.MAX_VALUE;
+    for (int i = 0; i < ROUNDS && best > TOLERANCE; i++) {
+      long before = threads.getThreadAllocatedBytes(thread);
+      batch.run(CALLS);
+      long allocated = threads.getThreadAllocatedBytes(thread) - before;
+      best = Math.min(best, (double) allocated / CALLS);
+    }
+    assertTrue(path + " allocates " + best + " bytes per call", best <= TOLERANCE);
+  }
+
+  /**
+   * A batch of calls to the measured path.
+   */
+  private static interface Batch {
+    void run(int calls);
+  }
+
+  /**
+   * Accesses TestObject through a proxy.
+   */
+  public static interface Access {
+
+    int setPrivate(int value);
+
+    void setAPrivate(int value);
+
+    int getAPrivate();
+  }
+}
@@ -18,6 +18,7 @@ package com.j2speed.accessor;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import java.util.Date;
 import org.junit.Test;
 import com.j2speed.accessor.ClassAccessorTest.AccessPackageProtectedObject.AccessInner;
@@ -211,4 +212,45 @@ public class ClassAccessorTest {
       Date getDate();
     }
   }
+
+  @Test
+  public void testNewInstanceFixedArity() {
+    ClassAccessor accessor = ClassAccessor.create("com.j2speed.accessor.separate.PackagePrivateObject");
+    String expectedName = "Alex";
+    Object object = accessor.constructor(String.class).newInstance1(expectedName);
+    assertSame(expectedName, ProxyAccessor.createAccessor(AccessPackageProtectedObject.class, object).getName());
+
+    Date expectedDate = new Date();
+    Object inner = accessor.forInner("Inner").constructor(object, Date.class).newInstance1(expectedDate);
+    assertSame(expectedDate, ProxyAccessor.createAccessor(AccessInner.class, inner).getDate());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNewInstanceFixedArityWrongArity() {
+    ClassAccessor accessor = ClassAccessor.create("com.j2speed.accessor.separate.PackagePrivateObject");
+    accessor.constructor(String.class).newInstance2("Alex", "Alex");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNewInstanceFixedArityWrongParameterValue() {
+    ClassAccessor accessor = ClassAccessor.create("com.j2speed.accessor.separate.PackagePrivateObject");
+    accessor.constructor(String.class).newInstance1(new Date());
+  }
+
+  @Test(expected = Error.class)
+  public void testNewInstanceFixedArityThrowsError() {
+    ClassAccessor innerAccessor = ClassAccessor.create(TestObject.class, "InnerThrowsError");
+    innerAccessor.constructor(new TestObject()).newInstance0();
+  }
+
+  @Test
+  public void testNewInstanceFixedArityThrowsThrowable() {
+    ClassAccessor innerAccessor = ClassAccessor.create(TestObject.class, "InnerThrowsThrowable");
+    try {
+      innerAccessor.constructor(new TestObject()).newInstance0();
+      fail("Expected test exception");
+    } catch (RuntimeException e) {
+      assertNotNull(e.getCause());
+    }
+  }
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.Test;
+import com.j2speed.accessor.processor.AccessorProcessor;
+
+/**
+ * Tests the accessors generated at build time for the interfaces annotated with
+ * {@link AccessorFor}.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class CompiledAccessorTest {
+
+  @Test
+  public void testCompiled() throws TestException {
+    TestObject test = new TestObject();
+    CompiledAccess access = ProxyAccessor.createAccessor(CompiledAccess.class, test);
+    assertEquals(CompiledAccess.class.getName() + CompiledAccessors.SUFFIX, access.getClass().getName());
+    assertEquals(26071973, access.getPrivate());
+    assertEquals(26071973, access.setPrivate(26072007));
+    assertEquals(26072007, access.getAPrivate());
+    assertTrue(access.isMagic());
+    access.setMagic(false);
+    assertFalse(access.isMagic());
+    assertEquals(Boolean.TRUE, access.isKind());
+    assertEquals(42, access.twice(21));
+    assertEquals(27022008, access.getAStaticPrivate());
+    assertEquals(260719730001L, access.addLong(1));
+    access.nonThrowingMethod();
+    try {
+      access.throwingMethod();
+      fail("Expected TestException");
+    } catch (TestException e) {
+      // OK
+    }
+  }
+
+  @Test
+  public void testLazyAndMapped() {
+    assertTrue(ProxyAccessor.createLazyAccessor(CompiledAccess.class, new TestObject()).getClass().getName().endsWith(CompiledAccessors.SUFFIX));
+    CompiledAccess mapped = ProxyAccessor.createAccessor(CompiledAccess.class, new TestObject(), Collections.singletonMap("unused", "unused"));
+    assertFalse(mapped.getClass().getName().endsWith(CompiledAccessors.SUFFIX));
+    assertEquals(26071973, mapped.getPrivate());
+  }
+
+  @Test
+  public void testOtherTarget() {
+    OtherAccess access = ProxyAccessor.createAccessor(OtherAccess.class, new TestObject());
+    assertFalse(access.getClass().getName().endsWith(CompiledAccessors.SUFFIX));
+    assertEquals(26071973, access.getPrivate());
+  }
+
+  @Test
+  public void testNoMatchingMember() {
+    DiagnosticCollector<JavaFileObject> diagnostics = compile("package test;\n"
+      + "@com.j2speed.accessor.AccessorFor(Target.class)\n"
+      + "interface TypoAccess {\n"
+      + "  int getVlaue();\n"
+      + "}\n"
+      + "class Target {\n"
+      + "  private int value;\n"
+      + "}\n");
+    List<String> errors = new ArrayList<String>();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        errors.add(diagnostic.getMessage(null));
+      }
+    }
+    assertEquals(Arrays.asList("No member of test.Target for method getVlaue"), errors);
+  }
+
+  @Test
+  public void testNotAnInterface() {
+    DiagnosticCollector<JavaFileObject> diagnostics = compile("package test;\n"
+      + "@com.j2speed.accessor.AccessorFor(Object.class)\n"
+      + "class NotAnInterface {\n"
+      + "}\n");
+    assertEquals(1, diagnostics.getDiagnostics().size());
+    assertEquals("@AccessorFor only applies to interfaces", diagnostics.getDiagnostics().get(0).getMessage(null));
+  }
+
+  private static DiagnosticCollector<JavaFileObject> compile(final String source) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///test/Source.java"), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return source;
+      }
+    };
+    String classpath = new File(AccessorFor.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+    JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, Arrays.asList("-proc:only", "-classpath", classpath), null, Collections.singletonList(file));
+    task.setProcessors(Collections.singletonList(new AccessorProcessor()));
+    task.call();
+    return diagnostics;
+  }
+
+  @AccessorFor(TestObject.class)
+  interface CompiledAccess {
+
+    int getPrivate();
+
+    int setPrivate(int newValue);
+
+    int getAPrivate();
+
+    boolean isMagic();
+
+    void setMagic(boolean magic);
+
+    Boolean isKind();
+
+    int twice(int value);
+
+    int getAStaticPrivate();
+
+    long addLong(long delta);
+
+    void nonThrowingMethod();
+
+    void throwingMethod() throws TestException;
+  }
+
+  @AccessorFor(Other.class)
+  interface OtherAccess {
+
+    int getPrivate();
+  }
+
+  static class Other {
+
+    @SuppressWarnings("unused")
+    private int getPrivate() {
+      return 0;
+    }
+  }
+}
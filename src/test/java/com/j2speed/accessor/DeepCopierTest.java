@@ -0,0 +1,287 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Unit test case for class {@link DeepCopier}.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class DeepCopierTest {
+
+  @Test
+  public void testNull() {
+    assertNull(new DeepCopier().copy(null));
+  }
+
+  @Test
+  public void testImmutablesShared() {
+    DeepCopier copier = new DeepCopier();
+    String text = new String("text");
+    assertSame(text, copier.copy(text));
+    assertSame(TimeUnit.SECONDS, copier.copy(TimeUnit.SECONDS));
+    Integer boxed = Integer.valueOf(1000);
+    assertSame(boxed, copier.copy(boxed));
+  }
+
+  @Test
+  public void testFields() {
+    Node node = new Node(7, "seven");
+    node.weight = -0.5;
+    node.flags = new boolean[] { true, false, true };
+    node.unit = TimeUnit.DAYS;
+    Node copy = new DeepCopier().copy(node);
+    assertNotSame(node, copy);
+    assertEquals(7, copy.id);
+    assertEquals(-0.5, copy.weight, 0);
+    assertSame(node.name, copy.name);
+    assertSame(TimeUnit.DAYS, copy.unit);
+    assertNotSame(node.flags, copy.flags);
+    assertTrue(Arrays.equals(node.flags, copy.flags));
+    assertEquals(((Base) node).created, ((Base) copy).created);
+  }
+
+  @Test
+  public void testCyclesAndSharing() {
+    Node first = new Node(1, "first");
+    Node second = new Node(2, "second");
+    first.next = second;
+    second.next = first;
+    first.children = new Node[] { second, second, null };
+    Node copy = new DeepCopier().copy(first);
+    assertNotSame(first, copy);
+    Node secondCopy = copy.next;
+    assertNotSame(second, secondCopy);
+    assertEquals(2, secondCopy.id);
+    assertSame(copy, secondCopy.next);
+    assertSame(secondCopy, copy.children[0]);
+    assertSame(secondCopy, copy.children[1]);
+    assertNull(copy.children[2]);
+    assertSame(Node[].class, copy.children.getClass());
+  }
+
+  @Test
+  public void testArrays() {
+    int[][] matrix = { { 1, 2 }, { 3, 4 } };
+    int[][] copy = new DeepCopier().copy(matrix);
+    assertNotSame(matrix, copy);
+    assertNotSame(matrix[0], copy[0]);
+    assertArrayEquals(matrix[1], copy[1]);
+    String[] names = { "a", "b" };
+    String[] namesCopy = new DeepCopier().copy(names);
+    assertNotSame(names, namesCopy);
+    assertSame(names[1], namesCopy[1]);
+  }
+
+  @Test
+  public void testLongChain() {
+    Node head = new Node(0, null);
+    Node current = head;
+    for (int i = 1; i < 100000; i++) {
+      current.next = new Node(i, null);
+      current = current.next;
+    }
+    Node copy = new DeepCopier(false).copy(head);
+    int count = 0;
+    for (Node node = copy; node != null; node = node.next) {
+      assertEquals(count++, node.id);
+    }
+    assertEquals(100000, count);
+  }
+
+  @Test
+  public void testWithoutConstructors() {
+    Node node = new Node(3, "three");
+    int created = Base.counter;
+    Node copy = new DeepCopier(false).copy(node);
+    assertEquals(3, copy.id);
+    assertEquals(created, Base.counter);
+    assertEquals(((Base) node).created, ((Base) copy).created);
+    copy = new DeepCopier(true).copy(node);
+    assertEquals(created + 1, Base.counter);
+    // overwritten by the copy of the source
+    assertEquals(((Base) node).created, ((Base) copy).created);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoConstructor() {
+    new DeepCopier().copy(new Immovable(1));
+  }
+
+  @Test
+  public void testNoConstructorWithoutConstructors() {
+    Immovable copy = new DeepCopier(false).copy(new Immovable(1));
+    assertEquals(1, copy.value);
+  }
+
+  @Test
+  public void testSharedTypes() {
+    Holder holder = new Holder();
+    holder.list.add("element");
+    Holder copy = new DeepCopier(true, List.class).copy(holder);
+    assertNotSame(holder, copy);
+    assertSame(holder.list, copy.list);
+  }
+
+  @Test
+  public void testCollections() {
+    Node shared = new Node(1, "one");
+    Holder holder = new Holder();
+    holder.list.add("element");
+    holder.nodes.add(shared);
+    holder.nodes.add(null);
+    holder.byName.put("one", shared);
+    holder.keys.add(new Key(7));
+    holder.keys.add(new Key(8));
+    holder.sorted.addAll(Arrays.asList("a", "c", "b"));
+    holder.fixed = Collections.unmodifiableList(Arrays.asList(new Node(2, "two")));
+    holder.units = EnumSet.of(TimeUnit.DAYS);
+    Set<Key> nested = new HashSet<Key>();
+    nested.add(new Key(9));
+    holder.nested.add(nested);
+
+    Holder copy = new DeepCopier().copy(holder);
+    assertNotSame(holder.list, copy.list);
+    assertEquals(holder.list, copy.list);
+    assertSame(ArrayList.class, copy.nodes.getClass());
+    assertNotSame(shared, copy.nodes.get(0));
+    assertEquals(1, copy.nodes.get(0).id);
+    assertNull(copy.nodes.get(1));
+    assertSame(HashMap.class, copy.byName.getClass());
+    assertSame(copy.nodes.get(0), copy.byName.get("one"));
+    // the keys are hashed once filled
+    assertTrue(copy.keys.contains(new Key(7)));
+    assertTrue(copy.keys.contains(new Key(8)));
+    assertNotSame(holder.keys.iterator().next(), copy.keys.iterator().next());
+    assertSame(TreeSet.class, copy.sorted.getClass());
+    assertEquals(Arrays.asList("c", "b", "a"), new ArrayList<String>(copy.sorted));
+    assertEquals(2, copy.fixed.get(0).id);
+    assertNotSame(holder.fixed.get(0), copy.fixed.get(0));
+    assertEquals(EnumSet.of(TimeUnit.DAYS), copy.units);
+    assertNotSame(holder.units, copy.units);
+    assertTrue(copy.nested.contains(nested));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRecord() {
+    new DeepCopier().copy(new Point(1, 2));
+  }
+
+  private static class Base {
+
+    private static int counter;
+
+    private int created;
+
+    Base() {
+      created = ++counter;
+    }
+  }
+
+  private static class Node extends Base {
+
+    private int id;
+
+    private String name;
+
+    private double weight;
+
+    private boolean[] flags;
+
+    private TimeUnit unit;
+
+    private Node next;
+
+    private Node[] children;
+
+    Node() {
+    }
+
+    Node(int id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+  }
+
+  private static class Immovable {
+
+    private final int value;
+
+    Immovable(int value) {
+      this.value = value;
+    }
+  }
+
+  private static class Holder {
+
+    private final List<String> list = new ArrayList<String>();
+
+    private final List<Node> nodes = new ArrayList<Node>();
+
+    private final Map<String, Node> byName = new HashMap<String, Node>();
+
+    private final Set<Key> keys = new HashSet<Key>();
+
+    private final Set<String> sorted = new TreeSet<String>(Collections.reverseOrder());
+
+    private final Set<Set<Key>> nested = new HashSet<Set<Key>>();
+
+    private List<Node> fixed;
+
+    private Set<TimeUnit> units;
+  }
+
+  private static class Key {
+
+    private int id;
+
+    Key() {
+    }
+
+    Key(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && ((Key) obj).id == id;
+    }
+  }
+
+  private static record Point(int x, int y) {
+  }
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Unit test case for class {@link DeepEquals}.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class DeepEqualsTest {
+
+  private final DeepEquals engine = new DeepEquals();
+
+  @Test
+  public void testNullsAndValues() {
+    assertTrue(engine.deepEquals(null, null));
+    assertFalse(engine.deepEquals(null, "a"));
+    assertFalse(engine.deepEquals("a", null));
+    assertTrue(engine.deepEquals(new String("a"), new String("a")));
+    assertFalse(engine.deepEquals(Integer.valueOf(1), Long.valueOf(1)));
+    assertEquals("a".hashCode(), engine.deepHashCode("a"));
+    assertEquals(0, engine.deepHashCode(null));
+  }
+
+  @Test
+  public void testPrivateFields() {
+    Node first = new Node(1, "one", 0.5);
+    Node second = new Node(1, "one", 0.5);
+    assertTrue(engine.deepEquals(first, second));
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second));
+    assertFalse(engine.deepEquals(first, new Node(2, "one", 0.5)));
+    assertFalse(engine.deepEquals(first, new Node(1, "two", 0.5)));
+    assertFalse(engine.deepEquals(first, new Node(1, "one", -0.5)));
+    // as Double.equals
+    assertTrue(engine.deepEquals(new Node(1, "one", Double.NaN), new Node(1, "one", Double.NaN)));
+    assertFalse(engine.deepEquals(new Node(1, "one", 0.0), new Node(1, "one", -0.0)));
+  }
+
+  @Test
+  public void testInheritedAndIgnored() {
+    Node first = new Node(1, "one", 0.5);
+    Node second = new Node(1, "one", 0.5);
+    ((Base) second).version = 2;
+    second.cache = "cached";
+    assertFalse(engine.deepEquals(first, second));
+    DeepEquals ignoring = engine.ignoring(Node.class, "version", "cache");
+    assertTrue(ignoring.deepEquals(first, second));
+    assertEquals(ignoring.deepHashCode(first), ignoring.deepHashCode(second));
+    assertFalse(ignoring.deepEquals(first, new Node(2, "one", 0.5)));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testIgnoringMissingField() {
+    engine.ignoring(Node.class, "missing");
+  }
+
+  @Test
+  public void testDifferentClasses() {
+    assertFalse(engine.deepEquals(new Node(1, "one", 0.5), new SubNode(1, "one", 0.5)));
+    assertFalse(engine.deepEquals(new ArrayList<String>(), new LinkedList<String>()));
+  }
+
+  @Test
+  public void testArrays() {
+    assertTrue(engine.deepEquals(new int[] { 1, 2 }, new int[] { 1, 2 }));
+    assertFalse(engine.deepEquals(new int[] { 1, 2 }, new int[] { 1, 3 }));
+    assertFalse(engine.deepEquals(new int[] { 1 }, new long[] { 1 }));
+    Object[] first = { new Node(1, "one", 0), new double[] { 1.5 }, null };
+    Object[] second = { new Node(1, "one", 0), new double[] { 1.5 }, null };
+    assertTrue(engine.deepEquals(first, second));
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second));
+    second[2] = "";
+    assertFalse(engine.deepEquals(first, second));
+  }
+
+  @Test
+  public void testCollections() {
+    List<Node> first = new ArrayList<Node>(Arrays.asList(new Node(1, "one", 0), new Node(2, "two", 0)));
+    List<Node> second = new ArrayList<Node>(Arrays.asList(new Node(1, "one", 0), new Node(2, "two", 0)));
+    assertTrue(engine.deepEquals(first, second));
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second));
+    second.add(null);
+    assertFalse(engine.deepEquals(first, second));
+
+    Map<String, Node> firstMap = new HashMap<String, Node>();
+    Map<String, Node> secondMap = new HashMap<String, Node>();
+    firstMap.put("a", new Node(1, "one", 0));
+    secondMap.put("a", new Node(1, "one", 0));
+    firstMap.put("b", null);
+    secondMap.put("b", null);
+    assertTrue(engine.deepEquals(firstMap, secondMap));
+    assertEquals(engine.deepHashCode(firstMap), engine.deepHashCode(secondMap));
+    secondMap.remove("b");
+    secondMap.put("c", null);
+    assertFalse(engine.deepEquals(firstMap, secondMap));
+
+    assertTrue(engine.deepEquals(new HashSet<String>(Arrays.asList("x", "y")), new HashSet<String>(Arrays.asList("y", "x"))));
+    assertTrue(engine.deepEquals(TimeUnit.DAYS, TimeUnit.DAYS));
+  }
+
+  @Test
+  public void testLeaves() {
+    Money shared = new Money(10, "EUR");
+    Object[] first = { shared, shared, new Money(5, null) };
+    Object[] second = { new Money(10, "EUR"), new Money(10, "EUR"), new Money(5, null) };
+    assertTrue(engine.deepEquals(first, second));
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second));
+    second[1] = new Money(10, "USD");
+    assertFalse(engine.deepEquals(first, second));
+  }
+
+  @Test
+  public void testCycles() {
+    Node first = new Node(1, "one", 0);
+    first.next = first;
+    Node second = new Node(1, "one", 0);
+    second.next = new Node(1, "one", 0);
+    second.next.next = second;
+    assertTrue(engine.deepEquals(first, second));
+    // consistent whatever the length of the cycles
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second));
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second.next));
+    Node third = new Node(1, "one", 0);
+    third.next = new Node(2, "one", 0);
+    third.next.next = third;
+    assertFalse(engine.deepEquals(first, third));
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(cycle()));
+  }
+
+  @Test
+  public void testSharing() {
+    Node shared = new Node(1, "one", 0);
+    Object[] first = { shared, shared };
+    Object[] second = { new Node(1, "one", 0), new Node(1, "one", 0) };
+    assertTrue(engine.deepEquals(first, second));
+    assertTrue(engine.deepEquals(second, first));
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second));
+  }
+
+  @Test
+  public void testLongChain() {
+    Node first = chain(100000);
+    Node second = chain(100000);
+    assertTrue(engine.deepEquals(first, second));
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second));
+  }
+
+  @Test
+  public void testParallel() {
+    DeepEquals parallel = engine.parallel(ForkJoinPool.commonPool(), 100);
+    List<Node> first = new ArrayList<Node>();
+    List<Node> second = new ArrayList<Node>();
+    Node[] firstArray = new Node[1000];
+    Node[] secondArray = new Node[1000];
+    for (int i = 0; i < 1000; i++) {
+      first.add(new Node(i, "node", i));
+      second.add(new Node(i, "node", i));
+      firstArray[i] = new Node(i, null, 0);
+      secondArray[i] = new Node(i, null, 0);
+    }
+    assertTrue(parallel.deepEquals(first, second));
+    assertTrue(parallel.deepEquals(firstArray, secondArray));
+    assertEquals(parallel.deepHashCode(first), parallel.deepHashCode(second));
+    // splitting does not change the hash code
+    assertEquals(engine.deepHashCode(first), parallel.deepHashCode(first));
+    assertEquals(engine.deepHashCode(firstArray), parallel.deepHashCode(firstArray));
+    second.set(777, new Node(777, "node", 0));
+    assertFalse(parallel.deepEquals(first, second));
+    secondArray[3] = null;
+    assertFalse(parallel.deepEquals(firstArray, secondArray));
+  }
+
+  @Test
+  public void testParallelBackReferences() {
+    DeepEquals parallel = engine.parallel(ForkJoinPool.commonPool(), 10);
+    Tree first = new Tree(100);
+    Tree second = new Tree(100);
+    assertTrue(engine.deepEquals(first, second));
+    assertTrue(parallel.deepEquals(first, second));
+    assertEquals(engine.deepHashCode(first), parallel.deepHashCode(second));
+    second.children.get(42).value = -1;
+    assertFalse(engine.deepEquals(first, second));
+    assertFalse(parallel.deepEquals(first, second));
+  }
+
+  @Test(timeout = 10000)
+  public void testHashBackReferences() {
+    // each node refers back to the list, hashed once for each level
+    List<Node> first = backReferenced(10000);
+    List<Node> second = backReferenced(10000);
+    assertEquals(engine.deepHashCode(first), engine.deepHashCode(second));
+    assertEquals(engine.deepHashCode(first), engine.parallel(ForkJoinPool.commonPool(), 1000).deepHashCode(second));
+    second.get(5000).cache = null;
+    assertFalse(engine.deepHashCode(first) == engine.deepHashCode(second));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParallelThreshold() {
+    engine.parallel(ForkJoinPool.commonPool(), 0);
+  }
+
+  private static Node cycle() {
+    Node node = new Node(1, "one", 0);
+    node.next = node;
+    return node;
+  }
+
+  private static List<Node> backReferenced(int size) {
+    List<Node> nodes = new ArrayList<Node>();
+    for (int i = 0; i < size; i++) {
+      Node node = new Node(i, "node", 0);
+      node.cache = nodes;
+      nodes.add(node);
+    }
+    return nodes;
+  }
+
+  private static Node chain(int length) {
+    Node head = new Node(0, null, 0);
+    Node current = head;
+    for (int i = 1; i < length; i++) {
+      current.next = new Node(i, null, 0);
+      current = current.next;
+    }
+    return head;
+  }
+
+  private static class Base {
+
+    private long version = 1;
+  }
+
+  private static class Node extends Base {
+
+    private final int id;
+
+    private final String name;
+
+    private final double weight;
+
+    private Node next;
+
+    private Object cache;
+
+    Node(int id, String name, double weight) {
+      this.id = id;
+      this.name = name;
+      this.weight = weight;
+    }
+  }
+
+  private static class Money {
+
+    private final long amount;
+
+    private final String currency;
+
+    Money(long amount, String currency) {
+      this.amount = amount;
+      this.currency = currency;
+    }
+  }
+
+  private static class Tree {
+
+    private final List<Child> children = new ArrayList<Child>();
+
+    Tree(int size) {
+      for (int i = 0; i < size; i++) {
+        children.add(new Child(this, i));
+      }
+    }
+  }
+
+  private static class Child {
+
+    private final Tree parent;
+
+    private int value;
+
+    Child(Tree parent, int value) {
+      this.parent = parent;
+      this.value = value;
+    }
+  }
+
+  private static class SubNode extends Node {
+
+    SubNode(int id, String name, double weight) {
+      super(id, name, weight);
+    }
+  }
+}
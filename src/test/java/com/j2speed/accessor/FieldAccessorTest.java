@@ -16,6 +16,7 @@
 package com.j2speed.accessor;
 
 import static org.junit.Assert.*;
+import java.util.function.UnaryOperator;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -110,4 +111,66 @@ public class FieldAccessorTest {
       // ok
     }
   }
+
+  @Test
+  public void testMemoryOrderedAccess() {
+    TestObject toTest = new TestObject();
+    aPrivate.setVolatile(toTest, 1);
+    assertEquals(1, aPrivate.getVolatile(toTest).intValue());
+    aPrivate.setRelease(toTest, 2);
+    assertEquals(2, aPrivate.getAcquire(toTest).intValue());
+    aPrivate.setOpaque(toTest, 3);
+    assertEquals(3, aPrivate.getOpaque(toTest).intValue());
+    assertEquals(3, aPrivate.get(toTest).intValue());
+  }
+
+  @Test
+  public void testAtomicAccess() {
+    TestObject toTest = new TestObject();
+    assertFalse(aPrivate.compareAndSet(toTest, 0, 1));
+    assertTrue(aPrivate.compareAndSet(toTest, 26071973, 1));
+    assertEquals(1, aPrivate.getAndSet(toTest, 2).intValue());
+    assertEquals(2, aPrivate.getAndAdd(toTest, 3).intValue());
+    assertEquals(5, aPrivate.getAndUpdate(toTest, new UnaryOperator<Integer>() {
+      @Override
+      public Integer apply(Integer value) {
+        return value * 2;
+      }
+    }).intValue());
+    assertEquals(10, aPrivate.get(toTest).intValue());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetAndAddNotNumeric() {
+    FieldAccessor<TestObject, Boolean> kind = FieldAccessor.make("kind", TestObject.class);
+    kind.getAndAdd(new TestObject(), Boolean.TRUE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompareAndSetNull() {
+    aPrivate.compareAndSet(new TestObject(), 26071973, null);
+  }
+
+  @Test
+  public void testConcurrentGetAndAdd() throws Exception {
+    final TestObject toTest = new TestObject();
+    aPrivate.set(toTest, 0);
+    final int increments = 10000;
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < increments; j++) {
+            aPrivate.getAndAdd(toTest, 1);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(threads.length * increments, aPrivate.getVolatile(toTest).intValue());
+  }
 }
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.util.Date;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import org.junit.Test;
+import com.j2speed.accessor.ClassAccessorTest.AccessPackageProtectedObject;
+
+/**
+ * Tests the functional interfaces implemented by the accessors.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class FunctionalAccessorTest {
+
+  @Test
+  public void testMethodAccessorAs() {
+    TestObject test = new TestObject();
+    IntSupplier getPrivate = MethodAccessor.make("getPrivate", test).as(IntSupplier.class);
+    IntUnaryOperator setPrivate = MethodAccessor.make("setPrivate", test, int.class).as(IntUnaryOperator.class);
+    assertTrue(getPrivate.getClass().isHidden());
+    assertEquals(26071973, getPrivate.getAsInt());
+    assertEquals(26071973, setPrivate.applyAsInt(1));
+    assertEquals(1, getPrivate.getAsInt());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testMethodAccessorAsGeneric() {
+    TestObject test = new TestObject();
+    Supplier<Integer> getPrivate = MethodAccessor.make("getPrivate", test).as(Supplier.class);
+    Function<Integer, Integer> setPrivate = MethodAccessor.make("setPrivate", test, int.class).as(Function.class);
+    assertEquals(26071973, setPrivate.apply(1).intValue());
+    assertEquals(1, getPrivate.get().intValue());
+  }
+
+  @Test(expected = ClassCastException.class)
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public void testMethodAccessorAsGenericWrongArgument() {
+    Function setPrivate = MethodAccessor.make("setPrivate", new TestObject(), int.class).as(Function.class);
+    setPrivate.apply("wrong");
+  }
+
+  @Test
+  public void testStaticMethodAs() {
+    IntUnaryOperator twice = new IntMethodAccessor("twice", new TestObject(), int.class).as(IntUnaryOperator.class);
+    assertEquals(42, twice.applyAsInt(21));
+  }
+
+  @Test
+  public void testVoidMethodAccessorAs() {
+    Runnable throwing = new VoidMethodAccessor("throwingMethod", new TestObject()).as(Runnable.class);
+    try {
+      throwing.run();
+      fail("Expected test exception");
+    } catch (Exception e) {
+      assertTrue(e instanceof TestException);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testUnboundMethodAccessorAs() {
+    TestObject test = new TestObject();
+    ToIntFunction<TestObject> getPrivate = UnboundMethodAccessor.make("getPrivate", TestObject.class).as(ToIntFunction.class);
+    Function<TestObject, Integer> boxed = UnboundMethodAccessor.make("getPrivate", TestObject.class).as(Function.class);
+    assertEquals(26071973, getPrivate.applyAsInt(test));
+    assertEquals(26071973, boxed.apply(test).intValue());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testClassConstructorAs() {
+    ClassAccessor accessor = ClassAccessor.create("com.j2speed.accessor.separate.PackagePrivateObject");
+    Function<String, Object> constructor = accessor.constructor(String.class).as(Function.class);
+    Object object = constructor.apply("Alex");
+    assertEquals("Alex", ProxyAccessor.createAccessor(AccessPackageProtectedObject.class, object).getName());
+
+    Date expectedDate = new Date();
+    Function<Date, Object> inner = accessor.forInner("Inner").constructor(object, Date.class).as(Function.class);
+    assertSame(expectedDate, ProxyAccessor.createAccessor(AccessPackageProtectedObject.AccessInner.class, inner.apply(expectedDate)).getDate());
+  }
+
+  @Test
+  public void testFallbackOnClosedClass() {
+    IntSupplier length = new MethodAccessor<Integer>("length", "Alex").as(IntSupplier.class);
+    assertEquals(4, length.getAsInt());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongArity() {
+    MethodAccessor.make("setPrivate", new TestObject(), int.class).as(IntSupplier.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotInterface() {
+    MethodAccessor.make("getPrivate", new TestObject()).as(Object.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotFunctional() {
+    MethodAccessor.make("getPrivate", new TestObject()).as(Map.class);
+  }
+}
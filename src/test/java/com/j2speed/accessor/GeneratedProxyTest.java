@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import org.junit.Test;
+
+/**
+ * Tests the proxies implemented by generated classes.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class GeneratedProxyTest {
+
+  @Test
+  public void testGenerated() {
+    TestObject test = new TestObject();
+    GeneratedAccess access = ProxyAccessor.createAccessor(GeneratedAccess.class, test, null, true);
+    assertTrue(access.getClass().isHidden());
+    assertEquals(26071973, access.getPrivate());
+    assertEquals(26071973, access.setPrivate(26072007));
+    assertEquals(26072007, access.getAPrivate());
+    assertTrue(access.isMagic());
+    access.setMagic(false);
+    assertFalse(access.isMagic());
+    assertTrue(access.isKind().booleanValue());
+    assertEquals(260719730000L, access.getALong());
+    assertEquals(Double.valueOf(26.071973), access.getADouble());
+  }
+
+  @Test
+  public void testSameClassForSameShape() {
+    GeneratedAccess first = ProxyAccessor.createAccessor(GeneratedAccess.class, new TestObject(), null, true);
+    TestObject test = new TestObject();
+    GeneratedAccess second = ProxyAccessor.createAccessor(GeneratedAccess.class, test, null, true);
+    assertSame(first.getClass(), second.getClass());
+    second.setPrivate(1);
+    assertEquals(26071973, first.getPrivate());
+    assertEquals(1, second.getPrivate());
+  }
+
+  @Test
+  public void testMappingAndExceptions() {
+    Map<String, String> map = new HashMap<String, String>();
+    map.put("getBirthDate", "getPrivate");
+    map.put("shutUp", "throwingMethod");
+    GeneratedRenameAccess access = ProxyAccessor.createAccessor(GeneratedRenameAccess.class, new TestObject(), map, true);
+    assertTrue(access.getClass().isHidden());
+    assertEquals(26071973, access.getBirthDate());
+    try {
+      access.shutUp();
+      fail("Expected TestException");
+    } catch (TestException e) {
+      // OK
+    }
+    map.put("unused", "unused");
+    GeneratedRenameAccess other = ProxyAccessor.createAccessor(GeneratedRenameAccess.class, new TestObject(), map, true);
+    assertNotSame(access.getClass(), other.getClass());
+  }
+
+  @Test
+  public void testStatic() {
+    GeneratedStaticAccess access = ProxyAccessor.createAccessor(GeneratedStaticAccess.class, TestObject.class, null, true);
+    assertTrue(access.getClass().isHidden());
+    assertEquals(42, access.twice(21));
+    assertEquals(27022008, access.getAStaticPrivate());
+  }
+
+  @Test
+  public void testStaticTargetWithInstanceMember() {
+    GeneratedAccess access = ProxyAccessor.createAccessor(GeneratedAccess.class, TestObject.class, null, true);
+    assertTrue(Proxy.isProxyClass(access.getClass()));
+  }
+
+  @Test
+  public void testPublicInterfaceOfClosedModule() {
+    IntSupplier access = ProxyAccessor.createAccessor(IntSupplier.class, new TestObject(), Collections.singletonMap("getAsInt", "getPrivate"), true);
+    assertTrue(access.getClass().isHidden());
+    assertEquals(26071973, access.getAsInt());
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testNoMatchingTarget() {
+    ProxyAccessor.createAccessor(GeneratedAccess.class, new Object(), null, true);
+  }
+
+  private interface GeneratedAccess {
+
+    int getPrivate();
+
+    int setPrivate(int newValue);
+
+    int getAPrivate();
+
+    boolean isMagic();
+
+    void setMagic(boolean magic);
+
+    Boolean isKind();
+
+    long getALong();
+
+    Object getADouble();
+  }
+
+  private interface GeneratedRenameAccess {
+
+    int getBirthDate();
+
+    void shutUp() throws TestException;
+  }
+
+  private interface GeneratedStaticAccess {
+
+    int twice(int value);
+
+    int getAStaticPrivate();
+  }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.junit.Test;
+
+/**
+ * Unit test case for class InlineCache, through the one-shot accesses of {@link Accessors}.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class InlineCacheTest {
+
+  @Test
+  public void testFieldCached() {
+    FieldAccessor<Object, Object> accessor = InlineCache.field(TestObject.class, "aPrivate");
+    assertSame(accessor, InlineCache.field(TestObject.class, "aPrivate"));
+    assertNotSame(accessor, InlineCache.field(TestObject.class, "aLong"));
+    assertNotSame(accessor, InlineCache.field(SuperTestObject.class, "aPrivate"));
+  }
+
+  @Test
+  public void testAccessField() {
+    TestObject test = new TestObject();
+    for (int i = 0; i < 3; i++) {
+      Integer value = Accessors.accessField("aPrivate", test);
+      assertEquals(Integer.valueOf(26071973), value);
+      Long aLong = Accessors.accessField("aLong", test);
+      assertEquals(Long.valueOf(260719730000L), aLong);
+      Integer superValue = Accessors.accessField("aPrivate", new SuperTestObject());
+      assertEquals(Integer.valueOf(26071973), superValue);
+    }
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testAccessMissingField() {
+    Accessors.accessField("missing", new TestObject());
+  }
+
+  @Test
+  public void testMethodCached() {
+    Object[] args = { "text" };
+    UnboundMethodAccessor<Object, Object> accessor = InlineCache.method(Overloads.class, "describe", args);
+    assertSame(accessor, InlineCache.method(Overloads.class, "describe", new Object[] { "other" }));
+    assertNotSame(accessor, InlineCache.method(Overloads.class, "describe", new Object[] { Double.valueOf(1) }));
+  }
+
+  @Test
+  public void testInvoke() {
+    Overloads overloads = new Overloads();
+    for (int i = 0; i < 3; i++) {
+      assertEquals("string", Accessors.invoke("describe", overloads, "text"));
+      assertEquals("object", Accessors.invoke("describe", overloads, Double.valueOf(1)));
+      // the most specific one
+      assertEquals("string", Accessors.invoke("describe", overloads, new Object[] { null }));
+      assertEquals(Integer.valueOf(3), Accessors.invoke("add", overloads, Integer.valueOf(1), Integer.valueOf(2)));
+      assertNull(Accessors.invoke("reset", overloads));
+      assertEquals(Integer.valueOf(0), Accessors.invoke("add", overloads, Integer.valueOf(0), Integer.valueOf(0)));
+    }
+  }
+
+  @Test
+  public void testInvokeOverridden() {
+    assertEquals("sub", Accessors.invoke("describe", new SubOverloads(), "text"));
+    assertEquals("object", Accessors.invoke("describe", new SubOverloads(), Double.valueOf(1)));
+  }
+
+  @Test
+  public void testInvokePrimitiveParameter() {
+    assertEquals(Integer.valueOf(26071973), Accessors.invoke("setPrivate", new TestObject(), Integer.valueOf(1)));
+    // no widening, as with reflection on boxed values
+    try {
+      Accessors.invoke("add", new Overloads(), Short.valueOf((short) 1), Integer.valueOf(2));
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().startsWith("No such method"));
+    }
+  }
+
+  @Test
+  public void testInvokeBoxedOverload() {
+    // as the compiler does, the candidate that doesn't need unboxing wins
+    assertEquals("Integer", Accessors.invoke("box", new Overloads(), Integer.valueOf(1)));
+    assertEquals("Integer", Accessors.invoke("box", new Overloads(), new Object[] { null }));
+    assertEquals("long", Accessors.invoke("box", new Overloads(), Long.valueOf(1)));
+  }
+
+  @Test
+  public void testInvokeObjectMethod() {
+    Overloads overloads = new Overloads();
+    assertEquals(overloads.toString(), Accessors.invoke("toString", overloads));
+    assertEquals(Integer.valueOf(overloads.hashCode()), Accessors.invoke("hashCode", overloads));
+    assertEquals(Boolean.TRUE, Accessors.invoke("equals", overloads, overloads));
+  }
+
+  @Test
+  public void testInvokeDefaultMethod() {
+    assertEquals("hello", Accessors.invoke("greet", new Overloads()));
+    assertEquals("sub", Accessors.invoke("greet", new SubOverloads()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvokeAmbiguous() {
+    Accessors.invoke("ambiguous", new Overloads(), "text");
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testInvokeNullForPrimitive() {
+    Accessors.invoke("add", new Overloads(), null, Integer.valueOf(2));
+  }
+
+  @Test
+  public void testManyKeys() {
+    // more keys than entries, all in the same set since only the classes of the arguments differ
+    Overloads overloads = new Overloads();
+    Object[] hot = { "text" };
+    UnboundMethodAccessor<Object, Object> kept = InlineCache.method(Overloads.class, "describe", hot);
+    assertSame(kept, InlineCache.method(Overloads.class, "describe", hot));
+    Object[] first = { Array.newInstance(Object.class, new int[1]) };
+    UnboundMethodAccessor<Object, Object> evicted = InlineCache.method(Overloads.class, "describe", first);
+    for (int dimensions = 2; dimensions <= InlineCache.SETS * 4; dimensions++) {
+      assertSame(kept, InlineCache.method(Overloads.class, "describe", hot));
+      Object[] cold = { Array.newInstance(Object.class, new int[dimensions]) };
+      assertEquals("object", Accessors.invoke("describe", overloads, cold));
+    }
+    // the entry hit between the misses stays, the ones used once are replaced
+    assertSame(kept, InlineCache.method(Overloads.class, "describe", hot));
+    assertNotSame(evicted, InlineCache.method(Overloads.class, "describe", first));
+    assertEquals("string", Accessors.invoke("describe", overloads, hot));
+  }
+
+  @Test
+  public void testClassUnloaded() throws Exception {
+    WeakReference<ClassLoader> loader = accessInSeparateLoader();
+    for (int i = 0; i < 50 && loader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull("the cache keeps the class loader reachable", loader.get());
+  }
+
+  /**
+   * Accesses a field and a method of a copy of TestObject, loaded by a class loader that nothing
+   * else references.
+   */
+  private static WeakReference<ClassLoader> accessInSeparateLoader() throws Exception {
+    URL classes = TestObject.class.getProtectionDomain().getCodeSource().getLocation();
+    URLClassLoader loader = new URLClassLoader(new URL[] { classes }, ClassLoader.getPlatformClassLoader());
+    Object test = loader.loadClass(TestObject.class.getName()).getConstructor().newInstance();
+    assertNotSame(TestObject.class, test.getClass());
+    assertEquals(Integer.valueOf(26071973), Accessors.accessField("aPrivate", test));
+    assertEquals(Integer.valueOf(26071973), Accessors.invoke("setPrivate", test, Integer.valueOf(1)));
+    loader.close();
+    return new WeakReference<ClassLoader>(loader);
+  }
+
+  interface Greeting {
+
+    default String greet() {
+      return "hello";
+    }
+  }
+
+  static class Overloads implements Greeting {
+
+    private int value = 1;
+
+    private String describe(Object object) {
+      return "object";
+    }
+
+    private String describe(String text) {
+      return "string";
+    }
+
+    private int add(int a, int b) {
+      return a + b;
+    }
+
+    private void reset() {
+      value = 0;
+    }
+
+    private String box(int value) {
+      return "int";
+    }
+
+    private String box(Integer value) {
+      return "Integer";
+    }
+
+    private String box(long value) {
+      return "long";
+    }
+
+    private String ambiguous(CharSequence text) {
+      return "sequence";
+    }
+
+    private String ambiguous(Comparable<?> text) {
+      return "comparable";
+    }
+  }
+
+  static class SubOverloads extends Overloads {
+
+    private String describe(String text) {
+      return "sub";
+    }
+
+    @Override
+    public String greet() {
+      return "sub";
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the proxies matching each method on its first invocation.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class LazyProxyAccessorTest {
+
+  @Test
+  public void testLazy() {
+    TestObject test = new TestObject();
+    PartialAccess access = ProxyAccessor.createLazyAccessor(PartialAccess.class, test);
+    assertEquals(26071973, access.getPrivate());
+    assertTrue(access.isMagic());
+    try {
+      access.missing();
+      fail("Expected RuntimeException");
+    } catch (RuntimeException e) {
+      // OK
+    }
+    // still working after the failure
+    assertEquals(26071973, access.getPrivate());
+  }
+
+  @Test
+  public void testEagerFailsFast() {
+    ProxyAccessor.createLazyAccessor(PartialAccess.class, new TestObject());
+    for (int i = 0; i < 2; i++) {
+      try {
+        ProxyAccessor.createAccessor(PartialAccess.class, new TestObject());
+        fail("Expected RuntimeException");
+      } catch (RuntimeException e) {
+        // OK
+      }
+    }
+  }
+
+  @Test
+  public void testLazyThenEager() {
+    CompleteAccess lazy = ProxyAccessor.createLazyAccessor(CompleteAccess.class, new TestObject());
+    assertEquals(26071973, lazy.getPrivate());
+    CompleteAccess eager = ProxyAccessor.createAccessor(CompleteAccess.class, new TestObject(), null, false);
+    assertEquals(27022008, eager.getAStaticPrivate());
+    assertEquals(27022008, lazy.getAStaticPrivate());
+  }
+
+  @Test
+  public void testStatic() {
+    CompleteAccess access = ProxyAccessor.createLazyAccessor(CompleteAccess.class, TestObject.class);
+    assertEquals(27022008, access.getAStaticPrivate());
+  }
+
+  private interface PartialAccess {
+
+    int getPrivate();
+
+    boolean isMagic();
+
+    void missing();
+  }
+
+  private interface CompleteAccess {
+
+    int getPrivate();
+
+    int getAStaticPrivate();
+  }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.reflect.Method;
+import java.util.Date;
+import org.junit.Test;
+
+/**
+ * Unit test case for class Members.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class MembersTest {
+
+  @Test
+  public void testFieldInHierarchy() {
+    assertSame(SuperTestObject.class, Members.field(TestObject.class, "aPrivate").getDeclaringClass());
+    assertSame(Members.field(TestObject.class, "aPrivate"), Members.field(TestObject.class, "aPrivate"));
+    assertTrue(Members.field(TestObject.class, "aPrivate").canAccess(new TestObject()));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testMissingField() {
+    Members.field(TestObject.class, "missing");
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testMissingFieldOnInterface() {
+    Members.field(Runnable.class, "missing");
+  }
+
+  @Test
+  public void testMethodInHierarchy() {
+    Method method = Members.method(TestObject.class, "setPrivate", int.class);
+    assertSame(SuperTestObject.class, method.getDeclaringClass());
+    assertSame(method, Members.method(TestObject.class, "setPrivate", new Class<?>[] { int.class }));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testMissingMethod() {
+    Members.method(TestObject.class, "setPrivate", long.class);
+  }
+
+  @Test
+  public void testCovariantReturn() {
+    assertSame(String.class, Members.method(Covariant.class, "get").getReturnType());
+  }
+
+  @Test
+  public void testConstructor() throws Exception {
+    Class<?> cls = Class.forName("com.j2speed.accessor.separate.PackagePrivateObject");
+    assertSame(Members.constructor(cls, String.class), Members.constructor(cls, String.class));
+  }
+
+  @Test(expected = NoSuchMethodException.class)
+  public void testMissingConstructor() throws Exception {
+    Members.constructor(TestObject.class, Date.class);
+  }
+
+  private static class Covariant implements java.util.function.Supplier<String> {
+    @Override
+    public String get() {
+      return "";
+    }
+  }
+}
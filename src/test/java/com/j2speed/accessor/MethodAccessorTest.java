@@ -86,4 +86,28 @@ public class MethodAccessorTest {
     assertEquals(newValue, getPrivate.invoke().intValue());
   }
 
+  @Test
+  public void testInvokeFixedArity() {
+    int expected = 26071973;
+    assertEquals(expected, getPrivate.invoke0().intValue());
+
+    int newValue = 26072007;
+    assertEquals(expected, setPrivate.invoke1(Integer.valueOf(newValue)).intValue());
+    assertEquals(newValue, getPrivate.invoke0().intValue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvokeFixedArityWrongArity() {
+    setPrivate.invoke2(Integer.valueOf(1), Integer.valueOf(2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvokeFixedArityWrongType() {
+    setPrivate.invoke1("wrong");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvokeFixedArityNullPrimitive() {
+    setPrivate.invoke1(null);
+  }
 }
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.reflect.Field;
+import org.junit.Test;
+
+/**
+ * Unit test case for class {@link ObjectSnapshot}.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class ObjectSnapshotTest {
+
+  @Test
+  public void testLayout() {
+    ObjectSnapshot<Primitives> snapshot = ObjectSnapshot.make(Primitives.class);
+    assertSame(snapshot, ObjectSnapshot.make(Primitives.class));
+    assertSame(Primitives.class, snapshot.getType());
+    // the shadowed name is captured once per declaring class
+    assertEquals(9, snapshot.getPrimitiveCount());
+    assertEquals(2, snapshot.getReferenceCount());
+    for (Field field : snapshot.getPrimitiveFields()) {
+      assertTrue(field.getType().isPrimitive());
+    }
+    assertEquals("name", snapshot.getReferenceFields()[0].getName());
+    assertEquals(Base.class, snapshot.getReferenceFields()[1].getDeclaringClass());
+  }
+
+  @Test
+  public void testCaptureRestore() {
+    ObjectSnapshot<Primitives> snapshot = ObjectSnapshot.make(Primitives.class);
+    long[] primitives = new long[snapshot.getPrimitiveCount()];
+    Object[] references = new Object[snapshot.getReferenceCount()];
+    Primitives source = new Primitives();
+    source.fill();
+    snapshot.capture(source, primitives, references);
+
+    Primitives copy = new Primitives();
+    snapshot.restore(copy, primitives, references);
+    copy.assertSameAs(source);
+
+    // raw bits of floating point values survive
+    assertEquals(Double.doubleToRawLongBits(source.aDouble), Double.doubleToRawLongBits(copy.aDouble));
+    assertEquals(Float.floatToRawIntBits(source.aFloat), Float.floatToRawIntBits(copy.aFloat));
+  }
+
+  @Test
+  public void testOffsets() {
+    ObjectSnapshot<Primitives> snapshot = ObjectSnapshot.make(Primitives.class);
+    int p = snapshot.getPrimitiveCount();
+    int r = snapshot.getReferenceCount();
+    long[] primitives = new long[p * 3];
+    Object[] references = new Object[r * 3];
+    Primitives[] sources = { new Primitives(), new Primitives(), new Primitives() };
+    sources[1].fill();
+    for (int i = 0; i < sources.length; i++) {
+      snapshot.capture(sources[i], primitives, p * i, references, r * i);
+    }
+    for (int i = 0; i < sources.length; i++) {
+      Primitives copy = new Primitives();
+      copy.fill();
+      snapshot.restore(copy, primitives, p * i, references, r * i);
+      copy.assertSameAs(sources[i]);
+    }
+  }
+
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testOutOfBounds() {
+    ObjectSnapshot<Primitives> snapshot = ObjectSnapshot.make(Primitives.class);
+    snapshot.capture(new Primitives(), new long[snapshot.getPrimitiveCount()], 1, new Object[snapshot.getReferenceCount()], 0);
+  }
+
+  @Test(expected = ClassCastException.class)
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public void testWrongTarget() {
+    ObjectSnapshot snapshot = ObjectSnapshot.make(Primitives.class);
+    snapshot.capture(new Base(), new long[20], new Object[20]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInterface() {
+    ObjectSnapshot.make(Runnable.class);
+  }
+
+  @Test
+  public void testRecord() {
+    ObjectSnapshot<Point> snapshot = ObjectSnapshot.make(Point.class);
+    long[] primitives = new long[snapshot.getPrimitiveCount()];
+    Object[] references = new Object[snapshot.getReferenceCount()];
+    snapshot.capture(new Point(3, -4), primitives, references);
+    assertArrayEquals(new long[] { 3, -4 }, primitives);
+    try {
+      snapshot.restore(new Point(0, 0), primitives, references);
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // expected, record fields cannot be written
+    }
+  }
+
+  private static class Base {
+
+    private int shadowed = 1;
+
+    private Object value = "base";
+  }
+
+  private static class Primitives extends Base {
+
+    private boolean aBoolean;
+
+    private byte aByte;
+
+    private char aChar;
+
+    private short aShort;
+
+    private int shadowed;
+
+    private final long aLong = 0;
+
+    private float aFloat;
+
+    private double aDouble;
+
+    private String name;
+
+    void fill() {
+      aBoolean = true;
+      aByte = -2;
+      aChar = Character.MAX_VALUE;
+      aShort = Short.MIN_VALUE;
+      shadowed = -7;
+      ((Base) this).shadowed = 8;
+      aFloat = Float.intBitsToFloat(0x7fc00001);
+      aDouble = -0.0;
+      name = "filled";
+      ((Base) this).value = null;
+      FieldAccessor.<Primitives, Long> make("aLong", Primitives.class).set(this, Long.valueOf(Long.MIN_VALUE));
+    }
+
+    void assertSameAs(Primitives other) {
+      assertEquals(other.aBoolean, aBoolean);
+      assertEquals(other.aByte, aByte);
+      assertEquals(other.aChar, aChar);
+      assertEquals(other.aShort, aShort);
+      assertEquals(other.shadowed, shadowed);
+      assertEquals(((Base) other).shadowed, ((Base) this).shadowed);
+      assertEquals(FieldAccessor.make("aLong", Primitives.class).get(other), FieldAccessor.make("aLong", Primitives.class).get(this));
+      assertEquals(Float.floatToRawIntBits(other.aFloat), Float.floatToRawIntBits(aFloat));
+      assertEquals(Double.doubleToRawLongBits(other.aDouble), Double.doubleToRawLongBits(aDouble));
+      assertSame(other.name, name);
+      assertSame(((Base) other).value, ((Base) this).value);
+    }
+  }
+
+  private static record Point(int x, int y) {
+  }
+}
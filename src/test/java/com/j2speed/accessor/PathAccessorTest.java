@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit test case for class {@link PathAccessor}.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class PathAccessorTest {
+
+  @Test
+  public void testFields() {
+    PathAccessor<Order, String> path = Accessors.path(Order.class, "customer.address.city");
+    assertEquals("Milano", path.get(new Order()));
+    assertEquals(String.class, path.getValueType());
+    assertEquals("customer.address.city", path.toString());
+  }
+
+  @Test
+  public void testPrimitive() {
+    PathAccessor<Order, Integer> path = PathAccessor.make(Order.class, "customer.address.zip");
+    assertEquals(Integer.valueOf(20100), path.get(new Order()));
+    assertEquals(int.class, path.getValueType());
+  }
+
+  @Test
+  public void testMethods() {
+    PathAccessor<Order, String> path = PathAccessor.make(Order.class, "customer.address().city");
+    assertEquals("Milano", path.get(new Order()));
+    PathAccessor<Order, String> name = PathAccessor.make(Order.class, "customer.name()");
+    assertEquals("MARIO", name.get(new Order()));
+  }
+
+  @Test
+  public void testInherited() {
+    PathAccessor<SpecialOrder, Integer> path = PathAccessor.make(SpecialOrder.class, "customer.address.zip");
+    assertEquals(Integer.valueOf(20100), path.get(new SpecialOrder()));
+  }
+
+  @Test
+  public void testStatic() {
+    PathAccessor<Order, String> path = PathAccessor.make(Order.class, "customer.DEFAULT.address.city");
+    assertEquals("Roma", path.get(new Order()));
+  }
+
+  @Test
+  public void testNullSafe() {
+    PathAccessor<Order, Integer> path = PathAccessor.make(Order.class, "customer.address().zip");
+    Order order = new Order();
+    order.customer.address = null;
+    assertNull(path.get(order));
+    order.customer = null;
+    assertNull(path.get(order));
+    assertNull(path.get(null));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMethodException() {
+    PathAccessor.make(Order.class, "customer.fail()").get(new Order());
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testMissingMember() {
+    PathAccessor.make(Order.class, "customer.missing");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testThroughPrimitive() {
+    PathAccessor.make(Order.class, "customer.address.zip.value");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testThroughVoid() {
+    PathAccessor.make(Order.class, "customer.touch().name");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMalformed() {
+    PathAccessor.make(Order.class, "customer..address");
+  }
+
+  private static class Address {
+
+    private final String city;
+
+    private final int zip;
+
+    Address(String city, int zip) {
+      this.city = city;
+      this.zip = zip;
+    }
+  }
+
+  private static class Customer {
+
+    private static final Customer DEFAULT = new Customer("Default", new Address("Roma", 100));
+
+    private final String name;
+
+    private Address address;
+
+    Customer(String name, Address address) {
+      this.name = name;
+      this.address = address;
+    }
+
+    private Address address() {
+      return address;
+    }
+
+    private String name() {
+      return name.toUpperCase();
+    }
+
+    private void touch() {
+    }
+
+    private String fail() {
+      throw new IllegalStateException();
+    }
+  }
+
+  private static class Order {
+
+    private Customer customer = new Customer("Mario", new Address("Milano", 20100));
+  }
+
+  private static class SpecialOrder extends Order {
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static com.j2speed.accessor.Accessors.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit test case for the primitive specialized field accessors.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class PrimitiveFieldAccessorTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongType() {
+    new LongFieldAccessor<TestObject>("aPrivate", TestObject.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testStaticField() {
+    new IntFieldAccessor<TestObject>("aStaticPrivate", TestObject.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonStaticField() {
+    new StaticIntFieldAccessor<TestObject>("aPrivate", TestObject.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongTarget() {
+    IntFieldAccessor<Object> aPrivate = IntFieldAccessor.<Object> make("aPrivate", TestObject.class);
+    aPrivate.getInt(new Object());
+  }
+
+  @Test
+  public void testInt() {
+    TestObject test = new TestObject();
+    IntFieldAccessor<TestObject> aPrivate = accessIntField("aPrivate", TestObject.class);
+    assertEquals(26071973, aPrivate.getInt(test));
+    aPrivate.setInt(test, 26072007);
+    assertEquals(26072007, aPrivate.getInt(test));
+  }
+
+  @Test
+  public void testLong() {
+    TestObject test = new TestObject();
+    LongFieldAccessor<TestObject> aLong = accessLongField("aLong", TestObject.class);
+    assertEquals(260719730000L, aLong.getLong(test));
+    aLong.setLong(test, 260720070000L);
+    assertEquals(260720070000L, aLong.getLong(test));
+  }
+
+  @Test
+  public void testDouble() {
+    TestObject test = new TestObject();
+    DoubleFieldAccessor<TestObject> aDouble = accessDoubleField("aDouble", TestObject.class);
+    assertEquals(26.071973, aDouble.getDouble(test), 0);
+    aDouble.setDouble(test, 26.072007);
+    assertEquals(26.072007, aDouble.getDouble(test), 0);
+  }
+
+  @Test
+  public void testBoolean() {
+    TestObject test = new TestObject();
+    BooleanFieldAccessor<TestObject> magic = accessBooleanField("magic", TestObject.class);
+    assertTrue(magic.getBoolean(test));
+    magic.setBoolean(test, false);
+    assertFalse(magic.getBoolean(test));
+  }
+
+  @Test
+  public void testStaticInt() {
+    StaticIntFieldAccessor<TestObject> aStaticPrivate = accessStaticIntField("aStaticPrivate", TestObject.class);
+    try {
+      assertEquals(27022008, aStaticPrivate.getInt());
+      aStaticPrivate.setInt(26072007);
+      assertEquals(26072007, aStaticPrivate.getInt());
+    } finally {
+      aStaticPrivate.setInt(27022008);
+    }
+  }
+
+  @Test
+  public void testStaticLong() {
+    StaticLongFieldAccessor<TestObject> aStaticLong = accessStaticLongField("aStaticLong", TestObject.class);
+    try {
+      assertEquals(270220080000L, aStaticLong.getLong());
+      aStaticLong.setLong(260720070000L);
+      assertEquals(260720070000L, aStaticLong.getLong());
+    } finally {
+      aStaticLong.setLong(270220080000L);
+    }
+  }
+
+  @Test
+  public void testStaticDouble() {
+    StaticDoubleFieldAccessor<TestObject> aStaticDouble = accessStaticDoubleField("aStaticDouble", TestObject.class);
+    try {
+      assertEquals(27.022008, aStaticDouble.getDouble(), 0);
+      aStaticDouble.setDouble(26.072007);
+      assertEquals(26.072007, aStaticDouble.getDouble(), 0);
+    } finally {
+      aStaticDouble.setDouble(27.022008);
+    }
+  }
+
+  @Test
+  public void testStaticBoolean() {
+    StaticBooleanFieldAccessor<TestObject> aStaticBoolean = StaticBooleanFieldAccessor.make("aStaticBoolean", TestObject.class);
+    try {
+      assertTrue(aStaticBoolean.getBoolean());
+      aStaticBoolean.setBoolean(false);
+      assertFalse(aStaticBoolean.getBoolean());
+    } finally {
+      aStaticBoolean.setBoolean(true);
+    }
+  }
+}
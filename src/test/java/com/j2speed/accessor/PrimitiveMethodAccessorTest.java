@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class PrimitiveMethodAccessorTest {
+
+  @Test
+  public void testIntMethodAccessor() {
+    TestObject test = new TestObject();
+    IntMethodAccessor getPrivate = IntMethodAccessor.make("getPrivate", test);
+    IntMethodAccessor setPrivate = Accessors.accessIntMethod("setPrivate", test, int.class);
+    assertEquals(26071973, getPrivate.invokeAsInt());
+    assertEquals(26071973, setPrivate.invokeAsInt(1));
+    assertEquals(1, setPrivate.invokeAsInt(Integer.valueOf(2)));
+    assertEquals(2, setPrivate.invokeAsInt(new Object[] { 3 }));
+    assertEquals(3, getPrivate.invokeAsInt(new Object[0]));
+  }
+
+  @Test
+  public void testIntMethodAccessorStatic() {
+    IntMethodAccessor twice = IntMethodAccessor.make("twice", new TestObject(), int.class);
+    assertEquals(42, twice.invokeAsInt(21));
+  }
+
+  @Test
+  public void testLongMethodAccessor() {
+    LongMethodAccessor addLong = Accessors.accessLongMethod("addLong", new TestObject(), long.class);
+    assertEquals(260719730001L, addLong.invokeAsLong(1L));
+    // widened to long
+    assertEquals(260719730002L, addLong.invokeAsLong(1));
+  }
+
+  @Test
+  public void testDoubleMethodAccessor() {
+    DoubleMethodAccessor scaleDouble = Accessors.accessDoubleMethod("scaleDouble", new TestObject(), double.class);
+    assertEquals(52.143946, scaleDouble.invokeAsDouble(2.0), 0.0);
+    assertEquals(52.143946, scaleDouble.invokeAsDouble(new Object[] { 2.0 }), 0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongReturnType() {
+    LongMethodAccessor.make("getPrivate", new TestObject());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongArgumentType() {
+    IntMethodAccessor.make("setPrivate", new TestObject(), int.class).invokeAsInt(1.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongArgumentsCount() {
+    IntMethodAccessor.make("setPrivate", new TestObject(), int.class).invokeAsInt();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullArgument() {
+    IntMethodAccessor.make("setPrivate", new TestObject(), int.class).invokeAsInt(new Object[] { null });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongArgumentObject() {
+    IntMethodAccessor.make("setPrivate", new TestObject(), int.class).invokeAsInt("wrong");
+  }
+}
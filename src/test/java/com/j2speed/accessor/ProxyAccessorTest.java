@@ -17,12 +17,20 @@ package com.j2speed.accessor;
 
 import static com.j2speed.accessor.Accessors.*;
 import static org.junit.Assert.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import com.j2speed.accessor.spi.FieldAccess;
+import com.j2speed.accessor.spi.MethodAccess;
 
 @SuppressWarnings("all")
 public class ProxyAccessorTest {
@@ -108,6 +116,21 @@ public class ProxyAccessorTest {
     assertEquals(26072007, access.getAPrivate());
   }
 
+  @Test
+  public void testCreateAccessorWithStrategy() {
+    CountingStrategy first = new CountingStrategy();
+    TestObjectAccess access = ProxyAccessor.createAccessor(TestObjectAccess.class, test, null, first);
+    access.setPrivate(26072007);
+    assertEquals(26072007, access.getPrivate());
+    assertTrue(access.isMagic());
+    assertTrue(first.methods.get() > 0);
+    assertTrue(first.fields.get() > 0);
+    // the proxies of another strategy don't share the backends
+    CountingStrategy second = new CountingStrategy();
+    assertEquals(26072007, ProxyAccessor.createAccessor(TestObjectAccess.class, test, null, second).getPrivate());
+    assertTrue(second.methods.get() > 0);
+  }
+
   @Test
   public void testCreateAccessorClassOfTObjectMapOfStringString() {
     Map<String, String> map = new HashMap<String, String>();
@@ -288,4 +311,31 @@ public class ProxyAccessorTest {
       return null;
     }
   }
+
+  /**
+   * Counts the members it creates the backends for, through core reflection.
+   */
+  private static final class CountingStrategy implements AccessStrategy {
+
+    final AtomicInteger fields = new AtomicInteger();
+
+    final AtomicInteger methods = new AtomicInteger();
+
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      fields.incrementAndGet();
+      return AccessStrategies.REFLECTION.fieldAccess(field);
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      methods.incrementAndGet();
+      return AccessStrategies.REFLECTION.methodAccess(method);
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      return AccessStrategies.REFLECTION.constructorAccess(constructor);
+    }
+  }
 }
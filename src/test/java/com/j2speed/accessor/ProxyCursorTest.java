@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ProxyCursor}, through {@link Proxy} and through generated classes.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class ProxyCursorTest {
+
+  private static TestObject[] targets() {
+    TestObject[] targets = new TestObject[3];
+    for (int i = 0; i < targets.length; i++) {
+      targets[i] = new TestObject();
+      ProxyAccessor.createAccessor(CursorAccess.class, targets[i]).setPrivate(i);
+    }
+    return targets;
+  }
+
+  @Test
+  public void testOverArray() {
+    for (boolean generate : new boolean[] { false, true }) {
+      ProxyCursor<CursorAccess> cursor = ProxyAccessor.createCursor(CursorAccess.class, TestObject.class, null, generate);
+      assertEquals(!generate, Proxy.isProxyClass(cursor.get().getClass()));
+      CursorAccess access = cursor.get();
+      int sum = 0;
+      for (cursor.over(targets()); cursor.next();) {
+        assertSame(access, cursor.get());
+        sum += access.getPrivate();
+      }
+      assertEquals(3, cursor.index());
+      assertEquals(0 + 1 + 2, sum);
+      assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void testOverList() {
+    for (boolean generate : new boolean[] { false, true }) {
+      ProxyCursor<CursorAccess> cursor = ProxyAccessor.createCursor(CursorAccess.class, TestObject.class, null, generate);
+      TestObject[] targets = targets();
+      cursor.over(Arrays.asList(targets));
+      assertEquals(3, cursor.size());
+      assertEquals(-1, cursor.index());
+      assertEquals(2, cursor.moveTo(2).getPrivate());
+      cursor.get().setPrivate(42);
+      assertEquals(42, cursor.retarget(targets[2]).getPrivate());
+      assertEquals(0, cursor.moveTo(0).getPrivate());
+    }
+  }
+
+  @Test
+  public void testRetarget() {
+    for (boolean generate : new boolean[] { false, true }) {
+      ProxyCursor<CursorAccess> cursor = ProxyAccessor.createCursor(CursorAccess.class, TestObject.class, null, generate);
+      TestObject[] targets = targets();
+      assertEquals(1, cursor.retarget(targets[1]).getPrivate());
+      assertEquals(0, cursor.retarget(targets[0]).getPrivate());
+      try {
+        cursor.retarget(new Object());
+        fail("Expected IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        // OK
+      }
+      try {
+        cursor.over(targets).moveTo(3);
+        fail("Expected NoSuchElementException");
+      } catch (NoSuchElementException e) {
+        // OK
+      }
+    }
+  }
+
+  @Test
+  public void testExceptions() throws TestException {
+    for (boolean generate : new boolean[] { false, true }) {
+      ProxyCursor<CursorAccess> cursor = ProxyAccessor.createCursor(CursorAccess.class, TestObject.class, null, generate);
+      cursor.retarget(new TestObject());
+      try {
+        cursor.get().throwingMethod();
+        fail("Expected TestException");
+      } catch (TestException e) {
+        // OK
+      }
+    }
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testNoMatchingTarget() {
+    ProxyAccessor.createCursor(CursorAccess.class, Object.class);
+  }
+
+  private interface CursorAccess {
+
+    int getPrivate();
+
+    int setPrivate(int newValue);
+
+    void throwingMethod() throws TestException;
+  }
+}
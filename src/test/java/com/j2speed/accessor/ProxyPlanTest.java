@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import org.junit.Test;
+
+/**
+ * Tests that the proxies of the same shape share their resolved plan.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class ProxyPlanTest {
+
+  @Test
+  public void testSamePlanForSameShape() {
+    TestObject first = new TestObject();
+    TestObject second = new TestObject();
+    PlanAccess one = ProxyAccessor.createAccessor(PlanAccess.class, first, null, false);
+    PlanAccess two = ProxyAccessor.createAccessor(PlanAccess.class, second, null, false);
+    assertSame(one.getClass(), two.getClass());
+    assertSame(plan(one), plan(two));
+    two.setPrivate(1);
+    assertEquals(26071973, one.getPrivate());
+    assertEquals(1, two.getPrivate());
+  }
+
+  @Test
+  public void testDifferentPlanForDifferentMapping() {
+    Map<String, String> map = Collections.singletonMap("getAsInt", "getPrivate");
+    IntSupplier one = ProxyAccessor.createAccessor(IntSupplier.class, new TestObject(), map, false);
+    IntSupplier two = ProxyAccessor.createAccessor(IntSupplier.class, new TestObject(), Collections.singletonMap("getAsInt", "getAPrivate"), false);
+    IntSupplier three = ProxyAccessor.createAccessor(IntSupplier.class, new TestObject(), map, false);
+    assertNotSame(plan(one), plan(two));
+    assertSame(plan(one), plan(three));
+    assertEquals(26071973, three.getAsInt());
+  }
+
+  @Test
+  public void testDifferentPlanForStaticTarget() {
+    PlanAccess instance = ProxyAccessor.createAccessor(PlanAccess.class, new TestObject(), null, false);
+    PlanAccess type = ProxyAccessor.createAccessor(PlanAccess.class, TestObject.class, null, false);
+    assertNotSame(plan(instance), plan(type));
+  }
+
+  @Test
+  public void testNoMatchingTargetFailsEveryTime() {
+    for (int i = 0; i < 2; i++) {
+      try {
+        ProxyAccessor.createAccessor(PlanAccess.class, new Object(), null, false);
+        fail("Expected RuntimeException");
+      } catch (RuntimeException e) {
+        // OK
+      }
+    }
+  }
+
+  @Test
+  public void testInterfaceUnloaded() throws Exception {
+    WeakReference<ClassLoader> loader = proxyInSeparateLoader();
+    for (int i = 0; i < 50 && loader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull("the plans keep the class loader of the interface reachable", loader.get());
+  }
+
+  /**
+   * Proxies a TestObject with a copy of PlanAccess, loaded by a class loader that nothing else
+   * references.
+   */
+  private static WeakReference<ClassLoader> proxyInSeparateLoader() throws Exception {
+    URL classes = PlanAccess.class.getProtectionDomain().getCodeSource().getLocation();
+    URLClassLoader loader = new URLClassLoader(new URL[] { classes }, ClassLoader.getPlatformClassLoader());
+    Class<?> type = loader.loadClass(PlanAccess.class.getName());
+    assertNotSame(PlanAccess.class, type);
+    for (int i = 0; i < 2; i++) {
+      Object proxy = ProxyAccessor.createAccessor(type, new TestObject());
+      Method getPrivate = type.getMethod("getPrivate");
+      getPrivate.setAccessible(true);
+      assertEquals(Integer.valueOf(26071973), getPrivate.invoke(proxy));
+    }
+    loader.close();
+    return new WeakReference<ClassLoader>(loader);
+  }
+
+  private static Object plan(Object proxy) {
+    InvocationHandler handler = Proxy.getInvocationHandler(proxy);
+    FieldAccessor<Object, Object> methodsMap = FieldAccessor.make("methodsMap", handler.getClass());
+    return methodsMap.get(handler);
+  }
+
+  private interface PlanAccess {
+
+    int getPrivate();
+
+    int setPrivate(int newValue);
+  }
+}
@@ -16,7 +16,10 @@
 package com.j2speed.accessor;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import java.util.function.UnaryOperator;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -112,4 +115,37 @@ public class StaticFieldAccessorTest {
     }
   }
 
+
+  @Test
+  public void testMemoryOrderedAccess() {
+    try {
+      aStaticPrivate.setVolatile(1);
+      assertEquals(1, aStaticPrivate.getVolatile().intValue());
+      aStaticPrivate.setRelease(2);
+      assertEquals(2, aStaticPrivate.getAcquire().intValue());
+      aStaticPrivate.setOpaque(3);
+      assertEquals(3, aStaticPrivate.getOpaque().intValue());
+    } finally {
+      aStaticPrivate.set(27022008);
+    }
+  }
+
+  @Test
+  public void testAtomicAccess() {
+    try {
+      assertFalse(aStaticPrivate.compareAndSet(0, 1));
+      assertTrue(aStaticPrivate.compareAndSet(27022008, 1));
+      assertEquals(1, aStaticPrivate.getAndSet(2).intValue());
+      assertEquals(2, aStaticPrivate.getAndAdd(3).intValue());
+      assertEquals(5, aStaticPrivate.getAndUpdate(new UnaryOperator<Integer>() {
+        @Override
+        public Integer apply(Integer value) {
+          return value * 2;
+        }
+      }).intValue());
+      assertEquals(10, aStaticPrivate.get().intValue());
+    } finally {
+      aStaticPrivate.set(27022008);
+    }
+  }
 }
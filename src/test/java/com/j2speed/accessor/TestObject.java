@@ -38,11 +38,37 @@ public class TestObject extends SuperTestObject {
   @SuppressWarnings("unused")
   private int ANonStandardJavaBeanStyleField = -1;
 
+  @SuppressWarnings("unused")
+  private long aLong = 260719730000L;
+  @SuppressWarnings("unused")
+  private double aDouble = 26.071973;
+  @SuppressWarnings("unused")
+  private static long aStaticLong = 270220080000L;
+  @SuppressWarnings("unused")
+  private static double aStaticDouble = 27.022008;
+  @SuppressWarnings("unused")
+  private static boolean aStaticBoolean = true;
+
   @SuppressWarnings("unused")
   private void throwingMethod() throws TestException {
     throw new TestException("from throwingMethod");
   }
 
+  @SuppressWarnings("unused")
+  private static int twice(int value) {
+    return value * 2;
+  }
+
+  @SuppressWarnings("unused")
+  private long addLong(long delta) {
+    return aLong += delta;
+  }
+
+  @SuppressWarnings("unused")
+  private double scaleDouble(double factor) {
+    return aDouble * factor;
+  }
+
   @SuppressWarnings("unused")
   private void nonThrowingMethod() {
     // do nothing
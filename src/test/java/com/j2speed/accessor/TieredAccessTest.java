@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import com.j2speed.accessor.spi.AccessStrategy;
+import com.j2speed.accessor.spi.ConstructorAccess;
+import com.j2speed.accessor.spi.FieldAccess;
+import com.j2speed.accessor.spi.MethodAccess;
+
+/**
+ * Unit test case for class TieredAccess.
+ * 
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class TieredAccessTest {
+
+  /**
+   * Declines every member.
+   */
+  private static final AccessStrategy NONE = new AccessStrategy() {
+    @Override
+    public FieldAccess fieldAccess(Field field) {
+      return null;
+    }
+
+    @Override
+    public MethodAccess methodAccess(Method method) {
+      return null;
+    }
+
+    @Override
+    public ConstructorAccess constructorAccess(Constructor<?> constructor) {
+      return null;
+    }
+  };
+
+  @Test
+  public void testFieldUpgrade() {
+    FieldAccessor<TestObject, Integer> accessor = FieldAccessor.make("aPrivate", TestObject.class, AccessStrategies.tiered(3, AccessStrategies.METHOD_HANDLES));
+    TieredAccess<?> access = tiered(accessor);
+    TestObject test = new TestObject();
+    assertEquals(Integer.valueOf(26071973), accessor.get(test));
+    accessor.set(test, Integer.valueOf(1));
+    assertFalse(access.isUpgraded());
+    assertEquals(Integer.valueOf(1), accessor.get(test));
+    assertTrue(access.isUpgraded());
+    assertSame(MethodHandleFieldAccess.class, access.access().getClass());
+    accessor.set(test, Integer.valueOf(2));
+    assertEquals(Integer.valueOf(2), accessor.get(test));
+  }
+
+  @Test
+  public void testMethodUpgrade() {
+    MethodAccessor<Integer> accessor = MethodAccessor.make(AccessStrategies.tiered(2, AccessStrategies.GENERATED), "setPrivate", new TestObject(), int.class);
+    TieredAccess<?> access = tiered(accessor);
+    assertEquals(Integer.valueOf(26071973), accessor.invoke(Integer.valueOf(1)));
+    assertFalse(access.isUpgraded());
+    assertEquals(Integer.valueOf(1), accessor.invoke(Integer.valueOf(2)));
+    assertTrue(access.isUpgraded());
+    assertTrue(access.access().getClass().isHidden());
+    assertEquals(Integer.valueOf(2), accessor.invoke(Integer.valueOf(3)));
+  }
+
+  @Test
+  public void testConstructorUpgrade() {
+    ClassAccessor accessor = ClassAccessor.create("com.j2speed.accessor.separate.PackagePrivateObject");
+    ClassAccessor.ClassConstructor constructor = accessor.constructor(AccessStrategies.tiered(1, AccessStrategies.METHOD_HANDLES), String.class);
+    FieldAccessor<Object, String> name = FieldAccessor.make("name", accessor.getAccessedClass());
+    for (int i = 0; i < 3; i++) {
+      assertEquals("Alex", name.get(constructor.newInstance("Alex")));
+    }
+  }
+
+  @Test
+  public void testUpgradeDeclined() {
+    FieldAccessor<TestObject, Integer> accessor = FieldAccessor.make("aPrivate", TestObject.class, AccessStrategies.tiered(1, NONE));
+    TieredAccess<?> access = tiered(accessor);
+    TestObject test = new TestObject();
+    assertEquals(Integer.valueOf(26071973), accessor.get(test));
+    assertTrue(access.isUpgraded());
+    assertSame(ReflectionFieldAccess.class, access.access().getClass());
+    accessor.set(test, Integer.valueOf(1));
+    assertEquals(Integer.valueOf(1), accessor.get(test));
+  }
+
+  @Test
+  public void testConcurrentUpgrade() throws Exception {
+    final FieldAccessor<TestObject, Integer> accessor = FieldAccessor.make("aPrivate", TestObject.class, AccessStrategies.tiered(100, AccessStrategies.METHOD_HANDLES));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int t = 0; t < 4; t++) {
+        results.add(executor.submit(new Callable<Boolean>() {
+          public Boolean call() {
+            TestObject test = new TestObject();
+            for (int i = 0; i < 10000; i++) {
+              accessor.set(test, Integer.valueOf(i));
+              if (accessor.get(test).intValue() != i) {
+                return Boolean.FALSE;
+              }
+            }
+            return Boolean.TRUE;
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get().booleanValue());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertSame(MethodHandleFieldAccess.class, tiered(accessor).access().getClass());
+  }
+
+  @Test
+  public void testProxyUpgrade() {
+    ClassLoader loader = TestObject.class.getClassLoader();
+    AccessStrategies.set(loader, AccessStrategies.tiered(2, AccessStrategies.METHOD_HANDLES));
+    try {
+      TieredProxyAccess access = ProxyAccessor.createAccessor(TieredProxyAccess.class, new TestObject());
+      for (int i = 0; i < 5; i++) {
+        assertEquals(i == 0 ? 26071973 : i - 1, access.setPrivate(i));
+        access.setAPrivate(i);
+        assertEquals(i, access.getAPrivate());
+      }
+    } finally {
+      AccessStrategies.set(loader, null);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeThreshold() {
+    AccessStrategies.tiered(-1, AccessStrategies.METHOD_HANDLES);
+  }
+
+  @Test
+  public void testTieredIsDefault() {
+    if (System.getProperty("com.j2speed.accessor.strategy") == null && !Boolean.getBoolean("com.j2speed.accessor.generate")) {
+      assertSame(AccessStrategies.TIERED, AccessStrategies.getDefault());
+    }
+  }
+
+  private static TieredAccess<?> tiered(FieldAccessor<?, ?> accessor) {
+    return (TieredAccess<?>) FieldAccessor.make("access", FieldAccessor.class).get(accessor);
+  }
+
+  private static TieredAccess<?> tiered(AbstractMethodAccessor<?> accessor) {
+    return (TieredAccess<?>) FieldAccessor.make("access", AbstractMethodAccessor.class).get(accessor);
+  }
+
+  /**
+   * Accesses TestObject, used by this test only so that its invokers are created under the tiered
+   * strategy.
+   */
+  public static interface TieredProxyAccess {
+
+    int setPrivate(int value);
+
+    void setAPrivate(int value);
+
+    int getAPrivate();
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2007-2011 J2Speed. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.j2speed.accessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * @version trunk
+ * @since trunk
+ * @author Alessandro Nistico
+ */
+public class UnboundMethodAccessorTest {
+
+  @Test
+  public void testInvokeOnManyTargets() {
+    UnboundMethodAccessor<TestObject, Integer> getPrivate = UnboundMethodAccessor.make("getPrivate", TestObject.class);
+    UnboundMethodAccessor<TestObject, Integer> setPrivate = UnboundMethodAccessor.make("setPrivate", TestObject.class, int.class);
+    TestObject first = new TestObject();
+    TestObject second = new TestObject();
+
+    assertEquals(26071973, setPrivate.invoke(first, 1).intValue());
+    assertEquals(26071973, setPrivate.invoke(second, 2).intValue());
+    assertEquals(1, getPrivate.invoke(first).intValue());
+    assertEquals(2, getPrivate.invoke(second).intValue());
+  }
+
+  @Test
+  public void testInvokeStatic() {
+    UnboundMethodAccessor<TestObject, Integer> twice = Accessors.accessUnboundMethod("twice", TestObject.class, int.class);
+    assertEquals(42, twice.invoke(null, 21).intValue());
+    assertEquals(42, twice.invoke(new TestObject(), 21).intValue());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testInvokeNullTarget() {
+    UnboundMethodAccessor.make("getPrivate", TestObject.class).invoke(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvokeWrongArguments() {
+    UnboundMethodAccessor.make("setPrivate", TestObject.class, int.class).invoke(new TestObject(), "wrong");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvokeWrongArgumentsCount() {
+    UnboundMethodAccessor.make("setPrivate", TestObject.class, int.class).invoke(new TestObject());
+  }
+
+  @Test
+  public void testInvokeThrowing() {
+    UnboundMethodAccessor<TestObject, Void> throwing = UnboundMethodAccessor.make("throwingMethod", TestObject.class);
+    try {
+      throwing.invoke(new TestObject());
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof TestException);
+    }
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testMissing() {
+    UnboundMethodAccessor.make("missing", TestObject.class);
+  }
+
+  @Test
+  public void testBindTo() {
+    UnboundMethodAccessor<TestObject, Integer> getPrivate = UnboundMethodAccessor.make("getPrivate", TestObject.class);
+    TestObject test = new TestObject();
+    MethodAccessor<Integer> bound = getPrivate.bindTo(test);
+    assertEquals(26071973, bound.invoke().intValue());
+    UnboundMethodAccessor.make("setPrivate", TestObject.class, int.class).invoke(test, 7);
+    assertEquals(7, bound.invoke().intValue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public void testBindToWrongTarget() {
+    UnboundMethodAccessor getPrivate = UnboundMethodAccessor.make("getPrivate", TestObject.class);
+    getPrivate.bindTo(new Object());
+  }
+}
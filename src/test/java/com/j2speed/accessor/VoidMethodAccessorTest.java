@@ -64,4 +64,21 @@ public class VoidMethodAccessorTest {
       // OK
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testInvokeFixedArity() {
+    new VoidMethodAccessor("nonThrowingMethod", new TestObject()).invoke0();
+    try {
+      throwingMethod.invoke0();
+      fail("Expected test exception");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof TestException);
+    }
+    try {
+      throwingMethod.invoke1("wrong");
+      fail("Expected test exception");
+    } catch (IllegalArgumentException e) {
+      // OK
+    }
+  }
+}